@@ -10,18 +10,25 @@ import android.widget.TextView;
 import java.io.IOException;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import endpoint.sensors.SupportedSensors;
 import logging.SmartLog;
 import network.branch.BroadcastHandler;
 import network.core.Packet;
-import network.core.exceptions.CorruptPacketException;
 import network.core.packets.plants.AvailablePlants;
 import network.core.packets.sensors.RequestSensors;
 import network.core.packets.sensors.SensorsData;
 import network.leaf.Identity;
 import network.leaf.Leaf;
+import network.leaf.ResponseFuture;
 
 /**
  * RealtimeSensors is responsible for establishing a connection with the server
@@ -52,6 +59,9 @@ public class RealtimeSensors extends Thread implements BroadcastHandler, Adapter
     // The plant that is currently being displayed
     private int selectedPlantId;
 
+    // The latest sensors received for every plant, so that switching plants shows values right away.
+    private Map<Integer, SensorsData> latestSensors = new ConcurrentHashMap<>();
+
     // The animation color to trigger when updating the values
     private int animationColor = Color.rgb(216, 27, 96);
 
@@ -166,26 +176,48 @@ public class RealtimeSensors extends Thread implements BroadcastHandler, Adapter
     }
 
     /*
-     * Request the latest sensors information from the server.
+     * Retrieve the plants to request sensors for: every active plant and the selected one.
      */
-    private SensorsData getSensorsData() throws IOException, CorruptPacketException {
+    private synchronized Set<Integer> getWatchedPlantIds() {
+        Set<Integer> plantIds = new HashSet<>();
+        if (this.activePlants != null) {
+            plantIds.addAll(this.activePlants.getPlants().keySet());
+        }
 
-        SensorsData data = null;
-        RequestSensors request = new RequestSensors();
-        request.setPlantId(this.selectedPlantId);
+        plantIds.add(this.selectedPlantId);
+        return plantIds;
+    }
 
-        /*
-         * Keep sending a request for SensorsData until the server responds to us.
-         */
-        while (data == null) {
-            // Send the request for fresh sensor data to the server.
-            this.leaf.send(request);
+    /*
+     * Request the latest sensors information of every watched plant from the server. All
+     * requests are in flight at once and retransmitted by the leaf as the round trip to the
+     * server dictates. A plant that does not respond keeps its last values until the next refresh.
+     */
+    private void refreshSensorsData() throws IOException, InterruptedException {
+        Map<Integer, ResponseFuture> responses = new HashMap<>();
+        for (int plantId : this.getWatchedPlantIds()) {
+            RequestSensors request = new RequestSensors();
+            request.setPlantId(plantId);
 
-            // Wait for the response from the server.
-            data = (SensorsData) leaf.receiveWithTimeout();
+            responses.put(plantId, this.leaf.request(request));
         }
 
-        return data;
+        // Wait for all of the responses. A request fails on its own once its attempts run out.
+        for (Map.Entry<Integer, ResponseFuture> entry : responses.entrySet()) {
+            try {
+                Packet packet = entry.getValue().get();
+
+                if (packet instanceof SensorsData) {
+                    this.latestSensors.put(entry.getKey(), (SensorsData) packet);
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof TimeoutException) {
+                    logger.warn("No sensors received for plant " + entry.getKey());
+                } else {
+                    logger.warn("Failed to request sensors for plant " + entry.getKey() + ": " + ex.getCause());
+                }
+            }
+        }
     }
 
     /*
@@ -256,21 +288,24 @@ public class RealtimeSensors extends Thread implements BroadcastHandler, Adapter
             while (true) {
 
                 // Retrieve the latest sensors from the server
-                SensorsData data = getSensorsData();
+                refreshSensorsData();
+
+                SensorsData data = this.latestSensors.get(this.selectedPlantId);
+                if (data != null) {
 
-                // Update the sensors information on the interface to the latest ones
-                updateSensorsOnScreen(data);
+                    // Update the sensors information on the interface to the latest ones
+                    updateSensorsOnScreen(data);
 
-                // Play a quick animation to visually convey that sensors updated
-                playUpdatedSensorAnimation();
+                    // Play a quick animation to visually convey that sensors updated
+                    playUpdatedSensorAnimation();
+                }
 
                 // Sleep for a second before requesting another fresh batch of sensors.
                 Thread.sleep(1000);
             }
-        } catch (IOException | CorruptPacketException ex) {
+        } catch (IOException ex) {
 
-            // Inability to perform network operations or receiving incorrect packets is
-            // grounds for exiting this thread.
+            // Inability to perform network operations is grounds for exiting this thread.
             logger.error("Encountered exception during operation: " + ex.getMessage());
         } catch (InterruptedException ex) {
 
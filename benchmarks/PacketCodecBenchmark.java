@@ -0,0 +1,149 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import endpoint.sensors.SupportedSensors;
+import network.core.NodeLocation;
+import network.core.OpCodes;
+import network.core.Packet;
+import network.core.PacketChecksum;
+import network.core.WireFormat;
+import network.core.exceptions.CorruptPacketException;
+import network.core.packets.Acknowledgement;
+import network.core.packets.GenericError;
+import network.core.packets.plants.AvailablePlants;
+import network.core.packets.registration.LeafRegistration;
+import network.core.packets.registration.RegistrationResponse;
+import network.core.packets.sensors.RequestSensors;
+import network.core.packets.sensors.SensorsData;
+import network.leaf.Identity;
+
+/**
+ * PacketCodecBenchmark measures the cost of encoding and decoding every
+ * packet in OpCodes, in every wire format and checksum.
+ *
+ * Every packet is populated the way it is in production: SensorsData
+ * carries all supported sensors and AvailablePlants fills its payload.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PacketCodecBenchmark {
+
+    // The opcode of the packet under measurement.
+    @Param({"0", "1", "2", "3", "4", "5", "6"})
+    public byte opcode;
+
+    @Param
+    public WireFormat format;
+
+    @Param
+    public PacketChecksum checksum;
+
+    // The packet being compiled, and the payload it compiles to.
+    private Packet packet;
+    private ByteBuffer payload;
+
+    /**
+     * Build the packet and compile the payload that decoding benchmarks read from.
+     */
+    @Setup
+    public void setup() {
+        this.packet = PacketCodecBenchmark.createPacket(this.opcode);
+        this.packet.compile(this.format, this.checksum);
+
+        // Only the bytes on the wire are decoded, exactly as a transport would.
+        byte[] compiled = this.packet.getDatagram().getData().clone();
+        this.payload = ByteBuffer.wrap(compiled, 0, this.packet.getDatagram().getLength());
+    }
+
+    /**
+     * Benchmark: build the packet contents, pad them and compute the checksum.
+     */
+    @Benchmark
+    public Packet compile() {
+        this.packet.compile(this.format, this.checksum);
+        return this.packet;
+    }
+
+    /**
+     * Benchmark: verify and decode the packet from its payload.
+     */
+    @Benchmark
+    public Packet fromPayload() throws CorruptPacketException {
+        return Packet.fromPayload(this.payload);
+    }
+
+    /**
+     * Benchmark: verify the checksum of the payload alone, in place.
+     */
+    @Benchmark
+    public boolean verifyChecksum() {
+        int crcIndex = this.payload.limit() - Packet.CRC_SIZE;
+        return this.checksum.compute(this.payload, this.payload.position(), crcIndex) == this.payload.getInt(crcIndex);
+    }
+
+    /**
+     * Create a fully populated packet for the opcode.
+     *
+     * @param opcode The opcode of the packet
+     * @return The packet, ready to be compiled
+     */
+    static Packet createPacket(byte opcode) {
+        switch (opcode) {
+            case OpCodes.LEAF_REGISTRATION:
+                LeafRegistration registration = new LeafRegistration();
+                registration.setIdentity(Identity.PLANT_ENDPOINT);
+                registration.setMulticastCapable(true);
+                registration.setProtocolVersion(Packet.PROTOCOL_VERSION);
+                registration.setSupportedChecksums(PacketChecksum.getSupported());
+                return registration;
+            case OpCodes.REGISTRATION_RESPONSE:
+                RegistrationResponse response = new RegistrationResponse();
+                response.setStatus(true);
+                response.setRegistrationDetails("OK");
+                response.setMulticastGroup(new NodeLocation("239.255.30.1", 3011));
+                return response;
+            case OpCodes.SENSORS_DATA:
+                SensorsData data = new SensorsData();
+                data.addSensorData(SupportedSensors.LIGHT_INTENSITY, 700.5);
+                data.addSensorData(SupportedSensors.SOIL_MOISTURE, 40.25);
+                data.addSensorData(SupportedSensors.AIR_TEMPERATURE, 21.0);
+                data.addSensorData(SupportedSensors.AIR_HUMIDITY, 55.75);
+                return data;
+            case OpCodes.REQUEST_SENSORS:
+                RequestSensors request = new RequestSensors();
+                request.setPlantId(1042);
+                return request;
+            case OpCodes.GENERIC_ERROR:
+                return new GenericError((byte)1, "You are only allowed to send LeafRegistration packets to the main server.");
+            case OpCodes.ACKNOWLEDGEMENT:
+                return new Acknowledgement();
+            case OpCodes.AVAILABLE_PLANTS:
+
+                // 36 plants fill 495 of the bytes available to the body in either format.
+                AvailablePlants plants = new AvailablePlants();
+                for (int i = 1; i <= 36; i++) {
+                    plants.addPlant(i, String.format("Plant #%d", i));
+                }
+
+                plants.setBroadcast(true);
+                return plants;
+            default:
+                throw new IllegalArgumentException("No packet for opcode " + opcode);
+        }
+    }
+}
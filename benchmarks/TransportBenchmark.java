@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import network.core.NodeLocation;
+import network.core.OpCodes;
+import network.core.Packet;
+import network.core.PacketChecksum;
+import network.core.Transport;
+import network.core.WireFormat;
+import network.core.exceptions.CorruptPacketException;
+
+/**
+ * TransportBenchmark measures a SensorsData packet travelling between
+ * two Transports over loopback: compiled and sent by one, received and
+ * decoded by the other.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransportBenchmark {
+
+    @Param
+    public WireFormat format;
+
+    @Param
+    public PacketChecksum checksum;
+
+    // The endpoint sending packets and the endpoint receiving them.
+    private Transport sender;
+    private Transport receiver;
+
+    private Packet packet;
+
+    /**
+     * Open both transports on random loopback ports.
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.receiver = new Transport(0);
+        this.sender = new Transport(new NodeLocation("127.0.0.1", this.receiver.getPort()));
+        this.sender.setWireFormat(this.format);
+        this.sender.setChecksum(this.checksum);
+
+        this.packet = PacketCodecBenchmark.createPacket(OpCodes.SENSORS_DATA);
+    }
+
+    /**
+     * Close both transports.
+     */
+    @TearDown
+    public void teardown() {
+        this.sender.close();
+        this.receiver.close();
+    }
+
+    /**
+     * Benchmark: send the packet and receive it on the other end.
+     */
+    @Benchmark
+    public Packet sendReceive() throws IOException, CorruptPacketException {
+        this.sender.send(this.packet);
+        return this.receiver.receive();
+    }
+}
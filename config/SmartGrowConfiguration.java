@@ -7,4 +7,74 @@ public class SmartGrowConfiguration {
 
     // The remote port that the central processing server is listening on.
     public static final int CPS_PORT = 3010;
+
+    // The number of reactor threads multiplexing the leaves of each branch on the central
+    // processing server. Zero falls back to a dedicated socket and thread for every leaf.
+    public static final int CPS_REACTOR_THREADS = 2;
+
+    // The number of worker threads per branch that reactors hand account handling and leaf
+    // managers to, since both may wait on the database.
+    public static final int CPS_LEAF_WORKER_THREADS = 8;
+
+    // Whether leaves keep talking to CPS_PORT after registering. The stem then routes their
+    // packets to the right session instead of every leaf being assigned a port of its own.
+    public static final boolean CPS_SINGLE_PORT = false;
+
+    // The number of broadcasts that may be queued for a leaf on the central processing server
+    // before the oldest is dropped. A slow leaf only ever falls behind on its own queue.
+    public static final int CPS_OUTBOUND_QUEUE_SIZE = 4;
+
+    // Whether the central processing server sends broadcasts to a multicast group per branch,
+    // reaching every leaf that joined the group with a single datagram. Leaves that cannot
+    // join keep receiving broadcasts by unicast.
+    public static final boolean CPS_MULTICAST = false;
+
+    // The multicast groups of the plants and users branches.
+    public static final String CPS_PLANTS_MULTICAST_GROUP = "239.255.30.1";
+    public static final int CPS_PLANTS_MULTICAST_PORT = 3011;
+    public static final String CPS_USERS_MULTICAST_GROUP = "239.255.30.2";
+    public static final int CPS_USERS_MULTICAST_PORT = 3012;
+
+    // The time (in milliseconds) that the central processing server trusts its copy of the ARP
+    // table for when resolving the MAC addresses of leaves. An address missing from the copy
+    // reloads it at most once per CPS_ARP_MIN_REFRESH_MS, and is then remembered as missing
+    // for CPS_ARP_NEGATIVE_TTL_MS rather than reloading the table on every lookup.
+    public static final int CPS_ARP_REFRESH_MS = 30000;
+    public static final int CPS_ARP_MIN_REFRESH_MS = 1000;
+    public static final int CPS_ARP_NEGATIVE_TTL_MS = 5000;
+
+    // The name of the network interface that multicast groups are used on, or null for the
+    // system default. Set to "lo" to keep multicast on the loopback interface.
+    public static final String MULTICAST_INTERFACE = null;
+
+    // Whether leaves offer to join the multicast group of their branch. Leaves running on Android
+    // never do, since multicast datagrams only reach applications holding a WifiManager.MulticastLock.
+    // A leaf that fails to join the group registers again without it.
+    public static final boolean LEAF_MULTICAST = true;
+
+    // The number of sequenced packets that a leaf may have in flight before sending blocks until
+    // some are acknowledged. At most 32, which is as far ahead as the server tracks.
+    public static final int LEAF_SEND_WINDOW = 16;
+
+    // The time (in milliseconds) that a leaf waits for a response before sending again is derived
+    // from the round trips it measures to its branch. Until one is measured it waits the initial
+    // timeout, and the timeout never leaves the minimum and maximum, however it backs off.
+    public static final int LEAF_INITIAL_TIMEOUT_MS = 1000;
+    public static final int LEAF_MIN_TIMEOUT_MS = 20;
+    public static final int LEAF_MAX_TIMEOUT_MS = 8000;
+
+    // The time (in milliseconds) that a leaf waits for its RegistrationResponse at the least,
+    // until a round trip has been measured. The first round trip includes the server resolving
+    // the MAC address of the leaf and handling its account.
+    public static final int LEAF_REGISTRATION_TIMEOUT_MS = 3000;
+
+    // The number of times that a leaf sends a request before giving up on its response.
+    public static final int LEAF_REQUEST_ATTEMPTS = 5;
+
+    // The number of received responses that a leaf holds on to until they are received by the
+    // application.
+    public static final int LEAF_RECEIVE_QUEUE_SIZE = 64;
+
+    // The number of messages that a call site logging every packet may log each second.
+    public static final int PACKET_LOGS_PER_SECOND = 5;
 }
\ No newline at end of file
@@ -1,14 +1,17 @@
 package cps;
 
+import java.io.IOException;
 import java.net.SocketException;
 
 import config.SmartGrowConfiguration;
 import cps.accounts.AccountManager;
-import cps.database.DatabaseController;
+import cps.database.DatabaseInfo;
+import cps.database.LatestReadingsCache;
 import cps.database.exceptions.SmartgrowDatabaseException;
-import cps.database.tables.LeafAccounts;
 import cps.management.managers.AndroidUserManager;
 import cps.management.managers.PlantEndpointManager;
+import cps.storage.SensorsStorage;
+import cps.storage.Storage;
 import logging.SmartLog;
 import network.leaf.Identity;
 import network.stem.Stem;
@@ -27,50 +30,87 @@ public class CentralProcessingServer {
 
     // The UDP abstraction layer allowing the server to handle multiple leaves
     private Stem stem;
-    private DatabaseController controller;
+
+    // The storages of the sensors readings and leaf accounts.
+    private Storage storage;
 
     /**
-     * Start up the server by initializing its UDP transport layer.
+     * Start up the server by initializing its UDP transport layer, keeping sensors readings
+     * and leaf accounts in the configured storage backend.
+     *
+     * @param port The port to listen on
      */
     public CentralProcessingServer(int port) {
+        this(port, DatabaseInfo.STORAGE);
+    }
+
+    /**
+     * Start up the server by initializing its UDP transport layer.
+     *
+     * @param port The port to listen on
+     * @param backend The storage backend of sensors readings and leaf accounts (see Storage)
+     */
+    public CentralProcessingServer(int port, String backend) {
 
         // Initialize the server on the specified port
         try {
             this.stem = new Stem(port);
-        } catch (SocketException ex) {
+        } catch (IOException ex) {
             logger.fatal("Unable to initialize cps on port " + SmartGrowConfiguration.CPS_PORT);
             System.exit(1);
         }
 
         logger.info("Successfully initialized cps on port " + SmartGrowConfiguration.CPS_PORT);
 
-        // Establish a connection to the SmartGrow database
+        // Open the storage backend, connecting to the SmartGrow database if it is the one used.
         try {
-            this.controller = new DatabaseController();
+            this.storage = Storage.open(backend);
         } catch (SmartgrowDatabaseException ex) {
-            logger.fatal("Unable to create database controller: " + ex.getMessage());
+            logger.fatal("Unable to open " + backend + " storage: " + ex.getMessage());
             System.exit(1);
         }
 
-        // Attach the leaves managers to the stem.
-        this.stem.addManager(Identity.PLANT_ENDPOINT, new PlantEndpointManager(this.controller));
-        this.stem.addManager(Identity.ANDROID_USER, new AndroidUserManager(this.controller));
+        logger.info("Storing sensors data and leaf accounts in " + backend + " storage");
+
+        // Attach the leaves managers to the stem. Both share the latest readings of the plants,
+        // so that android users are answered with what the plants just reported.
+        SensorsStorage plantsData = this.storage.getSensors();
+        LatestReadingsCache latestReadings = new LatestReadingsCache();
+        PlantEndpointManager plantsManager = new PlantEndpointManager(plantsData, latestReadings);
+        this.stem.addManager(Identity.PLANT_ENDPOINT, plantsManager);
+        this.stem.addManager(Identity.ANDROID_USER, new AndroidUserManager(plantsData, latestReadings));
 
         // Attach an account handler to this server instance.
         try {
-            this.stem.addAccountHandler(new AccountManager(new LeafAccounts(this.controller)));
+            this.stem.addAccountHandler(new AccountManager(this.storage.getAccounts()));
         } catch (SocketException ex) {
             logger.fatal("Failed to attach account manager to server.");
             System.exit(1);
         }
+
+        // Write the sensors data that has already been acknowledged before the server exits,
+        // then close the storage.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                plantsManager.shutdown();
+            } catch (InterruptedException ex) {
+                logger.error("Interrupted while writing queued sensors data");
+            }
+
+            try {
+                this.storage.close();
+            } catch (SmartgrowDatabaseException ex) {
+                logger.error("Failed to close storage: " + ex.getMessage());
+            }
+        }, "DatabaseShutdownHook"));
     }
 
     /**
      * Main method for creating a CentralProcessingServer instance.
      *
-     * @param args Run-time arguments (None at the moment)
+     * @param args Run-time arguments: the storage backend to use instead of the configured one (optional)
      */
     public static void main(String[] args) {
-        new CentralProcessingServer(SmartGrowConfiguration.CPS_PORT);
+        new CentralProcessingServer(SmartGrowConfiguration.CPS_PORT, args.length > 0 ? args[0] : DatabaseInfo.STORAGE);
     }
 }
\ No newline at end of file
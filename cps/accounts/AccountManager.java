@@ -1,5 +1,6 @@
 package cps.accounts;
 
+import config.SmartGrowConfiguration;
 import logging.SmartLog;
 import util.MACAddress;
 
@@ -9,11 +10,11 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import cps.accounts.Account;
-import cps.database.tables.LeafAccounts;
 import cps.database.exceptions.SmartgrowDatabaseException;
+import cps.storage.AccountsStorage;
 import network.stem.LeafAccountHandler;
 
 /**
@@ -21,6 +22,12 @@ import network.stem.LeafAccountHandler;
  * to automatically create accounts for leaves persisted by virtue
  * of their physical (MAC) address.
  * 
+ * MAC addresses of remote leaves are resolved from a cached copy of the
+ * ARP table, read from /proc/net/arp where the machine has one.
+ * 
+ * Leaves register in parallel: only registrations of the same MAC
+ * address take turns, so that a new leaf is stored exactly once.
+ * 
  * @author Ahmed Sakr
  * @since November 25, 2019
  */
@@ -29,26 +36,55 @@ public class AccountManager implements LeafAccountHandler {
     // The logging instance for this class
     private static final SmartLog logger = new SmartLog(AccountManager.class.getName());
 
-    // The ARP command for deriving all MAC address entries for IPs
-    private static final String ARP_COMMAND = "arp -a";
+    // The number of locks that registrations are spread over by their MAC address.
+    private static final int REGISTRATION_LOCK_STRIPES = 64;
+
+    // The storage of the leaf accounts
+    private AccountsStorage accounts;
 
-    // The LeafAccounts table wrapper
-    private LeafAccounts accounts;
+    // Resolves the MAC addresses of remote leaves from the ARP table.
+    private MacAddressResolver macAddressResolver;
 
     // Local addresses obtained from all discovered interfaces on the machine.
     private ArrayList<String> localAddresses;
 
     // The initial simulated plant id counter
-    private int plantSimulationIdCounter = 1000;
+    private AtomicInteger plantSimulationIdCounter = new AtomicInteger(1000);
+
+    // The locks that registrations of the same MAC address take turns on.
+    private final Object[] registrationLocks;
 
     /**
      * Initialize an AccountManager for the SmartGrow server.
      *
+     * @param accounts The storage of the leaf accounts
+     * @throws SocketException
+     */
+    public AccountManager(AccountsStorage accounts) throws SocketException {
+        this(accounts, new MacAddressResolver(
+            ProcNetArpSource.isAvailable() ? new ProcNetArpSource() : new ArpCommandSource(),
+            SmartGrowConfiguration.CPS_ARP_REFRESH_MS,
+            SmartGrowConfiguration.CPS_ARP_MIN_REFRESH_MS,
+            SmartGrowConfiguration.CPS_ARP_NEGATIVE_TTL_MS));
+    }
+
+    /**
+     * Initialize an AccountManager for the SmartGrow server that resolves MAC addresses
+     * through the provided resolver.
+     *
+     * @param accounts The storage of the leaf accounts
+     * @param macAddressResolver Resolves the MAC addresses of remote leaves
      * @throws SocketException
      */
-    public AccountManager(LeafAccounts accounts) throws SocketException {
+    public AccountManager(AccountsStorage accounts, MacAddressResolver macAddressResolver) throws SocketException {
 
         this.accounts = accounts;
+        this.macAddressResolver = macAddressResolver;
+
+        this.registrationLocks = new Object[REGISTRATION_LOCK_STRIPES];
+        for (int i = 0; i < this.registrationLocks.length; i++) {
+            this.registrationLocks[i] = new Object();
+        }
 
         // Discover all addresses on interfaces registered on this machine
         this.indexLocalAddresses();
@@ -62,20 +98,25 @@ public class AccountManager implements LeafAccountHandler {
      * @return The Account object for the leaf
      */
     @Override
-    public synchronized Account onLeafConnection(String address) throws SmartgrowDatabaseException, IOException {
-        
-        // Increase the plant id counter if this leaf connection is from a simulated plant endpoint.
+    public Account onLeafConnection(String address) throws SmartgrowDatabaseException, IOException {
+
+        // Retrieve the MAC address associated with that address
+        String macAddr = this.getMACAddress(address);
+
+        // Simulations are given a temporary account (see getAccount), each with a plant id of its own.
         if (isLocalAddress(address)) {
-            this.plantSimulationIdCounter++;
+            return new Account(this.plantSimulationIdCounter.incrementAndGet(), macAddr);
         }
 
-        // Create an account for the leaf if it does not already have one
-        if (this.getAccount(address) == null) {
-            this.createAccount(address);
+        // No way to tell who the leaf is.
+        if (macAddr == null) {
+            return null;
         }
 
-        // Return the account information for this leaf
-        return this.getAccount(address);
+        // Create an account for the leaf if it does not already have one, and return it. A leaf
+        // seen before is answered from memory by every storage, and the same leaf
+        // registering twice at once waits for the first registration to store it.
+        return new Account(this.getOrCreateLeafId(macAddr), macAddr);
     }
 
     /**
@@ -88,32 +129,60 @@ public class AccountManager implements LeafAccountHandler {
     public Account getAccount(String address) throws SmartgrowDatabaseException, IOException {
 
         // Retrieve the MAC address associated with that address
+        return this.getAccount(address, this.getMACAddress(address));
+    }
+
+    /**
+     * Creates a new account for the provided IP address using its MAC address.
+     *
+     * @param address The leaf identified by its IPv4 address
+     */
+    public void createAccount(String address) throws SmartgrowDatabaseException, IOException {
         String macAddr = this.getMACAddress(address);
 
+        // Don't bother trying anything if the MAC address could not be resolved.
+        if (macAddr != null) {
+            this.getOrCreateLeafId(macAddr);
+        }
+    }
+
+    /*
+     * Retrieve the account information for the leaf identified by the IPv4 address, whose
+     * MAC address has already been resolved.
+     */
+    private Account getAccount(String address, String macAddr) throws SmartgrowDatabaseException {
+
         /**
          * Simulations run on the same machine as the server. We don't need
          * to store their MAC addresses, but we give them a temporary account
          * while they are running.
          */
         if (isLocalAddress(address)) {
-            return new Account(this.plantSimulationIdCounter, macAddr);
+            return new Account(this.plantSimulationIdCounter.get(), macAddr);
         }
 
         int leafId = this.accounts.getLeafId(macAddr);
-        if (leafId == LeafAccounts.ACCOUNT_DOES_NOT_EXIST) {
+        if (leafId == AccountsStorage.ACCOUNT_DOES_NOT_EXIST) {
             return null;
         } else {
             return new Account(leafId, macAddr);
         }
     }
 
-    /**
-     * Creates a new account for the provided IP address using its MAC address.
-     *
-     * @param address The leaf identified by its IPv4 address
+    /*
+     * Retrieve the leaf id of the MAC address, creating an account for it if there is none.
      */
-    public void createAccount(String address) throws SmartgrowDatabaseException, IOException {
-        this.accounts.storeMacAddress(this.getMACAddress(address));
+    private int getOrCreateLeafId(String macAddr) throws SmartgrowDatabaseException {
+        synchronized (this.getRegistrationLock(macAddr)) {
+            return this.accounts.getOrCreateLeafId(macAddr);
+        }
+    }
+
+    /*
+     * Retrieve the lock that registrations of the MAC address take turns on.
+     */
+    private Object getRegistrationLock(String macAddr) {
+        return this.registrationLocks[(macAddr.hashCode() & Integer.MAX_VALUE) % this.registrationLocks.length];
     }
 
     /**
@@ -154,23 +223,9 @@ public class AccountManager implements LeafAccountHandler {
          *
          * Using ARP for acquiring reliable MAC address should be sufficient for the SmartGrow
          * application as all nodes are in constant communication, keeping the ARP table
-         * updated.
+         * updated. A null result means there is no way to discover the MAC address of the device.
          */
-        try (Scanner s = new Scanner(Runtime.getRuntime().exec(ARP_COMMAND).getInputStream())) {
-            String arpLine = null;
-
-            while (s.hasNext()) {
-                arpLine = s.nextLine();
-
-                // Return the MAC address of the matched ARP entry
-                if (arpLine.contains(address)) {
-                    return arpLine.split(" ")[3];
-                }
-            }
-        }
-
-        // No way to discover the MAC address of the device.
-        return null;
+        return this.macAddressResolver.resolve(address);
     }
 
     /*
@@ -0,0 +1,61 @@
+package cps.accounts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+/**
+ * ArpCommandSource reads the ARP table through the output of "arp -a",
+ * for machines that do not expose /proc/net/arp. Every read runs a
+ * process, so it should be read as rarely as possible.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ArpCommandSource implements ArpTableSource {
+
+    // The ARP command for deriving all MAC address entries for IPs
+    private static final String ARP_COMMAND = "arp -a";
+
+    // A MAC address as printed by the ARP command: six hexadecimal octets, which macOS and
+    // the BSDs print without leading zeros. Anything else, such as the "<incomplete>" of
+    // Linux or the "(incomplete)" of macOS, is an entry still being resolved.
+    private static final Pattern MAC_ADDRESS = Pattern.compile("[0-9a-fA-F]{1,2}(:[0-9a-fA-F]{1,2}){5}");
+
+    @Override
+    public Map<String, String> readArpTable() throws IOException {
+        return parse(Runtime.getRuntime().exec(ARP_COMMAND).getInputStream());
+    }
+
+    /**
+     * Parse the output of "arp -a" into the MAC addresses of the IPv4 addresses it lists,
+     * skipping the entries that have not been resolved.
+     *
+     * @param output The output of the ARP command
+     * @return The MAC address of every resolved IPv4 address
+     */
+    public static Map<String, String> parse(InputStream output) {
+        Map<String, String> entries = new HashMap<>();
+
+        // Every line reads: ? (192.168.1.5) at aa:bb:cc:dd:ee:ff [ether] on eth0
+        try (Scanner s = new Scanner(output)) {
+            while (s.hasNextLine()) {
+                String[] tokens = s.nextLine().trim().split("\\s+");
+                if (tokens.length < 4 || !tokens[1].startsWith("(") || !tokens[1].endsWith(")")) {
+                    continue;
+                }
+
+                if (!MAC_ADDRESS.matcher(tokens[3]).matches()) {
+                    continue;
+                }
+
+                entries.put(tokens[1].substring(1, tokens[1].length() - 1), tokens[3]);
+            }
+        }
+
+        return entries;
+    }
+}
@@ -0,0 +1,23 @@
+package cps.accounts;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * ArpTableSource provides an interface for implementing subclasses to
+ * read the ARP table of the machine, which maps the IPv4 addresses of
+ * the devices on the local network to their MAC addresses.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface ArpTableSource {
+
+    /**
+     * Read every resolved entry of the ARP table.
+     *
+     * @return The MAC addresses of the devices, keyed by their IPv4 address
+     * @throws IOException If the table could not be read
+     */
+    Map<String, String> readArpTable() throws IOException;
+}
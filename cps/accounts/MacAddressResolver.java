@@ -0,0 +1,136 @@
+package cps.accounts;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MacAddressResolver resolves the MAC addresses of devices on the local
+ * network from an in-memory copy of the ARP table, so that resolving an
+ * address costs a map lookup rather than reading the table every time.
+ *
+ * The copy is reloaded from its source once it is older than the refresh
+ * interval. An address missing from the copy reloads it early, since the
+ * device may have just appeared, but no more than once per minimum
+ * refresh interval. An address still missing afterwards is remembered as
+ * missing for a while, so a device that never resolves cannot keep the
+ * table reloading.
+ *
+ * A MacAddressResolver is safe to share between threads. Lookups never
+ * block, except behind a reload of the table.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MacAddressResolver {
+
+    // Where the ARP table is read from.
+    private ArpTableSource source;
+
+    // The refresh intervals and the time that missing addresses are remembered for (in nanoseconds).
+    private long refreshIntervalNanos;
+    private long minRefreshIntervalNanos;
+    private long negativeTtlNanos;
+
+    // The latest copy of the ARP table, and when it was last reloaded (or attempted to be).
+    private volatile Map<String, String> table = Collections.emptyMap();
+    private volatile long refreshedAt;
+    private volatile boolean refreshed;
+
+    // The addresses missing from the table, and when they were found missing.
+    private ConcurrentHashMap<String, Long> missing;
+
+    // Makes concurrent lookups wait on a single reload rather than each reloading the table.
+    private final Object refreshLock = new Object();
+
+    /**
+     * Initialize a resolver that reads the ARP table on its first lookup.
+     *
+     * @param source Where the ARP table is read from
+     * @param refreshIntervalMs The time (in milliseconds) that a copy of the table is trusted for
+     * @param minRefreshIntervalMs The minimum time (in milliseconds) between reloads of the table
+     * @param negativeTtlMs The time (in milliseconds) that an address missing from the table is remembered as missing
+     */
+    public MacAddressResolver(ArpTableSource source, long refreshIntervalMs, long minRefreshIntervalMs, long negativeTtlMs) {
+        this.source = source;
+        this.refreshIntervalNanos = refreshIntervalMs * 1000000;
+        this.minRefreshIntervalNanos = minRefreshIntervalMs * 1000000;
+        this.negativeTtlNanos = negativeTtlMs * 1000000;
+        this.missing = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolve the MAC address of the device with the IPv4 address.
+     *
+     * @param address The IPv4 address of the device
+     * @return The MAC address of the device, or null if the ARP table has no entry for it
+     * @throws IOException If the ARP table had to be reloaded but could not be read
+     */
+    public String resolve(String address) throws IOException {
+
+        // A copy past its refresh interval is reloaded before it is trusted.
+        this.refresh(this.refreshIntervalNanos);
+
+        String macAddress = this.table.get(address);
+        if (macAddress != null) {
+            return macAddress;
+        }
+
+        // An address found missing recently is not looked for again until it is forgotten.
+        Long missingSince = this.missing.get(address);
+        if (missingSince != null && System.nanoTime() - missingSince < this.negativeTtlNanos) {
+            return null;
+        }
+
+        // The device may have appeared since the table was copied.
+        this.refresh(this.minRefreshIntervalNanos);
+
+        macAddress = this.table.get(address);
+        if (macAddress == null) {
+            this.missing.put(address, System.nanoTime());
+        } else {
+            this.missing.remove(address);
+        }
+
+        return macAddress;
+    }
+
+    /*
+     * Reload the ARP table unless the copy is younger than the age (in nanoseconds).
+     */
+    private void refresh(long maxAgeNanos) throws IOException {
+        if (this.refreshed && System.nanoTime() - this.refreshedAt < maxAgeNanos) {
+            return;
+        }
+
+        synchronized (this.refreshLock) {
+
+            // Another lookup may have reloaded the table while we were waiting.
+            long now = System.nanoTime();
+            if (this.refreshed && now - this.refreshedAt < maxAgeNanos) {
+                return;
+            }
+
+            // A table that cannot be read is not attempted again until the copy would have aged.
+            this.refreshedAt = now;
+            this.refreshed = true;
+
+            this.table = this.source.readArpTable();
+            this.forgetExpiredMissing(now);
+        }
+    }
+
+    /*
+     * Stop remembering the addresses that have been missing for longer than the negative TTL.
+     */
+    private void forgetExpiredMissing(long now) {
+        Iterator<Long> missingSince = this.missing.values().iterator();
+        while (missingSince.hasNext()) {
+            if (now - missingSince.next() >= this.negativeTtlNanos) {
+                missingSince.remove();
+            }
+        }
+    }
+}
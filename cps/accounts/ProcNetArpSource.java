@@ -0,0 +1,91 @@
+package cps.accounts;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ProcNetArpSource reads the ARP table that the Linux kernel exposes at
+ * /proc/net/arp, which costs a file read rather than running a process.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ProcNetArpSource implements ArpTableSource {
+
+    // The location of the ARP table of the kernel.
+    public static final String PROC_NET_ARP = "/proc/net/arp";
+
+    // The flag of entries whose MAC address has been resolved (ATF_COM).
+    private static final int RESOLVED_FLAG = 0x02;
+
+    // The file holding the ARP table.
+    private File table;
+
+    /**
+     * Initialize a source reading the ARP table of the kernel.
+     */
+    public ProcNetArpSource() {
+        this(new File(PROC_NET_ARP));
+    }
+
+    /**
+     * Initialize a source reading an ARP table in the format of /proc/net/arp.
+     *
+     * @param table The file holding the ARP table
+     */
+    public ProcNetArpSource(File table) {
+        this.table = table;
+    }
+
+    /**
+     * Check whether the ARP table of the kernel can be read on this machine.
+     *
+     * @return True if /proc/net/arp is readable
+     */
+    public static boolean isAvailable() {
+        return new File(PROC_NET_ARP).canRead();
+    }
+
+    @Override
+    public Map<String, String> readArpTable() throws IOException {
+        Map<String, String> entries = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(this.table))) {
+
+            // The first line holds the column headers:
+            // IP address, HW type, Flags, HW address, Mask, Device
+            String line = reader.readLine();
+
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.trim().split("\\s+");
+                if (columns.length < 4) {
+                    continue;
+                }
+
+                // Incomplete entries are still being resolved and hold no MAC address yet.
+                if (!this.isResolved(columns[2])) {
+                    continue;
+                }
+
+                entries.put(columns[0], columns[3]);
+            }
+        }
+
+        return entries;
+    }
+
+    /*
+     * Check whether the hexadecimal flags of an entry mark it as resolved.
+     */
+    private boolean isResolved(String flags) {
+        try {
+            return (Integer.decode(flags) & RESOLVED_FLAG) != 0;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package cps.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ConnectionFactory establishes the connections that a ConnectionPool
+ * hands out.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface ConnectionFactory {
+
+    /**
+     * Establish a new connection to the database.
+     *
+     * @return The established connection
+     * @throws SQLException If the connection could not be established
+     */
+    Connection connect() throws SQLException;
+}
@@ -0,0 +1,200 @@
+package cps.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import logging.SmartLog;
+
+/**
+ * ConnectionPool hands out a bounded number of database connections to
+ * the threads that need them. Connections are established lazily and
+ * kept idle between uses, so the threads of the server share a few
+ * connections rather than serializing on a single one.
+ *
+ * Each connection keeps its own cache of prepared statements, which
+ * lives for as long as the connection does.
+ *
+ * The pool heals itself: a connection that has been idle for a while is
+ * validated before it is handed out, and connections that callers report
+ * as broken are discarded so that a fresh one is established in their
+ * place.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ConnectionPool {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(ConnectionPool.class.getName());
+
+    // The name of the pool, used for logging.
+    private String name;
+
+    // Establishes the connections of this pool.
+    private ConnectionFactory factory;
+
+    // One permit for every connection that may be handed out at the same time.
+    private Semaphore permits;
+
+    // The connections that are not handed out, most recently used first.
+    private ConcurrentLinkedDeque<IdleConnection> idle;
+
+    // How long to wait for a connection, and how long a connection may sit idle before it is validated.
+    private long acquireTimeoutMs;
+    private long validationIntervalMs;
+
+    // The maximum number of prepared statements cached on each connection.
+    private int statementCacheSize;
+
+    private volatile boolean closed;
+
+    /**
+     * Initialize an empty pool.
+     *
+     * @param name The name of the pool, used for logging
+     * @param size The maximum number of connections handed out at the same time
+     * @param acquireTimeoutMs The time (in milliseconds) to wait for a connection when all are in use
+     * @param validationIntervalMs The time (in milliseconds) a connection may be idle before it is validated
+     * @param statementCacheSize The maximum number of prepared statements cached on each connection
+     * @param factory Establishes the connections of this pool
+     */
+    public ConnectionPool(String name, int size, long acquireTimeoutMs, long validationIntervalMs,
+            int statementCacheSize, ConnectionFactory factory) {
+        this.name = name;
+        this.factory = factory;
+        this.permits = new Semaphore(size, true);
+        this.idle = new ConcurrentLinkedDeque<>();
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Retrieve a connection from the pool, establishing one if there is no idle
+     * connection. Every acquired connection must be given back through either
+     * release() or discard().
+     *
+     * @return A connection that is ready to use
+     * @throws SQLException If no connection could be handed out
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (this.closed) {
+            throw new SQLException("Connection pool " + this.name + " is closed");
+        }
+
+        try {
+            if (!this.permits.tryAcquire(this.acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting for a connection from pool " + this.name);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection from pool " + this.name);
+        }
+
+        try {
+
+            // Prefer the most recently used connection, which is the least likely to have gone stale.
+            IdleConnection candidate = null;
+            while ((candidate = this.idle.pollFirst()) != null) {
+                if (this.isUsable(candidate)) {
+                    return candidate.connection;
+                }
+
+                logger.warn("Discarding stale connection from pool " + this.name);
+                candidate.connection.close();
+            }
+
+            return new PooledConnection(this.factory.connect(), this.statementCacheSize);
+        } catch (SQLException | RuntimeException ex) {
+            this.permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Give a healthy connection back to the pool for reuse.
+     *
+     * @param connection The connection acquired from this pool
+     */
+    public void release(PooledConnection connection) {
+        if (this.closed) {
+            connection.close();
+        } else {
+            this.idle.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+        }
+
+        this.permits.release();
+    }
+
+    /**
+     * Close a broken connection instead of giving it back, so that a fresh one is
+     * established in its place.
+     *
+     * @param connection The connection acquired from this pool
+     */
+    public void discard(PooledConnection connection) {
+        connection.close();
+        this.permits.release();
+    }
+
+    /**
+     * Retrieve the number of connections waiting to be handed out.
+     *
+     * @return The number of idle connections
+     */
+    public int getIdleCount() {
+        return this.idle.size();
+    }
+
+    /**
+     * Close every idle connection and refuse to hand out any more. Connections
+     * that are handed out are closed as they are given back.
+     */
+    public void close() {
+        this.closed = true;
+
+        IdleConnection candidate = null;
+        while ((candidate = this.idle.pollFirst()) != null) {
+            candidate.connection.close();
+        }
+    }
+
+    /*
+     * Check whether the idle connection can still be handed out.
+     */
+    private boolean isUsable(IdleConnection candidate) {
+        try {
+            Connection connection = candidate.connection.getConnection();
+            if (connection.isClosed()) {
+                return false;
+            }
+
+            // Only ask the database when the connection has been idle long enough to have been dropped.
+            if (System.currentTimeMillis() - candidate.since < this.validationIntervalMs) {
+                return true;
+            }
+
+            return connection.isValid(DatabaseInfo.DATABASE_VALIDATION_TIMEOUT_S);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /*
+     * A connection waiting in the pool and the time since it has been waiting.
+     */
+    private static class IdleConnection {
+
+        private final PooledConnection connection;
+        private final long since;
+
+        private IdleConnection(PooledConnection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+}
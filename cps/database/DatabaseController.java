@@ -2,9 +2,9 @@ package cps.database;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Properties;
 
 import cps.database.DatabaseInfo;
@@ -15,7 +15,13 @@ import logging.SmartLog;
  * DatabaseController provides an abstracted interface to the SmartGrow
  * Postgres database, enabling callers to swiftly communicate with the
  * database without a necessity to know its intricacies, such as setup.
- * 
+ *
+ * The controller is safe to share between threads. Queries and updates
+ * run on separate pools of connections, so that a burst of writes never
+ * starves lookups. Statements are parameterized and prepared once per
+ * connection, so values never need quoting and the database does not
+ * parse and plan the same statement on every execution.
+ *
  * @author Ahmed Sakr
  * @since October 30, 2019
  */
@@ -24,8 +30,12 @@ public class DatabaseController {
     // Initialize the logger instance for this instance.
     private static SmartLog logger = new SmartLog(DatabaseController.class.getName());
 
-    // The database connection for this controller instance.
-    private Connection dbConnection;
+    // The SQL state class of errors signalling that the connection itself has failed.
+    private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+    // The connection pools for queries and for updates.
+    private ConnectionPool readers;
+    private ConnectionPool writers;
 
     /**
      * Initialize the database controller by establishing a connection to the
@@ -34,57 +44,171 @@ public class DatabaseController {
      * @throws SmartgrowDatabaseException
      */
     public DatabaseController() throws SmartgrowDatabaseException {
+        Properties credentials = this.getCredentials();
+
+        this.readers = new ConnectionPool("read", DatabaseInfo.DATABASE_READ_CONNECTIONS,
+            DatabaseInfo.DATABASE_ACQUIRE_TIMEOUT_MS, DatabaseInfo.DATABASE_VALIDATION_INTERVAL_MS,
+            DatabaseInfo.DATABASE_STATEMENT_CACHE_SIZE, () -> this.connect(credentials, true));
+        this.writers = new ConnectionPool("write", DatabaseInfo.DATABASE_WRITE_CONNECTIONS,
+            DatabaseInfo.DATABASE_ACQUIRE_TIMEOUT_MS, DatabaseInfo.DATABASE_VALIDATION_INTERVAL_MS,
+            DatabaseInfo.DATABASE_STATEMENT_CACHE_SIZE, () -> this.connect(credentials, false));
 
-        // Establish connection with the Postgres database.
-        this.connect();
+        // Establish a connection on each pool right away, so that a misconfigured database
+        // is reported on startup rather than on the first packet.
+        this.execute(this.readers, false, (connection) -> null);
+        this.execute(this.writers, false, (connection) -> null);
 
         logger.debug("Established database connection");
     }
 
     /**
-     * Query the database with the provided SQL prepared statement.
+     * Query the database with the provided parameterized SQL statement.
      *
-     * @param sql The prepared statement
-     * @return The result of the query
+     * @param sql The statement, with a '?' placeholder for every parameter
+     * @param binder Binds the parameters of the statement
+     * @param handler Converts the result of the query before the result is closed
+     * @return The result of the query, as converted by the handler
      */
-    public ResultSet query(String sql) throws SmartgrowDatabaseException {
-        try {
+    public <T> T query(String sql, StatementBinder binder, ResultHandler<T> handler)
+            throws SmartgrowDatabaseException {
+
+        // Queries have no side effects, so they can safely be retried on a fresh connection.
+        return this.execute(this.readers, true, (connection) -> {
+            PreparedStatement statement = connection.prepare(sql);
+            binder.bind(statement);
+
+            try (ResultSet results = statement.executeQuery()) {
+                return handler.handle(results);
+            }
+        });
+    }
 
-            // Execute the result-returning query.
-            Statement statement = this.dbConnection.createStatement();
-            return statement.executeQuery(sql);
+    /**
+     * Query the database with a parameterized INSERT, UPDATE, or DELETE (i.e.,
+     * statements that do not return a result).
+     *
+     * @param sql The statement, with a '?' placeholder for every parameter
+     * @param binder Binds the parameters of the statement
+     * @return The number of rows affected
+     */
+    public int update(String sql, StatementBinder binder) throws SmartgrowDatabaseException {
+        return this.execute(this.writers, false, (connection) -> {
+            PreparedStatement statement = connection.prepare(sql);
+            binder.bind(statement);
+            return statement.executeUpdate();
+        });
+    }
 
-        } catch (SQLException ex) {
-            throw new SmartgrowDatabaseException(ex.getMessage());
-        }
+    /**
+     * Query the database with a parameterized INSERT, UPDATE, or DELETE that returns
+     * a result through a RETURNING clause.
+     *
+     * @param sql The statement, with a '?' placeholder for every parameter
+     * @param binder Binds the parameters of the statement
+     * @param handler Converts the returned rows before the result is closed
+     * @return The returned rows, as converted by the handler
+     */
+    public <T> T update(String sql, StatementBinder binder, ResultHandler<T> handler)
+            throws SmartgrowDatabaseException {
+        return this.execute(this.writers, false, (connection) -> {
+            PreparedStatement statement = connection.prepare(sql);
+            binder.bind(statement);
+
+            try (ResultSet results = statement.executeQuery()) {
+                return handler.handle(results);
+            }
+        });
     }
 
     /**
-     * Query the database with an INSERT, UPDATE, or DELETE (i.e., statements
-     * that do not return a result).
+     * Execute a parameterized INSERT, UPDATE, or DELETE as a batch, sending every
+     * row added by the binder to the database in one go.
      *
-     * @param sql The prepared statement
+     * @param sql The statement, with a '?' placeholder for every parameter
+     * @param binder Binds the parameters of, and adds, every row of the batch
+     * @return The number of rows affected by each row of the batch
      */
-    public void update(String sql) throws SmartgrowDatabaseException {
-        try {
+    public int[] batch(String sql, StatementBinder binder) throws SmartgrowDatabaseException {
+        return this.execute(this.writers, false, (connection) -> {
+            PreparedStatement statement = connection.prepare(sql);
+            binder.bind(statement);
+            return statement.executeBatch();
+        });
+    }
 
-            // Execute the no-result update query.
-            Statement statement = this.dbConnection.createStatement();
-            statement.executeUpdate(sql);
+    /**
+     * Close every connection to the database.
+     */
+    public void close() {
+        this.readers.close();
+        this.writers.close();
+    }
 
-        } catch (SQLException ex) {
-            throw new SmartgrowDatabaseException(ex.getMessage());
+    /*
+     * Run the work on a connection of the pool, handing the connection back afterwards.
+     * Connections that failed are discarded, and the work is run once more on a fresh
+     * connection if it is safe to repeat.
+     */
+    private <T> T execute(ConnectionPool pool, boolean retry, Work<T> work) throws SmartgrowDatabaseException {
+        while (true) {
+            PooledConnection connection = null;
+
+            try {
+                connection = pool.acquire();
+            } catch (SQLException ex) {
+                throw new SmartgrowDatabaseException(ex.getMessage());
+            }
+
+            try {
+                T result = work.run(connection);
+                pool.release(connection);
+                return result;
+            } catch (SQLException ex) {
+                if (!this.isBroken(connection, ex)) {
+                    pool.release(connection);
+                    throw new SmartgrowDatabaseException(ex.getMessage());
+                }
+
+                logger.warn("Database connection failed, reconnecting: " + ex.getMessage());
+                pool.discard(connection);
+
+                if (!retry) {
+                    throw new SmartgrowDatabaseException(ex.getMessage());
+                }
+
+                retry = false;
+            } catch (RuntimeException ex) {
+                pool.discard(connection);
+                throw ex;
+            }
+        }
+    }
+
+    /*
+     * Check whether the error was caused by the connection failing rather than by the statement.
+     */
+    private boolean isBroken(PooledConnection connection, SQLException ex) {
+        String state = ex.getSQLState();
+        if (state != null && state.startsWith(CONNECTION_EXCEPTION_CLASS)) {
+            return true;
+        }
+
+        try {
+            return !connection.getConnection().isValid(DatabaseInfo.DATABASE_VALIDATION_TIMEOUT_S);
+        } catch (SQLException invalid) {
+            return true;
         }
     }
 
     /**
-     * Attempt to establish a connection with the Smartgrow Postgres database
+     * Retrieve the properties used to connect to the Smartgrow Postgres database
      * using the Database information found in DatabaseInfo.java
      *
+     * @return The connection properties, including the user credentials
      * @throws SmartgrowDatabaseException
      * @see {@link cps.database.DatabaseInfo}
      */
-    private void connect() throws SmartgrowDatabaseException {
+    private Properties getCredentials() throws SmartgrowDatabaseException {
 
         // Attempt to retrieve the dynamic database user password from the environment.
         String user_password = System.getenv(DatabaseInfo.DATABASE_PASSWORD);
@@ -100,13 +224,27 @@ public class DatabaseController {
         dbCredentials.setProperty("password", user_password);
         dbCredentials.setProperty("ssl", "false");
 
-        try {
-            this.dbConnection = DriverManager.getConnection(DatabaseInfo.DATABASE_URL, dbCredentials);
-        } catch (SQLException ex) {
+        // Let the driver send a batch of inserts as a few multi-row inserts rather than one per row.
+        dbCredentials.setProperty("reWriteBatchedInserts", "true");
 
-            // Issue with establishing the connection: perhaps the database settings are not permissive
-            // to allow us to establish a connection? check pg_hba.conf.
-            throw new SmartgrowDatabaseException(ex.getMessage());
-        }
+        return dbCredentials;
+    }
+
+    /*
+     * Establish a connection with the Smartgrow Postgres database. Issues with establishing
+     * the connection usually mean that the database settings are not permissive enough to
+     * allow us to connect: check pg_hba.conf.
+     */
+    private Connection connect(Properties credentials, boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(DatabaseInfo.DATABASE_URL, credentials);
+        connection.setReadOnly(readOnly);
+        return connection;
+    }
+
+    /*
+     * Database work that runs on a connection handed out by a pool.
+     */
+    private interface Work<T> {
+        T run(PooledConnection connection) throws SQLException;
     }
-}
\ No newline at end of file
+}
@@ -26,4 +26,44 @@ public class DatabaseInfo {
 
     // The table name for the leaf accounts
     public static final String DATABASE_LEAF_ACCOUNTS_TABLE = "leaf_accounts";
-}
\ No newline at end of file
+
+    // The number of connections that queries and updates may use at the same time.
+    public static final int DATABASE_READ_CONNECTIONS = 4;
+    public static final int DATABASE_WRITE_CONNECTIONS = 2;
+
+    // The time (in milliseconds) to wait for a connection when all of them are in use.
+    public static final long DATABASE_ACQUIRE_TIMEOUT_MS = 5000;
+
+    // The time (in milliseconds) a connection may be idle before it is validated, and how long
+    // (in seconds) validating it may take.
+    public static final long DATABASE_VALIDATION_INTERVAL_MS = 30000;
+    public static final int DATABASE_VALIDATION_TIMEOUT_S = 2;
+
+    // The number of prepared statements kept open on each connection.
+    public static final int DATABASE_STATEMENT_CACHE_SIZE = 32;
+
+    // The number of sensors readings that may wait to be written before new ones are refused.
+    public static final int SENSORS_QUEUE_CAPACITY = 16384;
+
+    // The number of sensors readings written to the database in a single batch.
+    public static final int SENSORS_BATCH_SIZE = 512;
+
+    // The time (in milliseconds) a sensors reading may wait for its batch to fill up.
+    public static final long SENSORS_FLUSH_INTERVAL_MS = 250;
+
+    // The number of times a batch of sensors readings is written before it is dropped.
+    public static final int SENSORS_FLUSH_RETRIES = 5;
+
+    // Where sensors readings and leaf accounts are stored: "postgres", "memory" (for load tests and
+    // benchmarks), or "file". The server may be started with another one as its first argument.
+    public static final String STORAGE = "postgres";
+
+    // The directory that the file storage keeps sensors readings and leaf accounts in.
+    public static final String STORAGE_DIRECTORY = "smartgrow-data";
+
+    // The number of sensors readings of every plant that the memory storage keeps.
+    public static final int MEMORY_READINGS_PER_PLANT = 100000;
+
+    // The length (in milliseconds) of the partition of time covered by each time-series segment.
+    public static final long TIMESERIES_PARTITION_MS = 24 * 60 * 60 * 1000;
+}
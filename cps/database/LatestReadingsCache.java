@@ -0,0 +1,58 @@
+package cps.database;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LatestReadingsCache keeps the most recent SensorsReading of every plant
+ * in memory. Readings are written through the cache as they are received,
+ * so requests for the latest values of a plant are answered without
+ * querying the database, which only has to be consulted for plants that
+ * have not reported since the server started.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LatestReadingsCache {
+
+    // The latest reading of every plant, keyed by the plant id.
+    private ConcurrentHashMap<Integer, SensorsReading> readings;
+
+    /**
+     * Initialize an empty cache.
+     */
+    public LatestReadingsCache() {
+        this.readings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Record the reading unless a reading taken later is already cached for the plant.
+     *
+     * A reading loaded from the database may race with one that was just received,
+     * so the older of the two never replaces the newer.
+     *
+     * @param reading The reading of the plant
+     */
+    public void update(SensorsReading reading) {
+        this.readings.merge(reading.getPlantId(), reading,
+            (cached, candidate) -> candidate.getTimeTaken() >= cached.getTimeTaken() ? candidate : cached);
+    }
+
+    /**
+     * Retrieve the latest reading of the plant.
+     *
+     * @param plantId The id of the plant
+     * @return The latest reading, or null if none is cached for the plant.
+     */
+    public SensorsReading get(int plantId) {
+        return this.readings.get(plantId);
+    }
+
+    /**
+     * Retrieve the number of plants with a cached reading.
+     *
+     * @return The number of cached plants
+     */
+    public int size() {
+        return this.readings.size();
+    }
+}
@@ -0,0 +1,128 @@
+package cps.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import logging.SmartLog;
+
+/**
+ * PooledConnection is a database connection handed out by a ConnectionPool,
+ * along with the prepared statements that have been created on it.
+ *
+ * Prepared statements are kept open and reused for as long as the
+ * connection lives, so that the database parses and plans every statement
+ * once per connection rather than once per execution. The least recently
+ * used statement is closed once the cache is full.
+ *
+ * A PooledConnection is only ever used by the thread it was handed out to.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class PooledConnection {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(PooledConnection.class.getName());
+
+    // The connection to the database.
+    private Connection connection;
+
+    // The prepared statements of this connection keyed by their SQL, least recently used first.
+    private LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * Wrap the established connection.
+     *
+     * @param connection The connection to the database
+     * @param cacheSize The maximum number of prepared statements kept open on the connection
+     */
+    PooledConnection(Connection connection, int cacheSize) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (this.size() <= cacheSize) {
+                    return false;
+                }
+
+                PooledConnection.close(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retrieve the underlying connection to the database.
+     *
+     * @return The connection to the database
+     */
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Retrieve the prepared statement for the SQL, preparing it if this connection
+     * has not prepared it yet. The statement is owned by the connection and must
+     * not be closed by the caller.
+     *
+     * @param sql The statement, with a '?' placeholder for every parameter
+     * @return The prepared statement, with no parameters bound
+     * @throws SQLException If the statement could not be prepared
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = this.statements.get(sql);
+
+        if (statement == null || statement.isClosed()) {
+            statement = this.connection.prepareStatement(sql);
+            this.statements.put(sql, statement);
+        } else {
+
+            // Forget whatever the last user of the statement left behind.
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+
+        return statement;
+    }
+
+    /**
+     * Retrieve the number of prepared statements kept open on this connection.
+     *
+     * @return The number of cached statements
+     */
+    public int getCachedStatements() {
+        return this.statements.size();
+    }
+
+    /**
+     * Close the prepared statements and the connection.
+     */
+    public void close() {
+        Iterator<PreparedStatement> cached = this.statements.values().iterator();
+        while (cached.hasNext()) {
+            PooledConnection.close(cached.next());
+            cached.remove();
+        }
+
+        try {
+            this.connection.close();
+        } catch (SQLException ex) {
+            logger.warn("Failed to close connection: " + ex.getMessage());
+        }
+    }
+
+    /*
+     * Close the statement, ignoring statements that are already broken.
+     */
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ex) {
+            logger.warn("Failed to close prepared statement: " + ex.getMessage());
+        }
+    }
+}
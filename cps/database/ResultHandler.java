@@ -0,0 +1,24 @@
+package cps.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ResultHandler converts the result of a query into whatever the caller
+ * needs while the statement that produced it is still open. The result
+ * set is closed once the handler returns, so it must not escape it.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface ResultHandler<T> {
+
+    /**
+     * Convert the result of the query.
+     *
+     * @param results The result of the query
+     * @return The converted result
+     * @throws SQLException If the result could not be read
+     */
+    T handle(ResultSet results) throws SQLException;
+}
@@ -0,0 +1,129 @@
+package cps.database;
+
+import endpoint.sensors.SupportedSensors;
+import network.core.packets.sensors.SensorsData;
+
+/**
+ * SensorsReading is an immutable snapshot of the sensors data reported
+ * by a plant at a given moment. Readings are captured as soon as the
+ * SensorsData packet is received, so that the time they were taken does
+ * not depend on when they are eventually written to the database.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public final class SensorsReading {
+
+    // The plant that reported the reading and when it was taken.
+    private final int plantId;
+    private final long timeTaken;
+
+    // The values of the supported sensors.
+    private final double lightIntensity;
+    private final double airHumidity;
+    private final double airTemperature;
+    private final double soilMoisture;
+
+    /**
+     * Capture the sensors data of the plant.
+     *
+     * @param plantId The id of the plant for which the data belongs to
+     * @param timeTaken Epoch time (in milliseconds) when the data was received
+     * @param data The SensorsData packet retrieved from a plant endpoint
+     */
+    public SensorsReading(int plantId, long timeTaken, SensorsData data) {
+        this(plantId, timeTaken,
+            data.getSensorData(SupportedSensors.LIGHT_INTENSITY),
+            data.getSensorData(SupportedSensors.AIR_HUMIDITY),
+            data.getSensorData(SupportedSensors.AIR_TEMPERATURE),
+            data.getSensorData(SupportedSensors.SOIL_MOISTURE));
+    }
+
+    /**
+     * Capture the sensors values of the plant.
+     *
+     * @param plantId The id of the plant for which the data belongs to
+     * @param timeTaken Epoch time (in milliseconds) when the data was received
+     * @param lightIntensity The light intensity value
+     * @param airHumidity The air humidity value
+     * @param airTemperature The air temperature value
+     * @param soilMoisture The soil moisture value
+     */
+    public SensorsReading(int plantId, long timeTaken, double lightIntensity, double airHumidity,
+            double airTemperature, double soilMoisture) {
+        this.plantId = plantId;
+        this.timeTaken = timeTaken;
+        this.lightIntensity = lightIntensity;
+        this.airHumidity = airHumidity;
+        this.airTemperature = airTemperature;
+        this.soilMoisture = soilMoisture;
+    }
+
+    /**
+     * Retrieve the id of the plant that reported the reading.
+     *
+     * @return The id of the plant
+     */
+    public int getPlantId() {
+        return this.plantId;
+    }
+
+    /**
+     * Retrieve the time when the reading was taken.
+     *
+     * @return Epoch time (in milliseconds) when the reading was taken
+     */
+    public long getTimeTaken() {
+        return this.timeTaken;
+    }
+
+    /**
+     * Retrieve the light intensity of the reading.
+     *
+     * @return The light intensity value
+     */
+    public double getLightIntensity() {
+        return this.lightIntensity;
+    }
+
+    /**
+     * Retrieve the air humidity of the reading.
+     *
+     * @return The air humidity value
+     */
+    public double getAirHumidity() {
+        return this.airHumidity;
+    }
+
+    /**
+     * Retrieve the air temperature of the reading.
+     *
+     * @return The air temperature value
+     */
+    public double getAirTemperature() {
+        return this.airTemperature;
+    }
+
+    /**
+     * Retrieve the soil moisture of the reading.
+     *
+     * @return The soil moisture value
+     */
+    public double getSoilMoisture() {
+        return this.soilMoisture;
+    }
+
+    /**
+     * Create a SensorsData packet carrying the values of this reading.
+     *
+     * @return A new SensorsData packet
+     */
+    public SensorsData toSensorsData() {
+        SensorsData data = new SensorsData();
+        data.addSensorData(SupportedSensors.LIGHT_INTENSITY, this.lightIntensity);
+        data.addSensorData(SupportedSensors.AIR_HUMIDITY, this.airHumidity);
+        data.addSensorData(SupportedSensors.AIR_TEMPERATURE, this.airTemperature);
+        data.addSensorData(SupportedSensors.SOIL_MOISTURE, this.soilMoisture);
+        return data;
+    }
+}
@@ -0,0 +1,22 @@
+package cps.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * StatementBinder binds the parameters of a prepared statement right
+ * before it is executed, adding every row of a batch if it is batched.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface StatementBinder {
+
+    /**
+     * Bind the parameters of the statement.
+     *
+     * @param statement The statement to bind the parameters of
+     * @throws SQLException If a parameter could not be bound
+     */
+    void bind(PreparedStatement statement) throws SQLException;
+}
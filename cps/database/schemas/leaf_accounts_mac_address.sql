@@ -0,0 +1,17 @@
+-- Migrates a database created before leaf_accounts.mac_address was unique.
+-- Leaves registered concurrently may have left several accounts for one MAC
+-- address; keep the oldest of them before the unique index can be created.
+\c smartgrow;
+
+BEGIN;
+
+LOCK TABLE leaf_accounts IN SHARE ROW EXCLUSIVE MODE;
+
+DELETE FROM leaf_accounts duplicate
+    USING leaf_accounts original
+    WHERE duplicate.mac_address = original.mac_address
+    AND duplicate.leaf_id > original.leaf_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS leaf_accounts_mac_address ON leaf_accounts(mac_address);
+
+COMMIT;
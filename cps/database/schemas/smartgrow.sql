@@ -23,4 +23,6 @@ CREATE TABLE plant_data(
 CREATE TABLE leaf_accounts(
     leaf_id SERIAL PRIMARY KEY,
     mac_address TEXT
-);
\ No newline at end of file
+);
+
+CREATE UNIQUE INDEX leaf_accounts_mac_address ON leaf_accounts(mac_address);
@@ -1,11 +1,11 @@
 package cps.database.tables;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cps.database.DatabaseController;
 import cps.database.DatabaseInfo;
 import cps.database.exceptions.SmartgrowDatabaseException;
+import cps.storage.AccountsStorage;
 
 
 /**
@@ -14,17 +14,36 @@ import cps.database.exceptions.SmartgrowDatabaseException;
  * the MAC addresses for all leaves that we have interacted with
  * in the past to provide an automatic personal experience.
  * 
+ * Accounts are never removed, so the leaf id of every MAC address that
+ * has been looked up or stored is cached for good: a returning leaf is
+ * known without a query, and a new leaf is stored and assigned its id
+ * in a single statement.
+ * 
  * @author Ahmed Sakr
  * @since November 26, 2019
  */
-public class LeafAccounts {
+public class LeafAccounts implements AccountsStorage {
+
+    // The parameterized statements for looking up and storing an account.
+    private static final String SELECT_LEAF_ID = String.format(
+        "SELECT leaf_id FROM %s WHERE mac_address = ?", DatabaseInfo.DATABASE_LEAF_ACCOUNTS_TABLE);
+    private static final String INSERT_MAC_ADDRESS = String.format(
+        "INSERT INTO %s (mac_address) VALUES (?) ON CONFLICT (mac_address) DO NOTHING",
+        DatabaseInfo.DATABASE_LEAF_ACCOUNTS_TABLE);
 
-    // Constant for signalling that the account does not exist.
-    public static final int ACCOUNT_DOES_NOT_EXIST = -1;
+    // Stores the MAC address unless it exists, returning its leaf id either way. The no-op
+    // update makes the conflicting row part of the RETURNING clause, unlike DO NOTHING.
+    private static final String UPSERT_MAC_ADDRESS = String.format(
+        "INSERT INTO %s (mac_address) VALUES (?) ON CONFLICT (mac_address) "
+            + "DO UPDATE SET mac_address = EXCLUDED.mac_address RETURNING leaf_id",
+        DatabaseInfo.DATABASE_LEAF_ACCOUNTS_TABLE);
 
     // Object representation for manipulating the database.
     private DatabaseController database;
 
+    // The leaf ids of the MAC addresses known to have an account.
+    private ConcurrentHashMap<String, Integer> leafIds;
+
     /**
      * Initialize the LeafAccounts database table wrapper.
      *
@@ -32,6 +51,7 @@ public class LeafAccounts {
      */
     public LeafAccounts(DatabaseController database) {
         this.database = database;
+        this.leafIds = new ConcurrentHashMap<>();
     }
 
     /**
@@ -41,6 +61,7 @@ public class LeafAccounts {
      * @param macAddress The MAC address of the leaf
      * @return A unique id for the leaf
      */
+    @Override
     public int getLeafId(String macAddress) throws SmartgrowDatabaseException {
 
         // Don't bother trying anything if the provided macAddress is null.
@@ -48,20 +69,57 @@ public class LeafAccounts {
             return ACCOUNT_DOES_NOT_EXIST;
         }
 
-        // Fetch the corresponding leaf_id for the macAddress
-        String sql = String.format("SELECT leaf_id FROM %s WHERE mac_address = '%s'",
-            DatabaseInfo.DATABASE_LEAF_ACCOUNTS_TABLE, macAddress);
-        ResultSet result = this.database.query(sql);
+        Integer cached = this.leafIds.get(macAddress);
+        if (cached != null) {
+            return cached;
+        }
 
-        try {
+        // Fetch the corresponding leaf_id for the macAddress
+        int leafId = this.database.query(SELECT_LEAF_ID, (statement) -> statement.setString(1, macAddress), (result) -> {
             if (!result.next()) {
                 return ACCOUNT_DOES_NOT_EXIST;
             } else {
                 return result.getInt("leaf_id");
             }
-        } catch (SQLException ex) {
-            throw new SmartgrowDatabaseException("SQL exception encountered during getLeafId");
+        });
+
+        // Only existing accounts are cached, as a missing one may be created at any time.
+        if (leafId != ACCOUNT_DOES_NOT_EXIST) {
+            this.leafIds.put(macAddress, leafId);
         }
+
+        return leafId;
+    }
+
+    /**
+     * Retrieve the leaf id of the provided MAC address, creating an entry in the
+     * leaf_accounts table for it if there is none. Costs a single statement at
+     * most, and none for a MAC address that has been seen before.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if the MAC address is null
+     */
+    @Override
+    public int getOrCreateLeafId(String macAddress) throws SmartgrowDatabaseException {
+
+        // Don't bother trying anything if the provided macAddress is null.
+        if (macAddress == null) {
+            return ACCOUNT_DOES_NOT_EXIST;
+        }
+
+        Integer cached = this.leafIds.get(macAddress);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Store the macAddress, or find its existing leaf_id, in one round trip.
+        int leafId = this.database.update(UPSERT_MAC_ADDRESS, (statement) -> statement.setString(1, macAddress), (result) -> {
+            result.next();
+            return result.getInt("leaf_id");
+        });
+
+        this.leafIds.put(macAddress, leafId);
+        return leafId;
     }
 
     /**
@@ -78,8 +136,14 @@ public class LeafAccounts {
         }
 
         // Update the SQL table with the macAddress
-        String sql = String.format("INSERT INTO %s (mac_address) VALUES ('%s')",
-            DatabaseInfo.DATABASE_LEAF_ACCOUNTS_TABLE, macAddress);
-        this.database.update(sql);
+        this.database.update(INSERT_MAC_ADDRESS, (statement) -> statement.setString(1, macAddress));
+    }
+
+    /**
+     * The leaf_accounts table holds nothing open of its own: the database connections
+     * are shared, and closed by their owner.
+     */
+    @Override
+    public void close() {
     }
-}
\ No newline at end of file
+}
@@ -3,13 +3,14 @@ package cps.database.tables;
 import cps.database.DatabaseInfo;
 import cps.database.exceptions.SmartgrowDatabaseException;
 import cps.database.DatabaseController;
-import endpoint.sensors.SupportedSensors;
+import cps.database.SensorsReading;
+import cps.storage.SensorsStorage;
 import network.core.packets.sensors.SensorsData;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * PlantData is a DatabaseController wrapper for the plant_data
@@ -19,7 +20,22 @@ import java.time.format.DateTimeFormatter;
  * @author Ahmed Sakr
  * @since November 6, 2019
  */
-public class PlantData {
+public class PlantData implements SensorsStorage {
+
+    // The parameterized statement for inserting a single reading.
+    private static final String INSERT_SENSORS_DATA = String.format(
+        "INSERT INTO %s (plant_id, time_taken, light_intensity, air_humidity, air_temperature, soil_moisture) " +
+        "VALUES (?, ?, ?, ?, ?, ?)", DatabaseInfo.DATABASE_SENSORS_TABLE);
+
+    // The parameterized statement for retrieving the latest reading of a plant.
+    private static final String SELECT_LATEST_SENSORS_DATA = String.format(
+        "SELECT * FROM %s WHERE plant_id = ? ORDER BY time_taken DESC LIMIT 1",
+        DatabaseInfo.DATABASE_SENSORS_TABLE);
+
+    // The parameterized statement for retrieving the readings of a plant within a time range.
+    private static final String SELECT_SENSORS_DATA_RANGE = String.format(
+        "SELECT * FROM %s WHERE plant_id = ? AND time_taken >= ? AND time_taken < ? ORDER BY time_taken",
+        DatabaseInfo.DATABASE_SENSORS_TABLE);
 
     // Object representation for manipulating the database.
     private DatabaseController database;
@@ -41,18 +57,30 @@ public class PlantData {
      * @throws SmartgrowDatabaseException
      */
     public void insertSensorsData(int plantId, SensorsData data) throws SmartgrowDatabaseException {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String sql = String.format(
-            "INSERT INTO %s (plant_id, time_taken, light_intensity, air_humidity, air_temperature, soil_moisture) " +
-            "VALUES (%d, '%s', %f, %f, %f, %f);",
-             DatabaseInfo.DATABASE_SENSORS_TABLE, plantId, formatter.format(LocalDateTime.now()),
-             data.getSensorData(SupportedSensors.LIGHT_INTENSITY),
-             data.getSensorData(SupportedSensors.AIR_HUMIDITY),
-             data.getSensorData(SupportedSensors.AIR_TEMPERATURE),
-             data.getSensorData(SupportedSensors.SOIL_MOISTURE));
-
-        // Update the database with the prepared SQL statement.
-        this.database.update(sql);
+        this.insertSensorsData(Collections.singletonList(new SensorsReading(plantId, System.currentTimeMillis(), data)));
+    }
+
+    /**
+     * Insert the sensors readings into the plant_data table as a single batch.
+     *
+     * @param readings The readings to insert
+     * @throws SmartgrowDatabaseException
+     */
+    @Override
+    public void insertSensorsData(List<SensorsReading> readings) throws SmartgrowDatabaseException {
+
+        // Send the whole batch to the database in one go, binding every reading as one row.
+        this.database.batch(INSERT_SENSORS_DATA, (statement) -> {
+            for (SensorsReading reading : readings) {
+                statement.setInt(1, reading.getPlantId());
+                statement.setTimestamp(2, new Timestamp(reading.getTimeTaken()));
+                statement.setDouble(3, reading.getLightIntensity());
+                statement.setDouble(4, reading.getAirHumidity());
+                statement.setDouble(5, reading.getAirTemperature());
+                statement.setDouble(6, reading.getSoilMoisture());
+                statement.addBatch();
+            }
+        });
     }
 
     /**
@@ -62,30 +90,75 @@ public class PlantData {
      * @throws SmartgrowDatabaseException
      */
     public SensorsData getSensorsData(int plantId) throws SmartgrowDatabaseException {
-        String sql = String.format(
-            "SELECT * from %s WHERE plant_id = %d ORDER BY time_taken DESC LIMIT 1",
-            DatabaseInfo.DATABASE_SENSORS_TABLE, plantId);
+        SensorsReading reading = this.getLatestReading(plantId);
+
+        // The plant data table returned nothing.
+        if (reading == null) {
+            return new SensorsData();
+        }
 
-        // Update the database with the prepared SQL statement.
-        ResultSet results = this.database.query(sql);
-        SensorsData data = new SensorsData();
+        return reading.toSensorsData();
+    }
 
-        try {
-            
-            // The plant data table returned nothing.
+    /**
+     * Retrieve the latest reading stored for the plant.
+     *
+     * @param plantId The id of the plant
+     * @return The latest reading, or null if the plant has no stored readings.
+     * @throws SmartgrowDatabaseException
+     */
+    @Override
+    public SensorsReading getLatestReading(int plantId) throws SmartgrowDatabaseException {
+
+        // Query the database with the prepared SQL statement.
+        return this.database.query(SELECT_LATEST_SENSORS_DATA, (statement) -> statement.setInt(1, plantId), (results) -> {
             if (!results.next()) {
-                return data;
+                return null;
             }
 
-            // Append the returned sensor data to the packet.
-            data.addSensorData(SupportedSensors.AIR_HUMIDITY, results.getDouble("air_humidity"));
-            data.addSensorData(SupportedSensors.AIR_TEMPERATURE, results.getDouble("air_temperature"));
-            data.addSensorData(SupportedSensors.SOIL_MOISTURE, results.getDouble("soil_moisture"));
-            data.addSensorData(SupportedSensors.LIGHT_INTENSITY, results.getDouble("light_intensity"));
-        } catch (SQLException ex) {
-            throw new SmartgrowDatabaseException("Error parsing SQL ResultSet: " + ex.getMessage());
-        }
+            Timestamp timeTaken = results.getTimestamp("time_taken");
+            return new SensorsReading(plantId, timeTaken == null ? 0 : timeTaken.getTime(),
+                results.getDouble("light_intensity"),
+                results.getDouble("air_humidity"),
+                results.getDouble("air_temperature"),
+                results.getDouble("soil_moisture"));
+        });
+    }
 
-        return data;
+    /**
+     * Retrieve the readings stored for the plant within a time range.
+     *
+     * @param plantId The id of the plant
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @return The readings, ordered by the time they were taken
+     * @throws SmartgrowDatabaseException
+     */
+    @Override
+    public List<SensorsReading> getReadings(int plantId, long from, long to) throws SmartgrowDatabaseException {
+        return this.database.query(SELECT_SENSORS_DATA_RANGE, (statement) -> {
+            statement.setInt(1, plantId);
+            statement.setTimestamp(2, new Timestamp(from));
+            statement.setTimestamp(3, new Timestamp(to));
+        }, (results) -> {
+            List<SensorsReading> readings = new ArrayList<>();
+            while (results.next()) {
+                readings.add(new SensorsReading(plantId, results.getTimestamp("time_taken").getTime(),
+                    results.getDouble("light_intensity"),
+                    results.getDouble("air_humidity"),
+                    results.getDouble("air_temperature"),
+                    results.getDouble("soil_moisture")));
+            }
+
+            return readings;
+        });
+    }
+
+    /**
+     * The plant_data table holds nothing open of its own: the database connections
+     * are shared, and closed by their owner.
+     */
+    @Override
+    public void close() {
     }
-}
\ No newline at end of file
+}
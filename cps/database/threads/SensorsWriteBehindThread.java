@@ -0,0 +1,198 @@
+package cps.database.threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import cps.database.DatabaseInfo;
+import cps.database.SensorsReading;
+import cps.database.exceptions.SmartgrowDatabaseException;
+import cps.storage.SensorsStorage;
+import logging.SmartLog;
+
+/**
+ * SensorsWriteBehindThread decouples the receipt of sensors data from its
+ * storage. Readings are queued in a bounded queue and written to the
+ * storage in batches, either once a full batch has accumulated or once
+ * the flush interval has passed since the first reading of the batch was
+ * queued, whichever comes first.
+ *
+ * The thread is never interrupted to stop it, since an interrupt landing in
+ * the middle of a write would fail it (and close the file channels of the
+ * time-series store). It notices a stop request within a flush interval
+ * instead, and writes out everything still queued before it exits.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class SensorsWriteBehindThread extends Thread {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(SensorsWriteBehindThread.class.getName());
+
+    // The storage that batches are written through.
+    private SensorsStorage plantsData;
+
+    // The readings waiting to be written to the storage.
+    private ArrayBlockingQueue<SensorsReading> pending;
+
+    // The batch currently being accumulated (or retried) by this thread.
+    private List<SensorsReading> batch;
+
+    // Set once the thread should write out what is queued and exit.
+    private volatile boolean stopping;
+
+    /**
+     * Initialize the write-behind thread and immediately start it.
+     *
+     * @param plantsData The storage that batches are written through
+     */
+    public SensorsWriteBehindThread(SensorsStorage plantsData) {
+        super("SensorsWriteBehindThread");
+        this.plantsData = plantsData;
+        this.pending = new ArrayBlockingQueue<>(DatabaseInfo.SENSORS_QUEUE_CAPACITY);
+        this.batch = new ArrayList<>(DatabaseInfo.SENSORS_BATCH_SIZE);
+
+        // Immediately start the write-behind thread.
+        this.start();
+    }
+
+    /**
+     * Queue the reading to be written to the storage. Never blocks.
+     *
+     * @param reading The reading to write
+     * @return True if the reading was queued, false if the queue is full
+     */
+    public boolean enqueue(SensorsReading reading) {
+        return this.pending.offer(reading);
+    }
+
+    /**
+     * Stop accepting flush triggers, write whatever is still queued, and wait for
+     * the thread to finish.
+     *
+     * @throws InterruptedException If interrupted while waiting for the final flush
+     */
+    public void shutdown() throws InterruptedException {
+        this.stopping = true;
+        this.join();
+    }
+
+    /**
+     * The entry point of the write-behind thread.
+     */
+    @Override
+    public void run() {
+        int attempts = 0;
+
+        while (!this.stopping) {
+            try {
+                this.fill();
+            } catch (InterruptedException ex) {
+
+                // Only a stop request ends the thread, and it is checked on every iteration.
+                continue;
+            }
+
+            if (this.batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                this.plantsData.insertSensorsData(this.batch);
+                this.batch.clear();
+                attempts = 0;
+            } catch (SmartgrowDatabaseException ex) {
+                attempts++;
+
+                // Keep the batch for the next flush, but never let a batch the database keeps
+                // rejecting hold up the readings queued behind it forever.
+                if (attempts < DatabaseInfo.SENSORS_FLUSH_RETRIES) {
+                    logger.error("Failed to write " + this.batch.size() + " readings, retrying: " + ex.getMessage());
+
+                    // The final flush retries the batch on its own when we are stopping.
+                    if (!this.stopping) {
+                        this.backOff();
+                    }
+                } else {
+                    logger.fatal("Dropped " + this.batch.size() + " readings after " + attempts + " attempts: " + ex.getMessage());
+                    this.batch.clear();
+                    attempts = 0;
+                }
+            }
+        }
+
+        // A stray interrupt would fail every attempt of the final flush before it starts.
+        Thread.interrupted();
+
+        // Write out the readings that were acknowledged before we were asked to stop, giving
+        // a struggling database as many attempts as any other batch.
+        this.pending.drainTo(this.batch);
+        for (attempts = 1; !this.batch.isEmpty(); attempts++) {
+            try {
+                this.plantsData.insertSensorsData(this.batch);
+                this.batch.clear();
+            } catch (SmartgrowDatabaseException ex) {
+                if (attempts < DatabaseInfo.SENSORS_FLUSH_RETRIES) {
+                    logger.error("Failed to write " + this.batch.size() + " readings on shutdown, retrying: " + ex.getMessage());
+                    this.backOff();
+                } else {
+                    logger.fatal("Dropped " + this.batch.size() + " readings on shutdown: " + ex.getMessage());
+                    this.batch.clear();
+                }
+            }
+        }
+    }
+
+    /*
+     * Wait until the batch is full or the flush interval has passed since the
+     * batch received its first reading. An empty batch waits a flush interval at
+     * most for its first reading, so that a stop request is noticed.
+     */
+    private void fill() throws InterruptedException {
+        if (this.batch.isEmpty()) {
+            SensorsReading first = this.pending.poll(DatabaseInfo.SENSORS_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return;
+            }
+
+            this.batch.add(first);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DatabaseInfo.SENSORS_FLUSH_INTERVAL_MS);
+        while (this.batch.size() < DatabaseInfo.SENSORS_BATCH_SIZE) {
+
+            // Grab everything that is already queued before waiting for more.
+            this.pending.drainTo(this.batch, DatabaseInfo.SENSORS_BATCH_SIZE - this.batch.size());
+            if (this.batch.size() >= DatabaseInfo.SENSORS_BATCH_SIZE) {
+                return;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+
+            SensorsReading reading = this.pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (reading == null) {
+                return;
+            }
+
+            this.batch.add(reading);
+        }
+    }
+
+    /*
+     * Give the database a flush interval to recover before retrying.
+     */
+    private void backOff() {
+        try {
+            Thread.sleep(DatabaseInfo.SENSORS_FLUSH_INTERVAL_MS);
+        } catch (InterruptedException ex) {
+
+            // Cut short, which only makes the next attempt come sooner.
+            return;
+        }
+    }
+}
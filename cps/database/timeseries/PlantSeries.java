@@ -0,0 +1,212 @@
+package cps.database.timeseries;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cps.database.SensorsReading;
+
+/**
+ * PlantSeries holds the readings of a single plant, split into one
+ * segment per partition of time. Each plant has a directory of its own,
+ * holding a segment file named after the start of its partition.
+ *
+ * Appending and reading are serialized per plant, so plants never wait
+ * on one another. Once the series has been closed, every call fails.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+final class PlantSeries {
+
+    // The extension of segment files.
+    static final String SEGMENT_EXTENSION = ".seg";
+
+    // The plant whose readings this is, and the directory holding its segments.
+    private int plantId;
+    private File directory;
+
+    // The length (in milliseconds) of the partition of time covered by each segment.
+    private long partitionMs;
+
+    // The segments of the plant, keyed by the start of their partition.
+    private TreeMap<Long, Segment> segments;
+
+    // The buffer that the columns of appended readings are written through.
+    private ByteBuffer scratch;
+
+    // Whether the series has been closed.
+    private boolean closed;
+
+    /**
+     * Open the segments that the plant already has on disk.
+     *
+     * @param plantId The plant whose readings this is
+     * @param directory The directory holding the segments of the plant
+     * @param partitionMs The length (in milliseconds) of the partition of time covered by each segment
+     * @throws IOException If an existing segment could not be opened
+     */
+    PlantSeries(int plantId, File directory, long partitionMs) throws IOException {
+        this.plantId = plantId;
+        this.directory = directory;
+        this.partitionMs = partitionMs;
+        this.segments = new TreeMap<>();
+        this.scratch = ByteBuffer.allocateDirect(Segment.BLOCK_ROWS * 8);
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(SEGMENT_EXTENSION)) {
+                continue;
+            }
+
+            try {
+                long partition = Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+                this.segments.put(partition, new Segment(file));
+            } catch (NumberFormatException ex) {
+
+                // Not one of ours.
+                continue;
+            }
+        }
+    }
+
+    /**
+     * Append readings of the plant, each to the segment of its partition.
+     *
+     * @param times The times of the readings
+     * @param values The values of the readings, one array per sensor column
+     * @param length The number of readings
+     * @throws IOException If the readings could not be written, or the series is closed
+     */
+    synchronized void append(long[] times, double[][] values, int length) throws IOException {
+        this.checkOpen();
+
+        int offset = 0;
+
+        while (offset < length) {
+
+            // Readings usually arrive in order, so consecutive readings share a partition.
+            long partition = this.getPartition(times[offset]);
+            int end = offset + 1;
+            while (end < length && this.getPartition(times[end]) == partition) {
+                end++;
+            }
+
+            Segment segment = this.getSegment(partition);
+            while (offset < end) {
+                offset += segment.append(times, values, offset, end - offset, this.scratch);
+            }
+        }
+    }
+
+    /**
+     * Collect the readings of the plant taken within the time range.
+     *
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @param readings The list to add the readings to
+     * @throws IOException If a segment could not be read, or the series is closed
+     */
+    synchronized void scan(long from, long to, List<SensorsReading> readings) throws IOException {
+        this.checkOpen();
+
+        if (from >= to) {
+            return;
+        }
+
+        // Only the partitions overlapping the range are looked at.
+        Map<Long, Segment> overlapping = this.segments.subMap(this.getPartition(from), true, this.getPartition(to - 1), true);
+        for (Segment segment : overlapping.values()) {
+            segment.scan(this.plantId, from, to, readings);
+        }
+    }
+
+    /**
+     * Retrieve the latest reading of the plant.
+     *
+     * @return The reading with the latest time, or null if the plant has no readings
+     * @throws IOException If a segment could not be read, or the series is closed
+     */
+    synchronized SensorsReading getLatest() throws IOException {
+        this.checkOpen();
+
+        // The latest reading is in the latest partition that holds any.
+        for (Segment segment : this.segments.descendingMap().values()) {
+            SensorsReading latest = segment.getLatest(this.plantId);
+            if (latest != null) {
+                return latest;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Force the appended readings of the plant to the storage device.
+     *
+     * @throws IOException If a segment could not be forced, or the series is closed
+     */
+    synchronized void force() throws IOException {
+        this.checkOpen();
+
+        for (Segment segment : this.segments.values()) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Close the segments of the plant. Closing a closed series does nothing.
+     *
+     * @throws IOException If a segment could not be closed
+     */
+    synchronized void close() throws IOException {
+        this.closed = true;
+
+        for (Segment segment : this.segments.values()) {
+            segment.close();
+        }
+
+        this.segments.clear();
+    }
+
+    /*
+     * Fail if the series has been closed, rather than opening its segments again.
+     */
+    private void checkOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("The series of plant " + this.plantId + " is closed");
+        }
+    }
+
+    /*
+     * Retrieve the start of the partition holding the time.
+     */
+    private long getPartition(long time) {
+        return Math.floorDiv(time, this.partitionMs) * this.partitionMs;
+    }
+
+    /*
+     * Retrieve the segment of the partition, creating it if the plant has none yet.
+     */
+    private Segment getSegment(long partition) throws IOException {
+        Segment segment = this.segments.get(partition);
+        if (segment == null) {
+            if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+                throw new IOException("Unable to create directory " + this.directory);
+            }
+
+            segment = new Segment(new File(this.directory, partition + SEGMENT_EXTENSION));
+            this.segments.put(partition, segment);
+        }
+
+        return segment;
+    }
+}
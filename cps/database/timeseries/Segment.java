@@ -0,0 +1,349 @@
+package cps.database.timeseries;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import cps.database.SensorsReading;
+
+/**
+ * Segment is the append-only file holding the readings of one plant over
+ * one partition of time.
+ *
+ * A segment is a sequence of fixed-size blocks, each holding up to
+ * BLOCK_ROWS readings column by column: the times of the readings, then
+ * each sensor's values. Every block starts with a header holding the
+ * number of readings in it and the range of their times. The headers
+ * form a sparse index of the segment, kept in memory, so a range scan
+ * only reads the blocks that overlap the range.
+ *
+ * Readings are only ever added to the last block. The header of a block
+ * is written after its columns, so a segment cut short by a crash is
+ * read back up to the last header that made it to disk.
+ *
+ * Blocks are mapped into memory a window of WINDOW_BLOCKS at a time, so
+ * no mapping outgrows the int offsets of a buffer however large the
+ * segment gets. Only the window holding the last block is ever remapped,
+ * and only once it is read past the readings it was mapped with.
+ *
+ * Segments are not thread-safe: the series owning them serializes access.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+final class Segment {
+
+    // Marks the start of every block that has been written.
+    private static final int BLOCK_MAGIC = 0x53475453;
+
+    // The number of readings that a block holds.
+    static final int BLOCK_ROWS = 1024;
+
+    // The columns of a block: the times of the readings, followed by the sensors values.
+    static final int SENSOR_COLUMNS = 4;
+    private static final int COLUMNS = 1 + SENSOR_COLUMNS;
+
+    // The layout of a block: magic, row count, minimum time, maximum time, then the columns.
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+    private static final int COLUMN_BYTES = BLOCK_ROWS * 8;
+    private static final int BLOCK_BYTES = HEADER_BYTES + COLUMNS * COLUMN_BYTES;
+
+    // The number of blocks mapped together, a little over 2.5 MiB.
+    private static final int WINDOW_BLOCKS = 64;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+
+    // The sparse index of the segment: the number of readings in every block and the range of their times.
+    private int blocks;
+    private int[] rowCounts;
+    private long[] minTimes;
+    private long[] maxTimes;
+
+    // The windows of the segment mapped into memory for reading, indexed by the first of their blocks over WINDOW_BLOCKS.
+    private MappedByteBuffer[] windows;
+
+    /**
+     * Open the segment file, creating it if it does not exist, and index its blocks.
+     *
+     * @param path The segment file
+     * @throws IOException If the segment could not be opened or read
+     */
+    Segment(File path) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = this.file.getChannel();
+
+        this.rowCounts = new int[8];
+        this.minTimes = new long[8];
+        this.maxTimes = new long[8];
+        this.windows = new MappedByteBuffer[1];
+
+        this.indexBlocks();
+    }
+
+    /**
+     * Append readings to the last block of the segment, starting a new block when it is full.
+     *
+     * @param times The times of the readings
+     * @param values The values of the readings, one array per sensor column
+     * @param offset The index of the first reading to append
+     * @param length The number of readings to append
+     * @param scratch A buffer of at least BLOCK_ROWS * 8 bytes to write the columns through
+     * @return The number of readings appended, which is less than length if the block filled up
+     * @throws IOException If the readings could not be written
+     */
+    int append(long[] times, double[][] values, int offset, int length, ByteBuffer scratch) throws IOException {
+        if (this.blocks == 0 || this.rowCounts[this.blocks - 1] == BLOCK_ROWS) {
+            this.startBlock();
+        }
+
+        int block = this.blocks - 1;
+        int start = this.rowCounts[block];
+        int count = Math.min(length, BLOCK_ROWS - start);
+        long base = (long) block * BLOCK_BYTES;
+
+        // Write the new readings at the end of every column, one write per column.
+        scratch.clear();
+        for (int i = 0; i < count; i++) {
+            scratch.putLong(times[offset + i]);
+        }
+
+        this.write(scratch, base + HEADER_BYTES + start * 8L);
+
+        for (int column = 0; column < SENSOR_COLUMNS; column++) {
+            scratch.clear();
+            for (int i = 0; i < count; i++) {
+                scratch.putDouble(values[column][offset + i]);
+            }
+
+            this.write(scratch, base + HEADER_BYTES + (1 + column) * (long) COLUMN_BYTES + start * 8L);
+        }
+
+        long minTime = this.minTimes[block];
+        long maxTime = this.maxTimes[block];
+        for (int i = 0; i < count; i++) {
+            minTime = Math.min(minTime, times[offset + i]);
+            maxTime = Math.max(maxTime, times[offset + i]);
+        }
+
+        // The header commits the readings: until it is written, they are not part of the block.
+        scratch.clear();
+        scratch.putInt(BLOCK_MAGIC);
+        scratch.putInt(start + count);
+        scratch.putLong(minTime);
+        scratch.putLong(maxTime);
+        this.write(scratch, base);
+
+        this.rowCounts[block] = start + count;
+        this.minTimes[block] = minTime;
+        this.maxTimes[block] = maxTime;
+
+        return count;
+    }
+
+    /**
+     * Collect the readings taken within the time range.
+     *
+     * @param plantId The plant that the segment belongs to
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @param readings The list to add the readings to
+     * @throws IOException If the segment could not be mapped
+     */
+    void scan(int plantId, long from, long to, List<SensorsReading> readings) throws IOException {
+        for (int block = 0; block < this.blocks; block++) {
+
+            // The index rules out the blocks that hold nothing in the range.
+            if (this.rowCounts[block] == 0 || this.maxTimes[block] < from || this.minTimes[block] >= to) {
+                continue;
+            }
+
+            MappedByteBuffer buffer = this.map(block);
+            int base = this.getOffset(block) + HEADER_BYTES;
+
+            for (int row = 0; row < this.rowCounts[block]; row++) {
+                long time = buffer.getLong(base + row * 8);
+                if (time >= from && time < to) {
+                    readings.add(this.read(buffer, plantId, base + row * 8, time));
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieve the latest reading of the segment.
+     *
+     * @param plantId The plant that the segment belongs to
+     * @return The reading with the latest time, or null if the segment is empty
+     * @throws IOException If the segment could not be mapped
+     */
+    SensorsReading getLatest(int plantId) throws IOException {
+        int latestBlock = -1;
+        for (int block = 0; block < this.blocks; block++) {
+            if (this.rowCounts[block] > 0 && (latestBlock < 0 || this.maxTimes[block] > this.maxTimes[latestBlock])) {
+                latestBlock = block;
+            }
+        }
+
+        if (latestBlock < 0) {
+            return null;
+        }
+
+        // The latest reading of a block is usually its last, but readings may arrive out of order.
+        MappedByteBuffer buffer = this.map(latestBlock);
+        int base = this.getOffset(latestBlock) + HEADER_BYTES;
+
+        for (int row = this.rowCounts[latestBlock] - 1; row >= 0; row--) {
+            long time = buffer.getLong(base + row * 8);
+            if (time == this.maxTimes[latestBlock]) {
+                return this.read(buffer, plantId, base + row * 8, time);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Force the appended readings to the storage device.
+     *
+     * @throws IOException If the segment could not be forced
+     */
+    void force() throws IOException {
+        this.channel.force(false);
+    }
+
+    /**
+     * Close the segment file.
+     *
+     * @throws IOException If the segment could not be closed
+     */
+    void close() throws IOException {
+        Arrays.fill(this.windows, null);
+        this.file.close();
+    }
+
+    /*
+     * Rebuild the sparse index from the block headers, stopping at the first block that was
+     * never committed.
+     */
+    private void indexBlocks() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long size = this.channel.size();
+
+        for (long base = 0; base + HEADER_BYTES <= size; base += BLOCK_BYTES) {
+            header.clear();
+            this.read(header, base);
+
+            if (header.remaining() < HEADER_BYTES || header.getInt() != BLOCK_MAGIC) {
+                break;
+            }
+
+            int rowCount = header.getInt();
+            if (rowCount <= 0 || rowCount > BLOCK_ROWS) {
+                break;
+            }
+
+            this.startBlock();
+            this.rowCounts[this.blocks - 1] = rowCount;
+            this.minTimes[this.blocks - 1] = header.getLong();
+            this.maxTimes[this.blocks - 1] = header.getLong();
+
+            // A block that is not full is the last one: later blocks were never committed.
+            if (rowCount < BLOCK_ROWS) {
+                break;
+            }
+        }
+    }
+
+    /*
+     * Add an empty block to the end of the index.
+     */
+    private void startBlock() {
+        if (this.blocks == this.rowCounts.length) {
+            this.rowCounts = Arrays.copyOf(this.rowCounts, this.blocks * 2);
+            this.minTimes = Arrays.copyOf(this.minTimes, this.blocks * 2);
+            this.maxTimes = Arrays.copyOf(this.maxTimes, this.blocks * 2);
+        }
+
+        this.rowCounts[this.blocks] = 0;
+        this.minTimes[this.blocks] = Long.MAX_VALUE;
+        this.maxTimes[this.blocks] = Long.MIN_VALUE;
+        this.blocks++;
+    }
+
+    /*
+     * Retrieve the mapping of the window holding the block, covering every committed reading of
+     * the window. A full window is mapped once; the window holding the last block is remapped when
+     * the block has grown past the mapping.
+     */
+    private MappedByteBuffer map(int block) throws IOException {
+        int window = block / WINDOW_BLOCKS;
+        if (window >= this.windows.length) {
+            this.windows = Arrays.copyOf(this.windows, Math.max(window + 1, this.windows.length * 2));
+        }
+
+        // The window ends with the committed readings in the last column of its last block. A block
+        // just started holds none, and may not be on disk yet.
+        int lastBlock = Math.min(this.blocks, (window + 1) * WINDOW_BLOCKS) - 1;
+        while (lastBlock > block && this.rowCounts[lastBlock] == 0) {
+            lastBlock--;
+        }
+
+        int end = this.getOffset(lastBlock) + HEADER_BYTES + SENSOR_COLUMNS * COLUMN_BYTES + this.rowCounts[lastBlock] * 8;
+
+        MappedByteBuffer mapped = this.windows[window];
+        if (mapped == null || mapped.capacity() < end) {
+            mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, (long) window * WINDOW_BLOCKS * BLOCK_BYTES, end);
+            this.windows[window] = mapped;
+        }
+
+        return mapped;
+    }
+
+    /*
+     * Retrieve the offset of the block within the mapping of its window.
+     */
+    private int getOffset(int block) {
+        return (block % WINDOW_BLOCKS) * BLOCK_BYTES;
+    }
+
+    /*
+     * Read the reading whose time is at the offset of the mapping.
+     */
+    private SensorsReading read(MappedByteBuffer buffer, int plantId, int offset, long time) {
+        return new SensorsReading(plantId, time,
+            buffer.getDouble(offset + COLUMN_BYTES),
+            buffer.getDouble(offset + 2 * COLUMN_BYTES),
+            buffer.getDouble(offset + 3 * COLUMN_BYTES),
+            buffer.getDouble(offset + 4 * COLUMN_BYTES));
+    }
+
+    /*
+     * Fill the buffer from the position of the segment file, up to its end, and flip it.
+     */
+    private void read(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+
+        buffer.flip();
+    }
+
+    /*
+     * Write the buffer at the position of the segment file.
+     */
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += this.channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package cps.database.timeseries;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cps.database.SensorsReading;
+
+/**
+ * TimeSeriesStore is an embedded, append-only storage engine for the
+ * sensors readings of plants, running entirely on local disk.
+ *
+ * Every plant has a directory of its own under the root directory of
+ * the store, holding one segment file per partition of time. Segments
+ * store the readings column by column in fixed-size blocks, and are read
+ * through memory-mapped I/O. The headers of the blocks form a sparse
+ * time index, so a range scan only reads the blocks it needs.
+ *
+ * Appended readings are written to the files right away, and survive the
+ * server crashing. They only survive the machine losing power once the
+ * store has been flushed.
+ *
+ * A TimeSeriesStore is safe to share between threads. Readings of
+ * different plants are appended and read in parallel. Once the store has
+ * been closed, every call fails.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class TimeSeriesStore {
+
+    // The prefix of the directory of every plant.
+    private static final String PLANT_DIRECTORY_PREFIX = "plant-";
+
+    // Orders readings by the time they were taken.
+    private static final Comparator<SensorsReading> BY_TIME_TAKEN = new Comparator<SensorsReading>() {
+        @Override
+        public int compare(SensorsReading first, SensorsReading second) {
+            return Long.compare(first.getTimeTaken(), second.getTimeTaken());
+        }
+    };
+
+    // The root directory of the store.
+    private File directory;
+
+    // The length (in milliseconds) of the partition of time covered by each segment.
+    private long partitionMs;
+
+    // The series of the plants that have been accessed, keyed by plant id.
+    private Map<Integer, PlantSeries> series;
+
+    // Whether the store has been closed, guarded by the lock of the series.
+    private boolean closed;
+
+    /**
+     * Open the store in the directory, creating the directory if it does not exist.
+     *
+     * @param directory The root directory of the store
+     * @param partitionMs The length (in milliseconds) of the partition of time covered by each segment
+     * @throws IOException If the directory could not be created
+     */
+    public TimeSeriesStore(File directory, long partitionMs) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+
+        this.directory = directory;
+        this.partitionMs = partitionMs;
+        this.series = new HashMap<>();
+    }
+
+    /**
+     * Append a single reading to the series of its plant.
+     *
+     * @param reading The reading to append
+     * @throws IOException If the reading could not be written, or the store is closed
+     */
+    public void append(SensorsReading reading) throws IOException {
+        this.append(Collections.singletonList(reading));
+    }
+
+    /**
+     * Append readings to the series of their plants. The readings of each plant are
+     * written column by column, a block at a time.
+     *
+     * A batch that fails part way may have been stored for some of its plants.
+     *
+     * @param readings The readings to append
+     * @throws IOException If the readings could not be written, or the store is closed
+     */
+    public void append(List<SensorsReading> readings) throws IOException {
+
+        // Split the readings by plant, keeping the order they were taken in.
+        Map<Integer, List<SensorsReading>> byPlant = new HashMap<>();
+        for (SensorsReading reading : readings) {
+            List<SensorsReading> plantReadings = byPlant.get(reading.getPlantId());
+            if (plantReadings == null) {
+                plantReadings = new ArrayList<>();
+                byPlant.put(reading.getPlantId(), plantReadings);
+            }
+
+            plantReadings.add(reading);
+        }
+
+        for (Map.Entry<Integer, List<SensorsReading>> entry : byPlant.entrySet()) {
+            List<SensorsReading> plantReadings = entry.getValue();
+            int length = plantReadings.size();
+
+            // Lay the readings out as columns, the way segments store them.
+            long[] times = new long[length];
+            double[][] values = new double[Segment.SENSOR_COLUMNS][length];
+            for (int i = 0; i < length; i++) {
+                SensorsReading reading = plantReadings.get(i);
+                times[i] = reading.getTimeTaken();
+                values[0][i] = reading.getLightIntensity();
+                values[1][i] = reading.getAirHumidity();
+                values[2][i] = reading.getAirTemperature();
+                values[3][i] = reading.getSoilMoisture();
+            }
+
+            this.getSeries(entry.getKey()).append(times, values, length);
+        }
+    }
+
+    /**
+     * Retrieve the readings of the plant taken within the time range.
+     *
+     * @param plantId The id of the plant
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @return The readings, ordered by the time they were taken
+     * @throws IOException If the readings could not be read, or the store is closed
+     */
+    public List<SensorsReading> getReadings(int plantId, long from, long to) throws IOException {
+        List<SensorsReading> readings = new ArrayList<>();
+
+        // A plant that was never written to has no readings, and gets no directory either.
+        PlantSeries plantSeries = this.findSeries(plantId);
+        if (plantSeries == null) {
+            return readings;
+        }
+
+        plantSeries.scan(from, to, readings);
+
+        // Readings are stored in the order they arrived, which is nearly always the order they were taken in.
+        Collections.sort(readings, BY_TIME_TAKEN);
+        return readings;
+    }
+
+    /**
+     * Retrieve the latest reading of the plant.
+     *
+     * @param plantId The id of the plant
+     * @return The reading with the latest time, or null if the plant has no readings
+     * @throws IOException If the reading could not be read, or the store is closed
+     */
+    public SensorsReading getLatestReading(int plantId) throws IOException {
+        PlantSeries plantSeries = this.findSeries(plantId);
+        if (plantSeries == null) {
+            return null;
+        }
+
+        return plantSeries.getLatest();
+    }
+
+    /**
+     * Force every appended reading to the storage device.
+     *
+     * @throws IOException If the readings could not be forced, or the store is closed
+     */
+    public void flush() throws IOException {
+        List<PlantSeries> allSeries;
+        synchronized (this.series) {
+            this.checkOpen();
+            allSeries = new ArrayList<>(this.series.values());
+        }
+
+        for (PlantSeries plantSeries : allSeries) {
+            plantSeries.force();
+        }
+    }
+
+    /**
+     * Flush the store and close every segment file. Closing a closed store does nothing.
+     *
+     * @throws IOException If the store could not be flushed or closed
+     */
+    public void close() throws IOException {
+        List<PlantSeries> allSeries;
+        synchronized (this.series) {
+            if (this.closed) {
+                return;
+            }
+
+            // No series can be opened from here on, so the snapshot holds every one of them.
+            this.closed = true;
+            allSeries = new ArrayList<>(this.series.values());
+            this.series.clear();
+        }
+
+        for (PlantSeries plantSeries : allSeries) {
+            plantSeries.force();
+            plantSeries.close();
+        }
+    }
+
+    /*
+     * Retrieve the series of the plant for appending, opening the segments it has on disk the first time.
+     */
+    private PlantSeries getSeries(int plantId) throws IOException {
+        synchronized (this.series) {
+            this.checkOpen();
+
+            PlantSeries plantSeries = this.series.get(plantId);
+            if (plantSeries == null) {
+                plantSeries = new PlantSeries(plantId, this.getPlantDirectory(plantId), this.partitionMs);
+                this.series.put(plantId, plantSeries);
+            }
+
+            return plantSeries;
+        }
+    }
+
+    /*
+     * Retrieve the series of the plant for reading, or null if the plant has nothing on disk. Plants
+     * without a directory are not kept, so reads of unknown plants do not grow the store.
+     */
+    private PlantSeries findSeries(int plantId) throws IOException {
+        synchronized (this.series) {
+            this.checkOpen();
+
+            PlantSeries plantSeries = this.series.get(plantId);
+            if (plantSeries == null) {
+                File plantDirectory = this.getPlantDirectory(plantId);
+                if (!plantDirectory.isDirectory()) {
+                    return null;
+                }
+
+                plantSeries = new PlantSeries(plantId, plantDirectory, this.partitionMs);
+                this.series.put(plantId, plantSeries);
+            }
+
+            return plantSeries;
+        }
+    }
+
+    /*
+     * Retrieve the directory holding the segments of the plant.
+     */
+    private File getPlantDirectory(int plantId) {
+        return new File(this.directory, PLANT_DIRECTORY_PREFIX + plantId);
+    }
+
+    /*
+     * Fail if the store has been closed. Must be called holding the lock of the series.
+     */
+    private void checkOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("The time series store in " + this.directory + " is closed");
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package cps.management.managers;
 
 import cps.accounts.Account;
-import cps.database.DatabaseController;
+import cps.database.LatestReadingsCache;
+import cps.database.SensorsReading;
 import cps.database.exceptions.SmartgrowDatabaseException;
-import cps.database.tables.PlantData;
 import cps.management.LeafManager;
+import cps.storage.SensorsStorage;
 import logging.SmartLog;
 import network.core.Packet;
 import network.core.packets.sensors.RequestSensors;
+import network.core.packets.sensors.SensorsData;
 
 /**
  * AndroidUserManager provides the behaviour for interacting with
@@ -21,18 +23,21 @@ public class AndroidUserManager implements LeafManager {
     // The logger instance for this class
     private static SmartLog logger = new SmartLog(AndroidUserManager.class.getName());
 
-    // Object representation for connecting and updating the database.
-    private DatabaseController database;
-    private PlantData plantsData;
+    // Object representation for retrieving the stored sensors data.
+    private SensorsStorage plantsData;
+
+    // The latest readings of the plants, written through by the plant endpoint manager.
+    private LatestReadingsCache latestReadings;
 
     /**
      * Initialize the manager for android users.
      *
-     * @param database The object representation for connecting to the database.
+     * @param plantsData The sensors data storage, backed by the chosen storage backend.
+     * @param latestReadings The latest readings of the plants
      */
-    public AndroidUserManager(DatabaseController database) {
-        this.database = database;
-        this.plantsData = new PlantData(database);
+    public AndroidUserManager(SensorsStorage plantsData, LatestReadingsCache latestReadings) {
+        this.plantsData = plantsData;
+        this.latestReadings = latestReadings;
     }
 
     /**
@@ -45,10 +50,23 @@ public class AndroidUserManager implements LeafManager {
         }
 
         RequestSensors request = (RequestSensors) packet;
+
+        // Answer from memory whenever the plant has reported since the server started.
+        SensorsReading reading = this.latestReadings.get(request.getPlantId());
+        if (reading != null) {
+            return reading.toSensorsData();
+        }
+
         try {
 
-            // Retrieve the latest sensor values from the plant data.
-            return this.plantsData.getSensorsData(request.getPlantId());
+            // Retrieve the latest sensor values from the plant data, and remember them for next time.
+            reading = this.plantsData.getLatestReading(request.getPlantId());
+            if (reading == null) {
+                return new SensorsData();
+            }
+
+            this.latestReadings.update(reading);
+            return reading.toSensorsData();
 
         } catch (SmartgrowDatabaseException ex) {
             logger.error(ex.getMessage());
@@ -1,10 +1,11 @@
 package cps.management.managers;
 
 import cps.accounts.Account;
-import cps.database.DatabaseController;
-import cps.database.exceptions.SmartgrowDatabaseException;
-import cps.database.tables.PlantData;
+import cps.database.LatestReadingsCache;
+import cps.database.SensorsReading;
+import cps.database.threads.SensorsWriteBehindThread;
 import cps.management.LeafManager;
+import cps.storage.SensorsStorage;
 import logging.SmartLog;
 import network.core.Packet;
 import network.core.packets.Acknowledgement;
@@ -22,19 +23,35 @@ public class PlantEndpointManager implements LeafManager {
     // The logger instance for this class.
     private static SmartLog logger = new SmartLog(PlantEndpointManager.class.getName());
 
-    // Object representations for accessing and updating the database
-    private DatabaseController database;
-    private PlantData plantsData;
+    // Object representation for storing the sensors data
+    private SensorsStorage plantsData;
+
+    // The thread writing the received sensors data to the database in batches.
+    private SensorsWriteBehindThread writer;
+
+    // The latest readings of the plants, which every received reading is written through.
+    private LatestReadingsCache latestReadings;
+
+    /**
+     * Initialize a PlantEndpointManager object with the storage of the
+     * sensors data.
+     *
+     * @param plantsData The sensors data storage, backed by the chosen storage backend.
+     * @param latestReadings The latest readings of the plants
+     */
+    public PlantEndpointManager(SensorsStorage plantsData, LatestReadingsCache latestReadings) {
+        this.latestReadings = latestReadings;
+        this.plantsData = plantsData;
+        this.writer = new SensorsWriteBehindThread(this.plantsData);
+    }
 
     /**
-     * Initialize a PlantEndpointManager object with the DatabaseController
-     * object.
+     * Write the sensors data that is still queued to the database.
      *
-     * @param database The DatabaseController object providing us with access to the database.
+     * @throws InterruptedException If interrupted while waiting for the final write
      */
-    public PlantEndpointManager(DatabaseController database) {
-        this.database = database;
-        this.plantsData = new PlantData(database);
+    public void shutdown() throws InterruptedException {
+        this.writer.shutdown();
     }
 
     /**
@@ -46,18 +63,19 @@ public class PlantEndpointManager implements LeafManager {
             return null;
         }
 
-        try {
-
-            // Append the sensors data to the plant_data table.
-            this.plantsData.insertSensorsData(account.getId(), (SensorsData) packet);
-
-        } catch (SmartgrowDatabaseException ex) {
-            logger.fatal("Unable to append data: " + ex.getMessage());
+        // Queue the sensors data to be appended to the plant_data table. A full queue means
+        // the database is falling behind, so withhold the acknowledgement and let the plant retry.
+        SensorsReading reading = new SensorsReading(account.getId(), System.currentTimeMillis(), (SensorsData) packet);
+        if (!this.writer.enqueue(reading)) {
+            logger.error("Sensors data queue is full, dropped data from plant " + account.getId());
             return null;
         }
 
-        // Return an acknowledgement to the plant to inform it of the successful
-        // storage of its values.
+        // Make the reading available to android users right away, before it reaches the database.
+        this.latestReadings.update(reading);
+
+        // Return an acknowledgement to the plant to inform it that its values
+        // have been accepted for storage.
         return new Acknowledgement();
     }
 }
\ No newline at end of file
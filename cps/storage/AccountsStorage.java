@@ -0,0 +1,45 @@
+package cps.storage;
+
+import cps.database.exceptions.SmartgrowDatabaseException;
+
+/**
+ * AccountsStorage provides an interface for implementing subclasses to
+ * store the accounts of leaves, which are identified by their MAC address
+ * and assigned a unique leaf id.
+ *
+ * Implementations must be safe to use from several threads at once, and
+ * must never assign two ids to the same MAC address.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface AccountsStorage {
+
+    // Constant for signalling that the account does not exist.
+    int ACCOUNT_DOES_NOT_EXIST = -1;
+
+    /**
+     * Retrieve the leaf id of the MAC address.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if it has no account
+     * @throws SmartgrowDatabaseException If the account could not be retrieved
+     */
+    int getLeafId(String macAddress) throws SmartgrowDatabaseException;
+
+    /**
+     * Retrieve the leaf id of the MAC address, creating an account for it if there is none.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if the MAC address is null
+     * @throws SmartgrowDatabaseException If the account could not be retrieved or created
+     */
+    int getOrCreateLeafId(String macAddress) throws SmartgrowDatabaseException;
+
+    /**
+     * Release the resources held by the storage.
+     *
+     * @throws SmartgrowDatabaseException If the storage could not be closed
+     */
+    void close() throws SmartgrowDatabaseException;
+}
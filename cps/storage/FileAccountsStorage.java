@@ -0,0 +1,161 @@
+package cps.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cps.database.exceptions.SmartgrowDatabaseException;
+
+/**
+ * FileAccountsStorage keeps the accounts of leaves in a file on local
+ * disk, so that leaves keep their ids across restarts of a server that
+ * runs without a database.
+ *
+ * The file holds one line per account, the leaf id followed by the MAC
+ * address, and is only ever appended to. Every account is read into
+ * memory when the storage is opened, so looking an account up never
+ * touches the file. A new account is forced to the storage device before
+ * its id is handed out.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class FileAccountsStorage implements AccountsStorage {
+
+    // The leaf ids of the MAC addresses that have an account.
+    private ConcurrentHashMap<String, Integer> leafIds;
+
+    // The last leaf id that was assigned.
+    private int lastLeafId;
+
+    // The file that new accounts are appended to.
+    private FileOutputStream file;
+
+    /**
+     * Open the accounts file, creating it if it does not exist, and read every account in it.
+     *
+     * @param path The accounts file
+     * @throws SmartgrowDatabaseException If the file could not be opened or read
+     */
+    public FileAccountsStorage(File path) throws SmartgrowDatabaseException {
+        this.leafIds = new ConcurrentHashMap<>();
+
+        try {
+            if (path.isFile()) {
+                this.readAccounts(path);
+            }
+
+            this.file = new FileOutputStream(path, true);
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the leaf id of the MAC address.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if it has no account
+     */
+    @Override
+    public int getLeafId(String macAddress) {
+        if (macAddress == null) {
+            return ACCOUNT_DOES_NOT_EXIST;
+        }
+
+        Integer leafId = this.leafIds.get(macAddress);
+        return leafId == null ? ACCOUNT_DOES_NOT_EXIST : leafId;
+    }
+
+    /**
+     * Retrieve the leaf id of the MAC address, appending an account for it to the file if
+     * there is none.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if the MAC address is null
+     * @throws SmartgrowDatabaseException If the new account could not be written
+     */
+    @Override
+    public int getOrCreateLeafId(String macAddress) throws SmartgrowDatabaseException {
+        if (macAddress == null) {
+            return ACCOUNT_DOES_NOT_EXIST;
+        }
+
+        Integer leafId = this.leafIds.get(macAddress);
+        if (leafId != null) {
+            return leafId;
+        }
+
+        // New accounts are rare, so they simply take turns on the file.
+        synchronized (this) {
+            leafId = this.leafIds.get(macAddress);
+            if (leafId != null) {
+                return leafId;
+            }
+
+            int newLeafId = this.lastLeafId + 1;
+            try {
+                this.file.write((newLeafId + " " + macAddress + "\n").getBytes(StandardCharsets.UTF_8));
+                this.file.getFD().sync();
+            } catch (IOException ex) {
+                throw new SmartgrowDatabaseException(ex.getMessage());
+            }
+
+            this.lastLeafId = newLeafId;
+            this.leafIds.put(macAddress, newLeafId);
+            return newLeafId;
+        }
+    }
+
+    /**
+     * Close the accounts file.
+     *
+     * @throws SmartgrowDatabaseException If the file could not be closed
+     */
+    @Override
+    public synchronized void close() throws SmartgrowDatabaseException {
+        try {
+            this.file.close();
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+
+    /*
+     * Read every account in the file. A line cut short by a crash was never handed out, so it
+     * is cut off the file before new accounts are appended after it.
+     */
+    private void readAccounts(File path) throws IOException {
+        byte[] contents = Files.readAllBytes(path.toPath());
+
+        int end = contents.length;
+        while (end > 0 && contents[end - 1] != '\n') {
+            end--;
+        }
+
+        if (end < contents.length) {
+            try (RandomAccessFile torn = new RandomAccessFile(path, "rw")) {
+                torn.setLength(end);
+            }
+        }
+
+        for (String line : new String(contents, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            String[] fields = line.trim().split(" ");
+            if (fields.length != 2) {
+                continue;
+            }
+
+            try {
+                int leafId = Integer.parseInt(fields[0]);
+                this.leafIds.put(fields[1], leafId);
+                this.lastLeafId = Math.max(this.lastLeafId, leafId);
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cps.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MemoryAccountsStorage keeps the accounts of leaves in memory only, and
+ * loses them when the server exits. It is meant for load tests and
+ * benchmarks, where the server should run at full speed without a
+ * database behind it.
+ *
+ * Leaf ids are assigned in order starting at 1, like the leaf_accounts
+ * table does.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MemoryAccountsStorage implements AccountsStorage {
+
+    // The leaf ids of the MAC addresses that have an account.
+    private ConcurrentHashMap<String, Integer> leafIds;
+
+    // The last leaf id that was assigned.
+    private AtomicInteger lastLeafId;
+
+    /**
+     * Initialize an empty storage.
+     */
+    public MemoryAccountsStorage() {
+        this.leafIds = new ConcurrentHashMap<>();
+        this.lastLeafId = new AtomicInteger();
+    }
+
+    /**
+     * Retrieve the leaf id of the MAC address.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if it has no account
+     */
+    @Override
+    public int getLeafId(String macAddress) {
+        if (macAddress == null) {
+            return ACCOUNT_DOES_NOT_EXIST;
+        }
+
+        Integer leafId = this.leafIds.get(macAddress);
+        return leafId == null ? ACCOUNT_DOES_NOT_EXIST : leafId;
+    }
+
+    /**
+     * Retrieve the leaf id of the MAC address, assigning it the next one if it has no account.
+     *
+     * @param macAddress The MAC address of the leaf
+     * @return A unique id for the leaf, or ACCOUNT_DOES_NOT_EXIST if the MAC address is null
+     */
+    @Override
+    public int getOrCreateLeafId(String macAddress) {
+        if (macAddress == null) {
+            return ACCOUNT_DOES_NOT_EXIST;
+        }
+
+        return this.leafIds.computeIfAbsent(macAddress, (address) -> this.lastLeafId.incrementAndGet());
+    }
+
+    /**
+     * Drop every account.
+     */
+    @Override
+    public void close() {
+        this.leafIds.clear();
+    }
+}
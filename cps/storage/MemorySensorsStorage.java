@@ -0,0 +1,119 @@
+package cps.storage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cps.database.SensorsReading;
+
+/**
+ * MemorySensorsStorage keeps the sensors readings in memory only, and
+ * loses them when the server exits. It is meant for load tests and
+ * benchmarks, where the server should run at full speed without a
+ * database behind it.
+ *
+ * Only the most recent readings of every plant are kept, so that a server
+ * under load for hours does not run out of memory. The latest reading of
+ * a plant is always kept.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MemorySensorsStorage implements SensorsStorage {
+
+    // The number of readings kept for every plant.
+    private int readingsPerPlant;
+
+    // The kept readings of every plant in the order they arrived, keyed by the plant id.
+    private ConcurrentHashMap<Integer, ArrayDeque<SensorsReading>> readings;
+
+    // The reading with the latest time of every plant, keyed by the plant id.
+    private ConcurrentHashMap<Integer, SensorsReading> latest;
+
+    /**
+     * Initialize an empty storage.
+     *
+     * @param readingsPerPlant The number of readings kept for every plant, past which the oldest are dropped
+     */
+    public MemorySensorsStorage(int readingsPerPlant) {
+        this.readingsPerPlant = readingsPerPlant;
+        this.readings = new ConcurrentHashMap<>();
+        this.latest = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Keep the sensors readings, dropping the oldest readings of plants that are over their limit.
+     *
+     * @param readings The readings to store
+     */
+    @Override
+    public void insertSensorsData(List<SensorsReading> readings) {
+        for (SensorsReading reading : readings) {
+            ArrayDeque<SensorsReading> plantReadings = this.readings.computeIfAbsent(
+                reading.getPlantId(), (plantId) -> new ArrayDeque<>());
+
+            synchronized (plantReadings) {
+                plantReadings.addLast(reading);
+                if (plantReadings.size() > this.readingsPerPlant) {
+                    plantReadings.removeFirst();
+                }
+            }
+
+            // A reading that arrives late never replaces a newer one.
+            this.latest.merge(reading.getPlantId(), reading,
+                (kept, candidate) -> candidate.getTimeTaken() >= kept.getTimeTaken() ? candidate : kept);
+        }
+    }
+
+    /**
+     * Retrieve the latest reading kept for the plant.
+     *
+     * @param plantId The id of the plant
+     * @return The latest reading, or null if the plant has no kept readings
+     */
+    @Override
+    public SensorsReading getLatestReading(int plantId) {
+        return this.latest.get(plantId);
+    }
+
+    /**
+     * Retrieve the readings kept for the plant within a time range.
+     *
+     * @param plantId The id of the plant
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @return The readings, ordered by the time they were taken
+     */
+    @Override
+    public List<SensorsReading> getReadings(int plantId, long from, long to) {
+        List<SensorsReading> inRange = new ArrayList<>();
+
+        ArrayDeque<SensorsReading> plantReadings = this.readings.get(plantId);
+        if (plantReadings == null) {
+            return inRange;
+        }
+
+        synchronized (plantReadings) {
+            for (SensorsReading reading : plantReadings) {
+                if (reading.getTimeTaken() >= from && reading.getTimeTaken() < to) {
+                    inRange.add(reading);
+                }
+            }
+        }
+
+        // Readings are kept in the order they arrived, which is nearly always the order they were taken in.
+        Collections.sort(inRange, (first, second) -> Long.compare(first.getTimeTaken(), second.getTimeTaken()));
+        return inRange;
+    }
+
+    /**
+     * Drop every kept reading.
+     */
+    @Override
+    public void close() {
+        this.readings.clear();
+        this.latest.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package cps.storage;
+
+import java.util.List;
+
+import cps.database.SensorsReading;
+import cps.database.exceptions.SmartgrowDatabaseException;
+
+/**
+ * SensorsStorage provides an interface for implementing subclasses to
+ * store the sensors readings reported by plants, and retrieve them later.
+ *
+ * Implementations must be safe to use from several threads at once.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface SensorsStorage {
+
+    /**
+     * Store the sensors readings as a single batch.
+     *
+     * @param readings The readings to store
+     * @throws SmartgrowDatabaseException If the readings could not be stored
+     */
+    void insertSensorsData(List<SensorsReading> readings) throws SmartgrowDatabaseException;
+
+    /**
+     * Retrieve the latest reading stored for the plant.
+     *
+     * @param plantId The id of the plant
+     * @return The latest reading, or null if the plant has no stored readings
+     * @throws SmartgrowDatabaseException If the readings could not be retrieved
+     */
+    SensorsReading getLatestReading(int plantId) throws SmartgrowDatabaseException;
+
+    /**
+     * Retrieve the readings stored for the plant within a time range.
+     *
+     * @param plantId The id of the plant
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @return The readings, ordered by the time they were taken
+     * @throws SmartgrowDatabaseException If the readings could not be retrieved
+     */
+    List<SensorsReading> getReadings(int plantId, long from, long to) throws SmartgrowDatabaseException;
+
+    /**
+     * Release the resources held by the storage, making sure that every stored reading
+     * is persisted.
+     *
+     * @throws SmartgrowDatabaseException If the storage could not be closed
+     */
+    void close() throws SmartgrowDatabaseException;
+}
@@ -0,0 +1,118 @@
+package cps.storage;
+
+import java.io.File;
+
+import cps.database.DatabaseController;
+import cps.database.DatabaseInfo;
+import cps.database.exceptions.SmartgrowDatabaseException;
+import cps.database.tables.LeafAccounts;
+import cps.database.tables.PlantData;
+
+/**
+ * Storage holds the sensors readings and leaf accounts storages of the
+ * server, opened together from the backend chosen at startup:
+ *
+ * POSTGRES keeps both in the SmartGrow database.
+ * MEMORY keeps both in memory, for load tests and benchmarks.
+ * FILE keeps both on local disk under DatabaseInfo.STORAGE_DIRECTORY, the
+ * readings in an embedded time-series store.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class Storage {
+
+    // The names of the backends.
+    public static final String POSTGRES = "postgres";
+    public static final String MEMORY = "memory";
+    public static final String FILE = "file";
+
+    // Where the file backend keeps the readings and the accounts, under its directory.
+    private static final String SENSORS_DIRECTORY = "sensors";
+    private static final String ACCOUNTS_FILE = "leaf_accounts";
+
+    private SensorsStorage sensors;
+    private AccountsStorage accounts;
+
+    // The database connections of the postgres backend, which both storages share.
+    private DatabaseController database;
+
+    /*
+     * Hold the storages of a backend, along with the database connections they share (if any).
+     */
+    private Storage(SensorsStorage sensors, AccountsStorage accounts, DatabaseController database) {
+        this.sensors = sensors;
+        this.accounts = accounts;
+        this.database = database;
+    }
+
+    /**
+     * Open the storages of the backend.
+     *
+     * @param backend The name of the backend: POSTGRES, MEMORY, or FILE
+     * @return The opened storages
+     * @throws SmartgrowDatabaseException If the backend is unknown or could not be opened
+     */
+    public static Storage open(String backend) throws SmartgrowDatabaseException {
+        switch (backend) {
+            case POSTGRES:
+                DatabaseController database = new DatabaseController();
+                return new Storage(new PlantData(database), new LeafAccounts(database), database);
+
+            case MEMORY:
+                return new Storage(new MemorySensorsStorage(DatabaseInfo.MEMORY_READINGS_PER_PLANT),
+                    new MemoryAccountsStorage(), null);
+
+            case FILE:
+                File directory = new File(DatabaseInfo.STORAGE_DIRECTORY);
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new SmartgrowDatabaseException("Unable to create directory " + directory);
+                }
+
+                SensorsStorage sensors = new TimeSeriesSensorsStorage(
+                    new File(directory, SENSORS_DIRECTORY), DatabaseInfo.TIMESERIES_PARTITION_MS);
+                return new Storage(sensors, new FileAccountsStorage(new File(directory, ACCOUNTS_FILE)), null);
+
+            default:
+                throw new SmartgrowDatabaseException("Unknown storage backend: " + backend);
+        }
+    }
+
+    /**
+     * Retrieve the storage of the sensors readings.
+     *
+     * @return The sensors readings storage
+     */
+    public SensorsStorage getSensors() {
+        return this.sensors;
+    }
+
+    /**
+     * Retrieve the storage of the leaf accounts.
+     *
+     * @return The leaf accounts storage
+     */
+    public AccountsStorage getAccounts() {
+        return this.accounts;
+    }
+
+    /**
+     * Close both storages, then the database connections they share (if any). Both storages
+     * are closed even if the first fails to.
+     *
+     * @throws SmartgrowDatabaseException If either storage could not be closed
+     */
+    public void close() throws SmartgrowDatabaseException {
+        try {
+            this.sensors.close();
+        } finally {
+            try {
+                this.accounts.close();
+            } finally {
+                if (this.database != null) {
+                    this.database.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package cps.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import cps.database.SensorsReading;
+import cps.database.exceptions.SmartgrowDatabaseException;
+import cps.database.timeseries.TimeSeriesStore;
+
+/**
+ * TimeSeriesSensorsStorage keeps the sensors readings in an embedded
+ * TimeSeriesStore on local disk, so that they outlive the server without
+ * a database.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class TimeSeriesSensorsStorage implements SensorsStorage {
+
+    // The store holding the readings.
+    private TimeSeriesStore store;
+
+    /**
+     * Open the time-series store in the directory, creating the directory if it does not exist.
+     *
+     * @param directory The root directory of the store
+     * @param partitionMs The length (in milliseconds) of the partition of time covered by each segment
+     * @throws SmartgrowDatabaseException If the store could not be opened
+     */
+    public TimeSeriesSensorsStorage(File directory, long partitionMs) throws SmartgrowDatabaseException {
+        try {
+            this.store = new TimeSeriesStore(directory, partitionMs);
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Append the sensors readings to the series of their plants.
+     *
+     * @param readings The readings to store
+     * @throws SmartgrowDatabaseException If the readings could not be written
+     */
+    @Override
+    public void insertSensorsData(List<SensorsReading> readings) throws SmartgrowDatabaseException {
+        try {
+            this.store.append(readings);
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the latest reading stored for the plant.
+     *
+     * @param plantId The id of the plant
+     * @return The latest reading, or null if the plant has no stored readings
+     * @throws SmartgrowDatabaseException If the reading could not be read
+     */
+    @Override
+    public SensorsReading getLatestReading(int plantId) throws SmartgrowDatabaseException {
+        try {
+            return this.store.getLatestReading(plantId);
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the readings stored for the plant within a time range.
+     *
+     * @param plantId The id of the plant
+     * @param from The earliest time (inclusive, epoch milliseconds) of the readings
+     * @param to The latest time (exclusive, epoch milliseconds) of the readings
+     * @return The readings, ordered by the time they were taken
+     * @throws SmartgrowDatabaseException If the readings could not be read
+     */
+    @Override
+    public List<SensorsReading> getReadings(int plantId, long from, long to) throws SmartgrowDatabaseException {
+        try {
+            return this.store.getReadings(plantId, from, to);
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Flush the time-series store to the storage device and close it.
+     *
+     * @throws SmartgrowDatabaseException If the store could not be flushed or closed
+     */
+    @Override
+    public void close() throws SmartgrowDatabaseException {
+        try {
+            this.store.close();
+        } catch (IOException ex) {
+            throw new SmartgrowDatabaseException(ex.getMessage());
+        }
+    }
+}
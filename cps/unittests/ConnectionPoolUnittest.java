@@ -0,0 +1,187 @@
+package cps.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cps.database.ConnectionFactory;
+import cps.database.ConnectionPool;
+import cps.database.PooledConnection;
+
+/**
+ * The following class hosts several unit tests to verify that the
+ * ConnectionPool stays bounded, replaces broken connections, and
+ * caches the prepared statements of each connection.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ConnectionPoolUnittest {
+
+    /**
+     * Test: Check that a released connection is handed out again instead of establishing another.
+     */
+    @Test
+    public void releasedConnectionIsReused() throws SQLException {
+        StubFactory factory = new StubFactory();
+        ConnectionPool pool = new ConnectionPool("test", 2, 100, 60000, 4, factory);
+
+        PooledConnection first = pool.acquire();
+        pool.release(first);
+
+        assertSame(first, pool.acquire());
+        assertEquals(1, factory.connections.get());
+    }
+
+    /**
+     * Test: Check that a discarded connection is closed and replaced by a fresh one.
+     */
+    @Test
+    public void discardedConnectionIsReplaced() throws SQLException {
+        StubFactory factory = new StubFactory();
+        ConnectionPool pool = new ConnectionPool("test", 1, 100, 60000, 4, factory);
+
+        PooledConnection broken = pool.acquire();
+        pool.discard(broken);
+
+        assertTrue(broken.getConnection().isClosed());
+        assertNotSame(broken, pool.acquire());
+        assertEquals(2, factory.connections.get());
+    }
+
+    /**
+     * Test: Check that an idle connection which has gone stale is never handed out.
+     */
+    @Test
+    public void staleConnectionIsReplaced() throws SQLException {
+        StubFactory factory = new StubFactory();
+        ConnectionPool pool = new ConnectionPool("test", 1, 100, 0, 4, factory);
+
+        PooledConnection stale = pool.acquire();
+        pool.release(stale);
+        factory.valid.set(false);
+
+        assertNotSame(stale, pool.acquire());
+        assertTrue(stale.getConnection().isClosed());
+    }
+
+    /**
+     * Test: Check that acquiring from an exhausted pool times out rather than exceeding its size.
+     */
+    @Test
+    public void exhaustedPoolTimesOut() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("test", 1, 50, 60000, 4, new StubFactory());
+        pool.acquire();
+
+        try {
+            pool.acquire();
+            fail("Acquired more connections than the pool size");
+        } catch (SQLTimeoutException ex) {
+            // Expected: the only connection is still handed out.
+        }
+    }
+
+    /**
+     * Test: Check that closing the pool closes its idle connections and refuses to hand out more.
+     */
+    @Test
+    public void closedPoolClosesConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("test", 2, 100, 60000, 4, new StubFactory());
+        PooledConnection idle = pool.acquire();
+        PooledConnection inUse = pool.acquire();
+        pool.release(idle);
+
+        pool.close();
+        assertTrue(idle.getConnection().isClosed());
+
+        pool.release(inUse);
+        assertTrue(inUse.getConnection().isClosed());
+
+        try {
+            pool.acquire();
+            fail("Acquired a connection from a closed pool");
+        } catch (SQLException ex) {
+            // Expected: the pool is closed.
+        }
+    }
+
+    /**
+     * Test: Check that prepared statements are reused on a connection and that the least
+     * recently used one is closed once the cache is full.
+     */
+    @Test
+    public void preparedStatementsAreCached() throws SQLException {
+        ConnectionPool pool = new ConnectionPool("test", 1, 100, 60000, 2, new StubFactory());
+        PooledConnection connection = pool.acquire();
+
+        PreparedStatement first = connection.prepare("SELECT 1");
+        assertSame(first, connection.prepare("SELECT 1"));
+
+        connection.prepare("SELECT 2");
+        connection.prepare("SELECT 3");
+        assertEquals(2, connection.getCachedStatements());
+        assertTrue(first.isClosed());
+
+        // The statements live as long as the connection does.
+        PreparedStatement second = connection.prepare("SELECT 2");
+        pool.discard(connection);
+        assertTrue(second.isClosed());
+    }
+
+    /*
+     * Establishes connections that only track whether they are closed.
+     */
+    private static class StubFactory implements ConnectionFactory {
+
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicBoolean valid = new AtomicBoolean(true);
+
+        @Override
+        public Connection connect() {
+            this.connections.incrementAndGet();
+            return stub(Connection.class);
+        }
+
+        /*
+         * Create a stub of the JDBC interface that supports being closed.
+         */
+        private <T> T stub(Class<T> type) {
+            AtomicBoolean closed = new AtomicBoolean();
+
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[] { type }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            closed.set(true);
+                            return null;
+                        case "isClosed":
+                            return closed.get();
+                        case "isValid":
+                            return this.valid.get() && !closed.get();
+                        case "prepareStatement":
+                            return stub(PreparedStatement.class);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "clearParameters":
+                        case "clearBatch":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }));
+        }
+    }
+}
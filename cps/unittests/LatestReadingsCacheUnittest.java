@@ -0,0 +1,59 @@
+package cps.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import cps.database.LatestReadingsCache;
+import cps.database.SensorsReading;
+import endpoint.sensors.SupportedSensors;
+import network.core.packets.sensors.SensorsData;
+
+/**
+ * The following class hosts several unit tests to verify that the
+ * LatestReadingsCache always holds the most recent reading of a plant.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LatestReadingsCacheUnittest {
+
+    /**
+     * Test: Check that a newer reading replaces the cached one, and an older one does not.
+     */
+    @Test
+    public void olderReadingNeverReplacesNewer() {
+        LatestReadingsCache cache = new LatestReadingsCache();
+        SensorsReading older = new SensorsReading(7, 1000, 1.0, 2.0, 3.0, 4.0);
+        SensorsReading newer = new SensorsReading(7, 2000, 5.0, 6.0, 7.0, 8.0);
+
+        assertNull(cache.get(7));
+
+        cache.update(newer);
+        cache.update(older);
+        assertSame(newer, cache.get(7));
+
+        // Readings of other plants are kept apart.
+        assertNull(cache.get(8));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Test: Check that a cached reading is served with the values it was received with.
+     */
+    @Test
+    public void readingIsServedAsSensorsData() {
+        SensorsData received = new SensorsData();
+        received.addSensorData(SupportedSensors.LIGHT_INTENSITY, 12.5);
+        received.addSensorData(SupportedSensors.SOIL_MOISTURE, 40.0);
+
+        LatestReadingsCache cache = new LatestReadingsCache();
+        cache.update(new SensorsReading(3, 1000, received));
+
+        SensorsData served = cache.get(3).toSensorsData();
+        assertEquals(12.5, served.getSensorData(SupportedSensors.LIGHT_INTENSITY), 0);
+        assertEquals(40.0, served.getSensorData(SupportedSensors.SOIL_MOISTURE), 0);
+        assertEquals(0.0, served.getSensorData(SupportedSensors.AIR_HUMIDITY), 0);
+    }
+}
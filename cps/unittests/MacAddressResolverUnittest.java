@@ -0,0 +1,116 @@
+package cps.unittests;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import cps.accounts.ArpCommandSource;
+import cps.accounts.ArpTableSource;
+import cps.accounts.MacAddressResolver;
+import cps.accounts.ProcNetArpSource;
+
+/**
+ * The following class hosts several unit tests to verify that MAC addresses
+ * are resolved from a cached copy of the ARP table, which is only read again
+ * when the refresh policy calls for it.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MacAddressResolverUnittest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /*
+     * An ARP table held in memory, counting how many times it was read.
+     */
+    private static class CountingSource implements ArpTableSource {
+        private Map<String, String> entries = new HashMap<>();
+        private int reads;
+
+        @Override
+        public Map<String, String> readArpTable() {
+            this.reads++;
+            return new HashMap<>(this.entries);
+        }
+    }
+
+    /**
+     * Test: Check that lookups are served from the cached table, and that an address missing
+     * from it reloads the table only once before it is remembered as missing.
+     */
+    @Test
+    public void missingAddressesAreCachedNegatively() throws IOException {
+        CountingSource source = new CountingSource();
+        source.entries.put("192.168.1.5", "aa:bb:cc:dd:ee:05");
+
+        MacAddressResolver resolver = new MacAddressResolver(source, 60000, 0, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("aa:bb:cc:dd:ee:05", resolver.resolve("192.168.1.5"));
+        }
+
+        assertEquals(1, source.reads);
+
+        // The first miss reloads the table, the rest are answered from the negative cache.
+        for (int i = 0; i < 100; i++) {
+            assertNull(resolver.resolve("192.168.1.9"));
+        }
+
+        assertEquals(2, source.reads);
+    }
+
+    /**
+     * Test: Check that /proc/net/arp is parsed by column, skipping incomplete entries and
+     * never confusing an address with one it is a prefix of.
+     */
+    @Test
+    public void procNetArpEntriesAreParsed() throws IOException {
+        File table = this.folder.newFile("arp");
+        try (FileWriter writer = new FileWriter(table)) {
+            writer.write("IP address       HW type     Flags       HW address            Mask     Device\n");
+            writer.write("192.168.1.10     0x1         0x2         aa:bb:cc:dd:ee:10     *        eth0\n");
+            writer.write("192.168.1.1      0x1         0x2         aa:bb:cc:dd:ee:01     *        eth0\n");
+            writer.write("192.168.1.7      0x1         0x0         00:00:00:00:00:00     *        eth0\n");
+        }
+
+        Map<String, String> entries = new ProcNetArpSource(table).readArpTable();
+
+        assertEquals(2, entries.size());
+        assertEquals("aa:bb:cc:dd:ee:01", entries.get("192.168.1.1"));
+        assertEquals("aa:bb:cc:dd:ee:10", entries.get("192.168.1.10"));
+        assertNull(entries.get("192.168.1.7"));
+    }
+
+    /**
+     * Test: Check that the output of "arp -a" is parsed on both Linux and macOS, skipping
+     * the entries that either of them prints as incomplete.
+     */
+    @Test
+    public void arpCommandEntriesAreParsed() {
+        String output = "? (192.168.1.1) at aa:bb:cc:dd:ee:01 [ether] on eth0\n"
+            + "? (192.168.1.7) at <incomplete> on eth0\n"
+            + "? (192.168.1.20) at 0:1b:63:84:45:e6 on en0 ifscope [ethernet]\n"
+            + "? (192.168.1.21) at (incomplete) on en0 ifscope [ethernet]\n";
+
+        Map<String, String> entries = ArpCommandSource.parse(
+            new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, entries.size());
+        assertEquals("aa:bb:cc:dd:ee:01", entries.get("192.168.1.1"));
+        assertEquals("0:1b:63:84:45:e6", entries.get("192.168.1.20"));
+        assertNull(entries.get("192.168.1.7"));
+        assertNull(entries.get("192.168.1.21"));
+    }
+}
@@ -0,0 +1,118 @@
+package cps.unittests;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import cps.database.SensorsReading;
+import cps.database.exceptions.SmartgrowDatabaseException;
+import cps.storage.AccountsStorage;
+import cps.storage.FileAccountsStorage;
+import cps.storage.MemoryAccountsStorage;
+import cps.storage.MemorySensorsStorage;
+
+/**
+ * The following class hosts several unit tests to verify that the storage
+ * backends that run without a database keep what they are given: the
+ * memory storages while the server runs, and the accounts file across
+ * restarts.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class StorageUnittest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test: Check that the memory storage keeps the most recent readings of every plant,
+     * and returns them in the order they were taken.
+     */
+    @Test
+    public void memorySensorsStorageKeepsRecentReadings() {
+        MemorySensorsStorage storage = new MemorySensorsStorage(3);
+
+        // The reading taken at 100 arrives late, after the latest one.
+        storage.insertSensorsData(Arrays.asList(
+            new SensorsReading(1, 0, 0, 0, 0, 0),
+            new SensorsReading(1, 200, 2, 2, 2, 2),
+            new SensorsReading(1, 300, 3, 3, 3, 3),
+            new SensorsReading(1, 100, 1, 1, 1, 1),
+            new SensorsReading(2, 50, 5, 5, 5, 5)));
+
+        // The reading taken at 0 arrived first, and was dropped for the late one.
+        List<SensorsReading> readings = storage.getReadings(1, 0, 1000);
+        assertEquals(3, readings.size());
+        assertEquals(100, readings.get(0).getTimeTaken());
+        assertEquals(200, readings.get(1).getTimeTaken());
+        assertEquals(300, readings.get(2).getTimeTaken());
+
+        assertEquals(300, storage.getLatestReading(1).getTimeTaken());
+        assertEquals(1, storage.getReadings(2, 0, 1000).size());
+        assertNull(storage.getLatestReading(3));
+    }
+
+    /**
+     * Test: Check that the memory storage assigns every MAC address an id of its own, and
+     * the same id every time.
+     */
+    @Test
+    public void memoryAccountsStorageAssignsStableIds() {
+        MemoryAccountsStorage storage = new MemoryAccountsStorage();
+
+        assertEquals(AccountsStorage.ACCOUNT_DOES_NOT_EXIST, storage.getLeafId("aa:aa:aa:aa:aa:aa"));
+        assertEquals(1, storage.getOrCreateLeafId("aa:aa:aa:aa:aa:aa"));
+        assertEquals(2, storage.getOrCreateLeafId("bb:bb:bb:bb:bb:bb"));
+        assertEquals(1, storage.getOrCreateLeafId("aa:aa:aa:aa:aa:aa"));
+        assertEquals(2, storage.getLeafId("bb:bb:bb:bb:bb:bb"));
+        assertEquals(AccountsStorage.ACCOUNT_DOES_NOT_EXIST, storage.getOrCreateLeafId(null));
+    }
+
+    /**
+     * Test: Check that the accounts file gives leaves the ids they had before the storage
+     * was reopened, and skips an account cut short by a crash.
+     */
+    @Test
+    public void fileAccountsSurviveReopening() throws IOException, SmartgrowDatabaseException {
+        File path = new File(this.folder.getRoot(), "leaf_accounts");
+
+        FileAccountsStorage storage = new FileAccountsStorage(path);
+        assertEquals(1, storage.getOrCreateLeafId("aa:aa:aa:aa:aa:aa"));
+        assertEquals(2, storage.getOrCreateLeafId("bb:bb:bb:bb:bb:bb"));
+        storage.close();
+
+        // A crash while appending the third account left half of its line behind.
+        try (FileOutputStream torn = new FileOutputStream(path, true)) {
+            torn.write("3 cc:cc".getBytes(StandardCharsets.UTF_8));
+        }
+
+        storage = new FileAccountsStorage(path);
+        try {
+            assertEquals(1, storage.getLeafId("aa:aa:aa:aa:aa:aa"));
+            assertEquals(2, storage.getLeafId("bb:bb:bb:bb:bb:bb"));
+            assertEquals(AccountsStorage.ACCOUNT_DOES_NOT_EXIST, storage.getLeafId("3 cc:cc"));
+            assertEquals(AccountsStorage.ACCOUNT_DOES_NOT_EXIST, storage.getLeafId("cc:cc"));
+            assertEquals(3, storage.getOrCreateLeafId("cc:cc:cc:cc:cc:cc"));
+        } finally {
+            storage.close();
+        }
+
+        storage = new FileAccountsStorage(path);
+        try {
+            assertEquals(3, storage.getLeafId("cc:cc:cc:cc:cc:cc"));
+            assertEquals(4, storage.getOrCreateLeafId("dd:dd:dd:dd:dd:dd"));
+        } finally {
+            storage.close();
+        }
+    }
+}
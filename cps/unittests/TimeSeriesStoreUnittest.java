@@ -0,0 +1,224 @@
+package cps.unittests;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import cps.database.SensorsReading;
+import cps.database.timeseries.TimeSeriesStore;
+
+/**
+ * The following class hosts several unit tests to verify that the embedded
+ * time-series store returns exactly the readings appended to it, across
+ * blocks, partitions, and reopening the store.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class TimeSeriesStoreUnittest {
+
+    // The partition length used by the tests, short enough for readings to span several.
+    private static final long PARTITION_MS = 100000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /*
+     * Create the readings of the plant taken every 100 milliseconds, valued after their index.
+     */
+    private List<SensorsReading> createReadings(int plantId, int count) {
+        List<SensorsReading> readings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            readings.add(new SensorsReading(plantId, i * 100L, i, i + 0.25, i + 0.5, i + 0.75));
+        }
+
+        return readings;
+    }
+
+    /**
+     * Test: Check that range scans return every reading in the range, in order, across many
+     * blocks and partitions, and only those of the requested plant.
+     */
+    @Test
+    public void rangeScansSpanBlocksAndPartitions() throws IOException {
+        TimeSeriesStore store = new TimeSeriesStore(this.folder.newFolder("store"), PARTITION_MS);
+        try {
+            store.append(this.createReadings(1, 5000));
+            store.append(this.createReadings(2, 10));
+
+            // Readings 1000 to 3999 are spread over blocks of two partitions.
+            List<SensorsReading> readings = store.getReadings(1, 100000, 400000);
+            assertEquals(3000, readings.size());
+            for (int i = 0; i < readings.size(); i++) {
+                SensorsReading reading = readings.get(i);
+                assertEquals(1, reading.getPlantId());
+                assertEquals((1000 + i) * 100L, reading.getTimeTaken());
+                assertEquals(1000 + i + 0.75, reading.getSoilMoisture(), 0);
+            }
+
+            assertEquals(10, store.getReadings(2, 0, Long.MAX_VALUE).size());
+            assertEquals(0, store.getReadings(3, 0, Long.MAX_VALUE).size());
+            assertNull(store.getLatestReading(3));
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Test: Check that a reopened store holds everything committed before, finds the latest
+     * reading even when readings arrived out of order, and drops a block whose header never
+     * made it to disk.
+     */
+    @Test
+    public void reopenedStoreRecoversCommittedReadings() throws IOException {
+        File directory = this.folder.newFolder("store");
+
+        // A single partition, holding a full block of 1024 readings and 477 in the next.
+        TimeSeriesStore store = new TimeSeriesStore(directory, 1000000);
+        store.append(this.createReadings(7, 1500));
+        store.append(new SensorsReading(7, 50, 1, 2, 3, 4));
+
+        assertEquals(149900, store.getLatestReading(7).getTimeTaken());
+        store.close();
+
+        // Wipe the header of the second block, which follows a 24 byte header and five columns.
+        File segment = new File(new File(directory, "plant-7"), "0.seg");
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(24 + 5 * 1024 * 8);
+            file.writeInt(0);
+        }
+
+        store = new TimeSeriesStore(directory, 1000000);
+        try {
+            assertEquals(1024, store.getReadings(7, 0, Long.MAX_VALUE).size());
+            assertEquals(102300, store.getLatestReading(7).getTimeTaken());
+
+            // Appending carries on after the last committed reading.
+            store.append(new SensorsReading(7, 200000, 5, 6, 7, 8));
+            assertEquals(200000, store.getLatestReading(7).getTimeTaken());
+            assertEquals(8, store.getLatestReading(7).getSoilMoisture(), 0);
+            assertEquals(1025, store.getReadings(7, 0, Long.MAX_VALUE).size());
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Test: Check that reading a plant that was never written to leaves nothing on disk, and
+     * that a closed store rejects every call.
+     */
+    @Test
+    public void readsOfUnknownPlantsAndClosedStore() throws IOException {
+        File directory = this.folder.newFolder("store");
+        TimeSeriesStore store = new TimeSeriesStore(directory, PARTITION_MS);
+        store.append(this.createReadings(1, 10));
+
+        assertEquals(0, store.getReadings(2, 0, Long.MAX_VALUE).size());
+        assertNull(store.getLatestReading(2));
+        assertFalse(new File(directory, "plant-2").exists());
+
+        store.close();
+        store.close();
+
+        try {
+            store.getReadings(1, 0, Long.MAX_VALUE);
+            fail("Read from a closed store");
+        } catch (IOException ex) {
+            // Expected: the store is closed.
+        }
+
+        try {
+            store.append(this.createReadings(3, 1));
+            fail("Appended to a closed store");
+        } catch (IOException ex) {
+            // Expected: nothing is written once the store is closed.
+        }
+
+        assertFalse(new File(directory, "plant-3").exists());
+    }
+
+    /**
+     * Test: Check that reads interleaved with appends see every new reading, in a segment
+     * large enough to be mapped a window of blocks at a time.
+     */
+    @Test
+    public void readsFollowAppendsAcrossMappedWindows() throws IOException {
+        TimeSeriesStore store = new TimeSeriesStore(this.folder.newFolder("store"), Long.MAX_VALUE);
+        try {
+
+            // 70000 readings fill the 64 blocks of the first window and spill into the second.
+            List<SensorsReading> readings = this.createReadings(5, 70000);
+            for (int batch = 0; batch < 70; batch++) {
+                store.append(readings.subList(batch * 1000, (batch + 1) * 1000));
+
+                assertEquals((batch * 1000 + 999) * 100L, store.getLatestReading(5).getTimeTaken());
+                assertEquals(1000, store.getReadings(5, batch * 100000L, (batch + 1) * 100000L).size());
+            }
+
+            List<SensorsReading> stored = store.getReadings(5, 0, Long.MAX_VALUE);
+            assertEquals(70000, stored.size());
+            for (int i = 0; i < stored.size(); i++) {
+                assertEquals(i * 100L, stored.get(i).getTimeTaken());
+                assertEquals(i + 0.25, stored.get(i).getAirHumidity(), 0);
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Test: Check that an append racing close() fails once the store is closed, rather than
+     * reopening a segment behind it. The append is made through the series of the plant as
+     * the store handed it out before closing, which is where such an append would be waiting.
+     */
+    @Test
+    public void appendThroughSeriesLookedUpBeforeClose() throws Exception {
+        File directory = this.folder.newFolder("store");
+        TimeSeriesStore store = new TimeSeriesStore(directory, PARTITION_MS);
+        store.append(this.createReadings(1, 10));
+
+        // The series are package-private to the store, so they are reached reflectively.
+        Field seriesField = TimeSeriesStore.class.getDeclaredField("series");
+        seriesField.setAccessible(true);
+        Object series = ((Map<?, ?>) seriesField.get(store)).get(1);
+
+        Method append = series.getClass().getDeclaredMethod("append", long[].class, double[][].class, int.class);
+        append.setAccessible(true);
+
+        File segment = new File(new File(directory, "plant-1"), "0.seg");
+        long length = segment.length();
+        store.close();
+
+        try {
+            append.invoke(series, new long[] { 2000 }, new double[4][1], 1);
+            fail("Appended to a closed series");
+        } catch (InvocationTargetException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+
+        assertEquals(length, segment.length());
+
+        // Reopening the store finds only what was appended before it was closed.
+        store = new TimeSeriesStore(directory, PARTITION_MS);
+        try {
+            assertEquals(10, store.getReadings(1, 0, Long.MAX_VALUE).size());
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -23,8 +23,6 @@ import java.util.*;
 
 import logging.SmartLog;
 
-import network.core.exceptions.CorruptPacketException;
-import network.core.packets.Acknowledgement;
 import network.core.packets.sensors.SensorsData;
 import network.core.OpCodes;
 import network.leaf.Identity;
@@ -157,17 +155,9 @@ public class ArduinoPiSerialConnection extends Thread {
 					data.addSensorData(SupportedSensors.LIGHT_INTENSITY, lightData);
 					data.addSensorData(SupportedSensors.SOIL_MOISTURE, soilData);
 
-					// Dispatch the packet to the server.
-					this.leaf.send(data);
-
-					// Wait for an acknowledgement packet for the sensor packet we sent.
-					if (!(this.leaf.receive() instanceof Acknowledgement)) {
-						logger.fatal("Received a packet that was not acknowledgement!");
-						System.exit(1);
-					} else {
-						logger.info("Received acknowledgement packet from server!");
-					}
-				} catch (IOException | CorruptPacketException |InterruptedException e) {
+					// Dispatch the packet to the server. The leaf retransmits it until the server acknowledges it.
+					this.leaf.sendReliably(data);
+				} catch (IOException | InterruptedException e) {
 					e.printStackTrace();
 					System.exit(1);
 				}
@@ -3,10 +3,10 @@ package endpoint.simulation;
 import java.io.IOException;
 import java.net.SocketException;
 
+import config.SmartGrowConfiguration;
 import endpoint.sensors.SupportedSensors;
+import logging.LogSampler;
 import logging.SmartLog;
-import network.core.exceptions.CorruptPacketException;
-import network.core.packets.Acknowledgement;
 import network.core.packets.sensors.SensorsData;
 import network.leaf.Identity;
 import network.leaf.Leaf;
@@ -24,6 +24,9 @@ public class SimulatedPlantEndpoint extends Thread {
     // The logger instance for this class
     private static SmartLog logger = new SmartLog(SimulatedPlantEndpoint.class.getName());
 
+    // Thins out the log message written for every packet.
+    private static LogSampler packetSampler = LogSampler.perSecond(SmartGrowConfiguration.PACKET_LOGS_PER_SECOND);
+
     // The sinusoidal maxiumum parameters
     private final int SIMULATION_AMPLITUDE_MAX = 3;
     private final int SIMULATION_CYCLE_MAX = 30;
@@ -113,20 +116,13 @@ public class SimulatedPlantEndpoint extends Thread {
                 data.addSensorData(SupportedSensors.LIGHT_INTENSITY, getSimulatedValue(this.light_intensity));
                 data.addSensorData(SupportedSensors.SOIL_MOISTURE, getSimulatedValue(this.soil_moisture));
 
-                logger.info("Sending SensorsData packet: " + data);
+                logger.info(packetSampler, () -> "Sending SensorsData packet: " + data);
 
-                // Dispatch the packet to the server.
-                this.leaf.send(data);
+                // Dispatch the packet to the server, which retransmits it until acknowledged
+                // without holding up the next reading.
+                this.leaf.sendReliably(data);
 
-                // Wait for an acknowledgement packet for the sensor packet we sent.
-                if (!(this.leaf.receive() instanceof Acknowledgement)) {
-                    logger.fatal("Received a packet that was not acknowledgement!");
-                    System.exit(1);
-                } else {
-                    logger.info("Received acknowledgement packet from server!");
-                }
-                
-            } catch (InterruptedException | CorruptPacketException | IOException ex) {
+            } catch (InterruptedException | IOException ex) {
                 logger.fatal("Plant endpoint simulation encountered error: " + ex.getMessage());
                 System.exit(1);
             }
@@ -0,0 +1,195 @@
+package logging;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import logging.threads.LogWriterThread;
+
+/**
+ * LogDispatcher takes log records off the hands of the threads that log
+ * them and writes them to the console in batches from a background thread.
+ * Logging a message only costs the caller an insertion into a lock-free
+ * ring; formatting and writing happen on the writer thread.
+ *
+ * Records that do not fit in a full ring are dropped and counted rather
+ * than blocking the caller. Fatal records are never dropped: they are
+ * written, along with everything logged before them, before the call
+ * that logged them returns.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public final class LogDispatcher {
+
+    // The number of records that may wait to be written.
+    private static final int RING_CAPACITY = 8192;
+
+    // The single dispatcher shared by every SmartLog.
+    private static final LogDispatcher INSTANCE = new LogDispatcher();
+
+    // The records waiting to be written and the number of records dropped since the last write.
+    private LogRingBuffer ring;
+    private AtomicLong dropped;
+
+    // The thread writing the published records.
+    private LogWriterThread writer;
+
+    // Guards the consumer side of the ring, and everything below, so that records are written in order.
+    private final Object writeLock;
+
+    // The formatter for timestamps, the second it last formatted, and what it formatted it to.
+    private SimpleDateFormat secondsFormat;
+    private long cachedSecond;
+    private String cachedSeconds;
+
+    // The batch of formatted records being written.
+    private StringBuilder batch;
+
+    /*
+     * Initialize the dispatcher and start its writer thread.
+     */
+    private LogDispatcher() {
+        this.ring = new LogRingBuffer(RING_CAPACITY);
+        this.dropped = new AtomicLong();
+        this.writeLock = new Object();
+        this.secondsFormat = new SimpleDateFormat("HH:mm:ss");
+        this.cachedSecond = -1;
+        this.batch = new StringBuilder();
+
+        this.writer = new LogWriterThread(this);
+
+        // Write whatever is still waiting when the process exits.
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "SmartLog-ShutdownHook"));
+    }
+
+    /**
+     * Retrieve the dispatcher shared by every SmartLog.
+     *
+     * @return The log dispatcher
+     */
+    public static LogDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Hand the record over to be written by the writer thread. Never blocks.
+     *
+     * @param record The record to write
+     */
+    void publish(LogRecord record) {
+        if (!this.ring.offer(record)) {
+            this.dropped.incrementAndGet();
+        }
+
+        this.writer.wakeUp();
+    }
+
+    /**
+     * Write the record, and every record published before it, before returning.
+     *
+     * @param record The record to write
+     */
+    void publishAndFlush(LogRecord record) {
+        synchronized (this.writeLock) {
+            this.drainRing();
+            this.append(record);
+            this.writeBatch();
+        }
+    }
+
+    /**
+     * Write every record that has been published so far.
+     */
+    public void flush() {
+        synchronized (this.writeLock) {
+            this.drainRing();
+            this.writeBatch();
+        }
+    }
+
+    /**
+     * Write a batch of the published records. Invoked repeatedly by the writer thread.
+     *
+     * @return The number of records written
+     */
+    public int drain() {
+        synchronized (this.writeLock) {
+            int written = this.drainRing();
+            this.writeBatch();
+            return written;
+        }
+    }
+
+    /*
+     * Format every published record into the batch.
+     */
+    private int drainRing() {
+        int drained = 0;
+
+        // Let the reader know about the messages that never made it into the ring.
+        long lost = this.dropped.getAndSet(0);
+        if (lost > 0) {
+            this.append(new LogRecord(System.currentTimeMillis(), Thread.currentThread().getName(),
+                "WARNING", LogDispatcher.class.getName(), "Dropped " + lost + " log messages"));
+        }
+
+        LogRecord record = null;
+        while ((record = this.ring.poll()) != null) {
+            this.append(record);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /*
+     * Format the record into the batch.
+     */
+    private void append(LogRecord record) {
+        // Every line reads "<timestamp> [<thread>, <level>] <class>: <message>".
+        this.appendTimestamp(record.timestamp);
+        this.batch.append(" [").append(record.threadName)
+            .append(", ").append(record.level)
+            .append("] ").append(record.className)
+            .append(": ").append(record.message)
+            .append('\n');
+    }
+
+    /*
+     * Format the timestamp into the batch. Only the milliseconds change between most
+     * consecutive records, so the rest is formatted once per second.
+     */
+    private void appendTimestamp(long timestamp) {
+        long second = timestamp / 1000;
+        if (second != this.cachedSecond) {
+            this.cachedSeconds = this.secondsFormat.format(new Date(timestamp));
+            this.cachedSecond = second;
+        }
+
+        int millis = (int)(timestamp % 1000);
+        this.batch.append(this.cachedSeconds).append('.');
+        if (millis < 100) {
+            this.batch.append('0');
+        }
+        if (millis < 10) {
+            this.batch.append('0');
+        }
+        this.batch.append(millis);
+    }
+
+    /*
+     * Write the formatted batch to the console in one go.
+     */
+    private void writeBatch() {
+        if (this.batch.length() == 0) {
+            return;
+        }
+
+        PrintStream out = System.out;
+        out.print(this.batch);
+        out.flush();
+        this.batch.setLength(0);
+    }
+}
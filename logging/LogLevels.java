@@ -0,0 +1,150 @@
+package logging;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import logging.SmartLog.LoggingLevel;
+import logging.threads.LogLevelWatcherThread;
+
+/**
+ * LogLevels holds the logging level of every logger, which can be changed
+ * while the process is running.
+ *
+ * A level may be set for a class or for a whole package: a logger takes the
+ * level of the longest name that its class name starts with, or the default
+ * level if there is none. Every change bumps a generation counter, which
+ * SmartLog instances compare against to know when to look their level up
+ * again, so checking the level of a message stays a single volatile read.
+ *
+ * If the smartlog.levels system property names a properties file, the
+ * levels are loaded from it and reloaded whenever it changes. Every entry
+ * of the file maps a class or package name to a level, and the entry named
+ * "default" sets the default level.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public final class LogLevels {
+
+    // The system property naming the file that the levels are loaded from.
+    public static final String LEVELS_FILE_PROPERTY = "smartlog.levels";
+
+    // The key of the default level in the levels file.
+    private static final String DEFAULT_KEY = "default";
+
+    // The levels set for classes and packages, and the level of every other logger.
+    private static final Map<String, LoggingLevel> levels = new ConcurrentHashMap<>();
+    private static volatile LoggingLevel defaultLevel = LoggingLevel.INFO;
+
+    // Bumped whenever a level changes.
+    private static volatile int generation;
+
+    static {
+        String path = System.getProperty(LEVELS_FILE_PROPERTY);
+        if (path != null) {
+            new LogLevelWatcherThread(new File(path));
+        }
+    }
+
+    private LogLevels() {
+    }
+
+    /**
+     * Set the level of every logger whose class name starts with the name.
+     *
+     * @param name The name of a class or package
+     * @param level The minimum level of the messages to log, or null to fall back to the default
+     */
+    public static synchronized void setLevel(String name, LoggingLevel level) {
+        if (level == null) {
+            levels.remove(name);
+        } else {
+            levels.put(name, level);
+        }
+
+        generation++;
+    }
+
+    /**
+     * Set the level of the loggers that have no level of their own.
+     *
+     * @param level The minimum level of the messages to log
+     */
+    public static synchronized void setDefaultLevel(LoggingLevel level) {
+        defaultLevel = level;
+        generation++;
+    }
+
+    /**
+     * Replace every level with the ones found in the properties.
+     *
+     * @param properties The levels keyed by class or package name, and the default level
+     * @throws IllegalArgumentException If a level is not recognized, in which case nothing changes
+     */
+    public static synchronized void load(Properties properties) {
+        Map<String, LoggingLevel> loaded = new ConcurrentHashMap<>();
+        LoggingLevel loadedDefault = LoggingLevel.INFO;
+
+        // Parse everything first, so that a mistake in the file leaves the current levels in place.
+        for (String name : properties.stringPropertyNames()) {
+            LoggingLevel level = LoggingLevel.valueOf(properties.getProperty(name).trim().toUpperCase());
+            if (name.equals(DEFAULT_KEY)) {
+                loadedDefault = level;
+            } else {
+                loaded.put(name, level);
+            }
+        }
+
+        levels.clear();
+        levels.putAll(loaded);
+        defaultLevel = loadedDefault;
+        generation++;
+    }
+
+    /**
+     * Replace every level with the ones found in the properties file.
+     *
+     * @param file The levels file
+     * @throws IOException If the file could not be read
+     */
+    public static void load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+        }
+
+        load(properties);
+    }
+
+    /*
+     * Retrieve the generation of the levels, which changes whenever a level does.
+     */
+    static int getGeneration() {
+        return generation;
+    }
+
+    /*
+     * Retrieve the level of the logger of the class.
+     */
+    static LoggingLevel getLevel(String className) {
+        LoggingLevel level = null;
+        int matched = -1;
+
+        // The most specific name wins. Names only match at a package or class boundary.
+        for (Map.Entry<String, LoggingLevel> entry : levels.entrySet()) {
+            String name = entry.getKey();
+            if (name.length() > matched && className.startsWith(name)
+                    && (className.length() == name.length() || className.charAt(name.length()) == '.')) {
+                level = entry.getValue();
+                matched = name.length();
+            }
+        }
+
+        return level == null ? defaultLevel : level;
+    }
+}
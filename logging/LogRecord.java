@@ -0,0 +1,37 @@
+package logging;
+
+/**
+ * LogRecord captures everything about a log message at the moment it is
+ * logged, so that it can be formatted and written later by another thread.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+final class LogRecord {
+
+    // When, where, and how severely the message was logged.
+    final long timestamp;
+    final String threadName;
+    final String level;
+    final String className;
+
+    // The message itself.
+    final String message;
+
+    /**
+     * Capture the log message.
+     *
+     * @param timestamp Epoch time (in milliseconds) when the message was logged
+     * @param threadName The name of the thread that logged the message
+     * @param level The name of the logging level of the message
+     * @param className The class that logged the message
+     * @param message The message
+     */
+    LogRecord(long timestamp, String threadName, String level, String className, String message) {
+        this.timestamp = timestamp;
+        this.threadName = threadName;
+        this.level = level;
+        this.className = className;
+        this.message = message;
+    }
+}
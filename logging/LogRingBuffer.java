@@ -0,0 +1,104 @@
+package logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LogRingBuffer is a bounded, lock-free ring of log records. Any number of
+ * threads may offer records concurrently without blocking each other, while
+ * a single consumer at a time polls them in the order they were claimed.
+ *
+ * Every slot carries a sequence number that tells producers and the consumer
+ * whose turn it is: a slot is free for the producer that claimed position p
+ * when its sequence is p, and holds a record for the consumer when its
+ * sequence is p + 1.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+final class LogRingBuffer {
+
+    // The records in the ring and the sequence number of every slot.
+    private final LogRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // The next position to be claimed by a producer.
+    private final AtomicLong tail;
+
+    // The next position to be polled by the consumer.
+    private long head;
+
+    /**
+     * Initialize an empty ring.
+     *
+     * @param capacity The number of records the ring holds. Must be a power of two.
+     */
+    LogRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two");
+        }
+
+        this.slots = new LogRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.tail = new AtomicLong();
+
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add the record to the ring. Never blocks.
+     *
+     * @param record The record to add
+     * @return True if the record was added, false if the ring is full
+     */
+    boolean offer(LogRecord record) {
+        long position = this.tail.get();
+
+        while (true) {
+            int slot = (int)(position & this.mask);
+            long available = this.sequences.get(slot) - position;
+
+            if (available == 0) {
+
+                // The slot is free: claim the position, fill the slot, then publish it.
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.slots[slot] = record;
+                    this.sequences.set(slot, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+
+                // The consumer has not freed the slot from the previous lap yet.
+                return false;
+            }
+
+            // Another producer claimed the position first.
+            position = this.tail.get();
+        }
+    }
+
+    /**
+     * Remove the oldest published record from the ring. Must not be called by
+     * more than one thread at a time.
+     *
+     * @return The oldest record, or null if there is none.
+     */
+    LogRecord poll() {
+        int slot = (int)(this.head & this.mask);
+        if (this.sequences.get(slot) != this.head + 1) {
+            return null;
+        }
+
+        LogRecord record = this.slots[slot];
+        this.slots[slot] = null;
+
+        // Free the slot for the producer one lap ahead.
+        this.sequences.set(slot, this.head + this.slots.length);
+        this.head++;
+        return record;
+    }
+}
@@ -0,0 +1,105 @@
+package logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LogSampler thins out the messages of a call site that logs on every
+ * packet, so that the volume of the log does not grow with the packet
+ * rate. A sampler either lets through one in every N messages, or at
+ * most N messages every second.
+ *
+ * Messages that are not let through are counted, and the count is
+ * appended to the next message that is.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public final class LogSampler {
+
+    // Whether the sampler limits messages per second rather than keeping one in N.
+    private final boolean perSecond;
+    private final int limit;
+
+    // The number of messages seen (one in N), or let through in the current second (per second).
+    private final AtomicLong count;
+
+    // The second that the per-second count belongs to.
+    private final AtomicLong window;
+
+    // The number of messages held back since the last one that was let through.
+    private final AtomicInteger suppressed;
+
+    /*
+     * Initialize the sampler.
+     */
+    private LogSampler(boolean perSecond, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The sampling limit must be positive");
+        }
+
+        this.perSecond = perSecond;
+        this.limit = limit;
+        this.count = new AtomicLong();
+        this.window = new AtomicLong(-1);
+        this.suppressed = new AtomicInteger();
+    }
+
+    /**
+     * Create a sampler that lets through one in every n messages, starting with the first.
+     *
+     * @param n The number of messages for every message let through
+     * @return The sampler
+     */
+    public static LogSampler oneIn(int n) {
+        return new LogSampler(false, n);
+    }
+
+    /**
+     * Create a sampler that lets through at most max messages every second.
+     *
+     * @param max The number of messages let through every second
+     * @return The sampler
+     */
+    public static LogSampler perSecond(int max) {
+        return new LogSampler(true, max);
+    }
+
+    /**
+     * Decide whether the next message is let through.
+     *
+     * @return True if the message should be logged
+     */
+    public boolean sample() {
+        boolean sampled = false;
+
+        if (this.perSecond) {
+            long second = System.currentTimeMillis() / 1000;
+            long current = this.window.get();
+
+            // The first message of a new second starts counting from zero again.
+            if (current != second && this.window.compareAndSet(current, second)) {
+                this.count.set(0);
+            }
+
+            sampled = this.count.incrementAndGet() <= this.limit;
+        } else {
+            sampled = this.count.getAndIncrement() % this.limit == 0;
+        }
+
+        if (!sampled) {
+            this.suppressed.incrementAndGet();
+        }
+
+        return sampled;
+    }
+
+    /**
+     * Retrieve and reset the number of messages held back since the last one that was let through.
+     *
+     * @return The number of suppressed messages
+     */
+    public int takeSuppressed() {
+        return this.suppressed.getAndSet(0);
+    }
+}
@@ -0,0 +1,18 @@
+package logging;
+
+/**
+ * MessageSupplier builds a log message on demand, so that callers do not
+ * pay for building messages that are filtered out by the logging level.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface MessageSupplier {
+
+    /**
+     * Build the log message.
+     *
+     * @return The log message
+     */
+    String get();
+}
@@ -1,13 +1,19 @@
 package logging;
 
-import java.util.Calendar;
-import java.text.SimpleDateFormat;
-
 /**
  * SmartLog is a lightweight logging library implemented for the purposes of
  * the SmartGrow System. An existing logging library was initially adopted (log4j2)
  * but it had issues with running successfully on android.
- * 
+ *
+ * Messages are written asynchronously by the LogDispatcher, so logging never
+ * waits on the console. Fatal messages are the exception: they are written
+ * before the call that logs them returns, since the process may not survive
+ * much longer.
+ *
+ * The level of every logger can be changed while the process runs through
+ * LogLevels, and call sites that log on every packet can be thinned out
+ * with a LogSampler.
+ *
  * @author Ahmed Sakr
  * @since November 14, 2019
  */
@@ -16,11 +22,8 @@ public class SmartLog {
     // The class that we are logging for as their agent
     private String className;
 
-    // The log format for all messages
-    private static String LOG_FORMAT = "%s [%s, %s] %s: %s\n";
-
     // Supported logging levels by the SmartLog library
-    private static enum LoggingLevel {
+    public static enum LoggingLevel {
         DEBUG,
         INFO,
         WARNING,
@@ -28,16 +31,42 @@ public class SmartLog {
         FATAL;
     };
 
-    // The minimum logging level that logs must have to appear.
-    private LoggingLevel CURRENT_LOGGING_LEVEL = SmartLog.LoggingLevel.INFO;
+    // The minimum logging level that logs must have to appear, and the generation of
+    // LogLevels that it was looked up in.
+    private volatile LoggingLevel currentLevel;
+    private volatile int levelGeneration;
 
     /**
      * Initialize the SmartLog object with the class that we are logging for.
-     * 
+     *
      * @param class The class we are logging for
      */
     public SmartLog(String className) {
         this.className = className;
+        this.refreshLevel();
+    }
+
+    /**
+     * Check whether messages of the level are currently logged.
+     *
+     * @param level The logging level
+     * @return True if messages of the level appear in the log
+     */
+    public boolean isEnabled(LoggingLevel level) {
+
+        // Look the level up again only after it has been changed.
+        if (this.levelGeneration != LogLevels.getGeneration()) {
+            this.refreshLevel();
+        }
+
+        return this.currentLevel.ordinal() <= level.ordinal();
+    }
+
+    /**
+     * Write every message that has been logged so far before returning.
+     */
+    public static void flush() {
+        LogDispatcher.getInstance().flush();
     }
 
     /*
@@ -69,6 +98,15 @@ public class SmartLog {
         this.log(LoggingLevel.FATAL, message);
     }
 
+    /**
+     * Log a fatal message to the console, building it only if fatal messages are logged.
+     *
+     * @param message Builds the fatal message
+     */
+    public void fatal(MessageSupplier message) {
+        this.log(LoggingLevel.FATAL, message);
+    }
+
     /**
      * Log an error message to the console.
      *
@@ -78,6 +116,15 @@ public class SmartLog {
         this.log(LoggingLevel.ERROR, message);
     }
 
+    /**
+     * Log an error message to the console, building it only if error messages are logged.
+     *
+     * @param message Builds the error message
+     */
+    public void error(MessageSupplier message) {
+        this.log(LoggingLevel.ERROR, message);
+    }
+
     /**
      * Log a warning message to the console.
      *
@@ -87,6 +134,15 @@ public class SmartLog {
         this.log(LoggingLevel.WARNING, message);
     }
 
+    /**
+     * Log a warning message to the console, building it only if warnings are logged.
+     *
+     * @param message Builds the warning message
+     */
+    public void warn(MessageSupplier message) {
+        this.log(LoggingLevel.WARNING, message);
+    }
+
     /**
      * Log an informational message to the system.
      *
@@ -96,6 +152,16 @@ public class SmartLog {
         this.log(LoggingLevel.INFO, message);
     }
 
+    /**
+     * Log an informational message to the system, building it only if informational
+     * messages are logged.
+     *
+     * @param message Builds the information message
+     */
+    public void info(MessageSupplier message) {
+        this.log(LoggingLevel.INFO, message);
+    }
+
     /**
      * Log a debug message to the system.
      *
@@ -105,20 +171,96 @@ public class SmartLog {
         this.log(LoggingLevel.DEBUG, message);
     }
 
+    /**
+     * Log a debug message to the system, building it only if debug messages are logged.
+     *
+     * @param message Builds the debug message
+     */
+    public void debug(MessageSupplier message) {
+        this.log(LoggingLevel.DEBUG, message);
+    }
+
+    /**
+     * Log an informational message if the sampler lets it through, building it only then.
+     *
+     * @param sampler The sampler of the call site
+     * @param message Builds the information message
+     */
+    public void info(LogSampler sampler, MessageSupplier message) {
+        this.log(LoggingLevel.INFO, sampler, message);
+    }
+
+    /**
+     * Log a debug message if the sampler lets it through, building it only then.
+     *
+     * @param sampler The sampler of the call site
+     * @param message Builds the debug message
+     */
+    public void debug(LogSampler sampler, MessageSupplier message) {
+        this.log(LoggingLevel.DEBUG, sampler, message);
+    }
+
+    /*
+     * Look the level of this logger up again.
+     */
+    private void refreshLevel() {
+
+        // Read the generation first, so that a change made while looking up is seen next time.
+        int generation = LogLevels.getGeneration();
+        this.currentLevel = LogLevels.getLevel(this.className);
+        this.levelGeneration = generation;
+    }
+
+    /*
+     * Log a message built by the supplier to the console, if the sampler lets it through.
+     */
+    private void log(LoggingLevel level, LogSampler sampler, MessageSupplier message) {
+
+        // Only messages that would be logged count towards the sample.
+        if (!this.isEnabled(level) || !sampler.sample()) {
+            return;
+        }
+
+        int suppressed = sampler.takeSuppressed();
+        if (suppressed == 0) {
+            this.log(level, message.get());
+        } else {
+            this.log(level, message.get() + " (" + suppressed + " similar messages suppressed)");
+        }
+    }
+
+    /*
+     * Log a message built by the supplier to the console.
+     */
+    private void log(LoggingLevel level, MessageSupplier message) {
+
+        // Do not even build the message if the logging level is insufficient.
+        if (!this.isEnabled(level)) {
+            return;
+        }
+
+        this.log(level, message.get());
+    }
+
     /*
      * Log a message to the console.
      */
     private void log(LoggingLevel level, String message) {
 
         // Do not log if the logging level is insufficient.
-        if (CURRENT_LOGGING_LEVEL.ordinal() > level.ordinal()) {
+        if (!this.isEnabled(level)) {
             return;
         }
 
-        System.out.printf(LOG_FORMAT,
-            new SimpleDateFormat("HH:mm:ss.SSS").format(Calendar.getInstance().getTime()),
+        LogRecord record = new LogRecord(System.currentTimeMillis(),
             Thread.currentThread().getName(),
             getLoggingLevelString(level),
             this.className, message);
+
+        if (level == LoggingLevel.FATAL) {
+            LogDispatcher.getInstance().publishAndFlush(record);
+        } else {
+            LogDispatcher.getInstance().publish(record);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package logging.threads;
+
+import java.io.File;
+import java.io.IOException;
+
+import logging.LogLevels;
+
+/**
+ * LogLevelWatcherThread reloads the logging levels from a properties file
+ * whenever the file changes, so that levels can be adjusted without
+ * restarting the process.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LogLevelWatcherThread extends Thread {
+
+    // The time (in milliseconds) between checks of the file.
+    private static final long POLL_INTERVAL_MS = 2000;
+
+    // The file that the levels are loaded from.
+    private File file;
+
+    // The modification time of the file when it was last loaded.
+    private long lastModified;
+
+    /**
+     * Load the levels from the file, and immediately start watching it.
+     *
+     * @param file The file that the levels are loaded from
+     */
+    public LogLevelWatcherThread(File file) {
+        super("SmartLog-LevelWatcher");
+        this.file = file;
+
+        // Never keep the process alive just to watch the levels.
+        this.setDaemon(true);
+
+        this.reload();
+        this.start();
+    }
+
+    /**
+     * The entry point of the watcher thread.
+     */
+    @Override
+    public void run() {
+        while (!this.isInterrupted()) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+
+            if (this.file.lastModified() != this.lastModified) {
+                this.reload();
+            }
+        }
+    }
+
+    /*
+     * Load the levels from the file, keeping the current ones if it cannot be loaded.
+     * Reported on the console directly, since the levels may be what is broken.
+     */
+    private void reload() {
+        this.lastModified = this.file.lastModified();
+
+        try {
+            LogLevels.load(this.file);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println("SmartLog: failed to load levels from " + this.file + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package logging.threads;
+
+import java.util.concurrent.locks.LockSupport;
+
+import logging.LogDispatcher;
+
+/**
+ * LogWriterThread is spawned by the LogDispatcher to write the records
+ * published by SmartLog instances to the console in batches.
+ *
+ * Once it has written every record, the writer parks until a record is
+ * published, so an idle process never wakes it up.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LogWriterThread extends Thread {
+
+    // The dispatcher whose records are being written.
+    private LogDispatcher dispatcher;
+
+    // Whether the writer is about to park, or parked, for want of records.
+    private volatile boolean idle;
+
+    /**
+     * Initialize the writer thread and immediately start it.
+     *
+     * @param dispatcher The dispatcher whose records are being written
+     */
+    public LogWriterThread(LogDispatcher dispatcher) {
+        super("SmartLog-Writer");
+        this.dispatcher = dispatcher;
+
+        // Never keep the process alive just to write logs.
+        this.setDaemon(true);
+
+        // Immediately start the writer thread.
+        this.start();
+    }
+
+    /**
+     * Wake the writer up if it is waiting for records. Invoked after publishing a record.
+     */
+    public void wakeUp() {
+        if (this.idle) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    /**
+     * The entry point of the writer thread.
+     */
+    @Override
+    public void run() {
+        while (!this.isInterrupted()) {
+
+            // Only wait once the ring has been emptied.
+            if (this.dispatcher.drain() > 0) {
+                continue;
+            }
+
+            // A record published before we became idle did not wake us up, so drain once more.
+            this.idle = true;
+            if (this.dispatcher.drain() == 0) {
+                LockSupport.park(this);
+            }
+
+            this.idle = false;
+        }
+    }
+}
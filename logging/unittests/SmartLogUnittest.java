@@ -0,0 +1,162 @@
+package logging.unittests;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import logging.LogLevels;
+import logging.LogSampler;
+import logging.SmartLog;
+import logging.SmartLog.LoggingLevel;
+
+/**
+ * The following class hosts several unit tests to verify that messages
+ * logged through SmartLog are written asynchronously, in order, and only
+ * built when they are logged.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class SmartLogUnittest {
+
+    private PrintStream console;
+    private ByteArrayOutputStream output;
+
+    @Before
+    public void captureConsole() {
+        SmartLog.flush();
+        this.console = System.out;
+        this.output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(this.output, true));
+    }
+
+    @After
+    public void restoreConsole() {
+        SmartLog.flush();
+        System.setOut(this.console);
+    }
+
+    /**
+     * Test: Check that logged messages are all written, in the order they were logged.
+     */
+    @Test
+    public void messagesAreWrittenInOrder() {
+        SmartLog logger = new SmartLog("SmartLogUnittest.ordering");
+        for (int i = 0; i < 100; i++) {
+            logger.info("message #" + i + ";");
+        }
+
+        SmartLog.flush();
+        String written = this.output.toString();
+
+        int previous = -1;
+        for (int i = 0; i < 100; i++) {
+            int index = written.indexOf("message #" + i + ";");
+            assertTrue("message #" + i + " was not written in order", index > previous);
+            previous = index;
+        }
+    }
+
+    /**
+     * Test: Check that a fatal message is written before the call that logs it returns.
+     */
+    @Test
+    public void fatalMessagesAreWrittenImmediately() {
+        new SmartLog("SmartLogUnittest.fatal").fatal("the server is going down");
+
+        String written = this.output.toString();
+        assertTrue(written.contains("FATAL] SmartLogUnittest.fatal: the server is going down"));
+    }
+
+    /**
+     * Test: Check that a supplied message is never built when its level is filtered out.
+     */
+    @Test
+    public void filteredMessagesAreNeverBuilt() {
+        SmartLog logger = new SmartLog("SmartLogUnittest.filtered");
+
+        logger.debug(() -> {
+            fail("Built a debug message that is filtered out");
+            return null;
+        });
+        logger.info(() -> "built on demand");
+
+        SmartLog.flush();
+        String written = this.output.toString();
+        assertTrue(written.contains("SmartLogUnittest.filtered: built on demand"));
+        assertFalse(written.contains("DEBUG] SmartLogUnittest.filtered"));
+    }
+
+    /**
+     * Test: Check that the level of a package applies to the loggers inside it, and that
+     * changing it takes effect on loggers that already exist.
+     */
+    @Test
+    public void levelsCanBeChangedAtRuntime() {
+        SmartLog logger = new SmartLog("smartlogunittest.levels.Servicer");
+        SmartLog sibling = new SmartLog("smartlogunittest.levelsother.Servicer");
+        assertFalse(logger.isEnabled(LoggingLevel.DEBUG));
+
+        try {
+            LogLevels.setLevel("smartlogunittest.levels", LoggingLevel.DEBUG);
+            assertTrue(logger.isEnabled(LoggingLevel.DEBUG));
+            assertFalse(sibling.isEnabled(LoggingLevel.DEBUG));
+
+            // The most specific name wins.
+            LogLevels.setLevel("smartlogunittest.levels.Servicer", LoggingLevel.ERROR);
+            assertFalse(logger.isEnabled(LoggingLevel.WARNING));
+        } finally {
+            LogLevels.setLevel("smartlogunittest.levels", null);
+            LogLevels.setLevel("smartlogunittest.levels.Servicer", null);
+        }
+
+        assertFalse(logger.isEnabled(LoggingLevel.DEBUG));
+        assertTrue(logger.isEnabled(LoggingLevel.INFO));
+    }
+
+    /**
+     * Test: Check that a one in N sampler lets through every Nth message, and reports
+     * how many were held back.
+     */
+    @Test
+    public void sampledMessagesReportSuppressedCount() {
+        SmartLog logger = new SmartLog("SmartLogUnittest.sampled");
+        LogSampler sampler = LogSampler.oneIn(3);
+
+        for (int i = 0; i < 7; i++) {
+            final int index = i;
+            logger.info(sampler, () -> "sample #" + index + ";");
+        }
+
+        SmartLog.flush();
+        String written = this.output.toString();
+        assertTrue(written.contains("sample #0;\n"));
+        assertTrue(written.contains("sample #3; (2 similar messages suppressed)"));
+        assertTrue(written.contains("sample #6; (2 similar messages suppressed)"));
+        assertFalse(written.contains("sample #1;"));
+    }
+
+    /**
+     * Test: Check that a per second sampler never lets through more than its limit at once.
+     */
+    @Test
+    public void perSecondSamplerIsBounded() {
+        LogSampler sampler = LogSampler.perSecond(2);
+
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+
+        // The burst may straddle a second boundary, but never more than one.
+        assertTrue(sampled >= 2 && sampled <= 4);
+    }
+}
@@ -4,14 +4,30 @@ import network.core.Packet;
 import network.stem.LeafAccountHandler;
 import network.branch.threads.DedicatedLeafServicer;
 import network.branch.threads.LeafPruningThread;
+import network.branch.threads.LeafReactor;
+import network.branch.threads.OutboundDrainThread;
+import network.core.EncodedPacket;
+import network.core.MulticastTransport;
 import network.core.NodeLocation;
+import network.core.PacketChecksum;
+import network.core.ReceiveWindow;
+import network.core.Transport;
+import network.core.WireFormat;
+import network.core.packets.Acknowledgement;
+import network.core.packets.registration.LeafRegistration;
+import network.core.packets.registration.RegistrationResponse;
 
 import java.io.IOException;
-import java.net.SocketException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.net.NetworkInterface;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import config.SmartGrowConfiguration;
 import cps.accounts.Account;
 import cps.management.LeafManager;
 import logging.SmartLog;
@@ -31,29 +47,115 @@ public class Branch {
     // The account handler implementation for this branch.
     private LeafAccountHandler accountHandler;
 
-    // The list of live nodes connected to this stem.
-    private ArrayList<DedicatedLeafServicer> servicers;
+    // The live nodes connected to this stem, keyed by their location. Lookups never lock.
+    private ConcurrentHashMap<NodeLocation, LeafSession> sessions;
     private LeafManager manager;
     private String name;
     private LeafPruningThread pruner;
 
+    // The thread sending the queued broadcasts of every session.
+    private OutboundDrainThread drainer;
+
+    // The reactors multiplexing the leaf sessions of this branch (if enabled).
+    private LeafReactor[] reactors;
+    private AtomicInteger nextReactor;
+
+    // The threads that reactor sessions hand their account handling and packets to, so that
+    // waiting on the database never stalls a reactor.
+    private ExecutorService workers;
+
+    // The stem transport that leaves keep talking to when sharing the stem port (if enabled).
+    private Transport stemTransport;
+
+    // The multicast group that broadcasts are sent to (if enabled), and the leaves that joined it.
+    private MulticastTransport multicast;
+    private Set<NodeLocation> multicastMembers;
+
     /**
      * Initializes the branch with a random port.
+     *
+     * @throws IOException If the reactors of the branch could not be started
      */
-    public Branch(String name) {
-        this.servicers = new ArrayList<>();
+    public Branch(String name) throws IOException {
+        this(name, null);
+    }
+
+    /**
+     * Initializes the branch with leaves sharing the port of the stem.
+     *
+     * @param name The name of the branch
+     * @param stemTransport The stem transport that all leaves of this branch talk to, or
+     *                      null if every leaf should be assigned a port of its own
+     * @throws IOException If the reactors of the branch could not be started
+     */
+    public Branch(String name, Transport stemTransport) throws IOException {
+        this.sessions = new ConcurrentHashMap<>();
+        this.multicastMembers = ConcurrentHashMap.newKeySet();
+        this.nextReactor = new AtomicInteger();
         this.name = name;
+        this.stemTransport = stemTransport;
+
+        // Start the reactors that will multiplex the leaves of this branch. Sharing the stem
+        // port requires at least one reactor to handle the routed packets.
+        int reactorCount = SmartGrowConfiguration.CPS_REACTOR_THREADS;
+        if (stemTransport != null) {
+            reactorCount = Math.max(1, reactorCount);
+        }
+
+        this.reactors = new LeafReactor[reactorCount];
+        for (int i = 0; i < this.reactors.length; i++) {
+            this.reactors[i] = new LeafReactor(this, i);
+        }
+
+        if (this.reactors.length > 0) {
+            AtomicInteger nextWorker = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(SmartGrowConfiguration.CPS_LEAF_WORKER_THREADS, (task) -> {
+                Thread worker = new Thread(task, String.format("%sBranch-Worker-%d", this, nextWorker.getAndIncrement()));
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
 
         this.pruner = new LeafPruningThread(this);
+        this.drainer = new OutboundDrainThread(this);
     }
     
     /**
-     * Retrieve the currently active leaf servicers.
+     * Send the broadcasts of this branch to a multicast group. Leaves that are able to
+     * join the group are told about it when they register, and no longer receive the
+     * broadcasts by unicast. Broadcasts to the group are in the compact wire format and
+     * CRC32, so only leaves that negotiated the compact format are able to join.
+     *
+     * @param group The IPv4 multicast address and port of the group
+     * @param networkInterface The interface to send through, or null for the system default
+     * @throws IOException If the multicast socket could not be opened
+     */
+    public void enableMulticast(NodeLocation group, NetworkInterface networkInterface) throws IOException {
+        this.multicast = new MulticastTransport(group, networkInterface);
+
+        logger.info("Broadcasting to multicast group " + group);
+    }
+
+    /**
+     * Retrieve the currently active leaf sessions.
+     *
+     * The returned view reflects sessions being added and removed while it is iterated
+     * over, and never throws a ConcurrentModificationException.
      * 
-     * @return A list of all DedicatedLeafServicers on this branch.
+     * @return A view of all LeafSessions on this branch.
      */
-    public synchronized ArrayList<DedicatedLeafServicer> getServicers() {
-        return this.servicers;
+    public Collection<LeafSession> getSessions() {
+        return this.sessions.values();
+    }
+
+    /**
+     * Retrieve the workers that reactor sessions run their account handling and branch
+     * manager on.
+     *
+     * @return The workers of this branch, or null if reactors are disabled.
+     */
+    public Executor getWorkers() {
+        return this.workers;
     }
 
     /**
@@ -73,52 +175,166 @@ public class Branch {
      *              false   Otherwise
      */
     public boolean isExistingLeaf(NodeLocation leaf) {
-        return this.getServicer(leaf) != null;
+        return this.getSession(leaf) != null;
     }
 
     /**
-     * Retrieve the dedicated leaf servicer for the specified leaf.
+     * Retrieve the leaf session for the specified leaf.
      * 
      * @param leaf  The IPv4 address and port of the leaf
-     * @return      The DedicatedLeafServicer Object of that leaf if it exists.
+     * @return      The LeafSession Object of that leaf if it exists.
      *              Otherwise, null.
      */
-    public DedicatedLeafServicer getServicer(NodeLocation leaf) {
+    public LeafSession getSession(NodeLocation leaf) {
+        return this.sessions.get(leaf);
+    }
 
-        // Search the list using the NodeLocation as the search criterion.
-        List<DedicatedLeafServicer> query =
-            this.servicers.stream()
-                .filter((servicer) -> servicer.getDestination().equals(leaf))
-                .collect(Collectors.toList());
+    /**
+     * Retrieve the session of the leaf sending from the location when leaves share the
+     * stem port.
+     *
+     * @param leaf The source address and port of a received packet
+     * @return The session of the leaf if it is registered on this branch and shares the
+     *         stem port. Otherwise, null.
+     */
+    public ReactorLeafSession route(NodeLocation leaf) {
 
-        // Check if the query yielded a match or if it came back empty.
-        if (query.size() == 1) {
-            return query.get(0);
-        } else {
+        // Leaves with a port of their own never have their packets routed by the stem.
+        if (this.stemTransport == null) {
             return null;
         }
+
+        return (ReactorLeafSession) this.sessions.get(leaf);
     }
 
     /**
-     * Spawn a new servicer for the leaf specified by the location.
+     * Spawn a new session for the leaf specified by the location.
+     *
+     * The session is multiplexed onto one of the reactors of this branch in round-robin
+     * order, unless reactors are disabled, in which case a DedicatedLeafServicer is spawned.
      * 
      * @param location The IPv4 address of the leaf
+     * @param registration The registration request that the leaf sent
+     */
+    public void addLeaf(NodeLocation location, LeafRegistration registration) throws IOException {
+        logger.info("Adding a new leaf session for " + location);
+
+        // Settle on the latest protocol, and with it the most compact wire format, and the
+        // cheapest checksum that the leaf understands.
+        int protocolVersion = Math.min(registration.getProtocolVersion(), Packet.PROTOCOL_VERSION);
+        WireFormat wireFormat = WireFormat.forVersion(protocolVersion);
+        PacketChecksum checksum = PacketChecksum.negotiate(registration.getSupportedChecksums());
+
+        // Leaves joining the multicast group must be known before their session registers them.
+        if (this.multicast != null && registration.isMulticastCapable() && wireFormat == WireFormat.COMPACT) {
+            this.multicastMembers.add(location);
+        }
+
+        LeafSession session = null;
+        if (this.reactors.length == 0) {
+            session = new DedicatedLeafServicer(this, location, protocolVersion, checksum);
+        } else {
+            LeafReactor reactor = this.reactors[Math.floorMod(this.nextReactor.getAndIncrement(), this.reactors.length)];
+
+            if (this.stemTransport == null) {
+                session = new ReactorLeafSession(this, reactor, location, protocolVersion, checksum);
+            } else {
+
+                // The leaf keeps talking to the stem, which routes its packets to this session.
+                session = new ReactorLeafSession(this, reactor, location, protocolVersion, checksum, this.stemTransport);
+            }
+        }
+
+        // Another registration for the same leaf beat us to it. Keep the existing session.
+        if (this.sessions.putIfAbsent(location, session) != null) {
+            logger.warn("Leaf " + location + " already has a session");
+            session.stop();
+            return;
+        }
+
+        // Start the clock on the leaf: it is pruned if it never sends us anything.
+        this.pruner.schedule(session);
+    }
+
+    /**
+     * Answer a leaf that sent its registration again. A leaf that no longer offers to join
+     * the multicast group, having failed to join it, is sent the broadcasts directly from now on.
+     *
+     * @param location The IPv4 address and port of the leaf
+     * @param registration The registration request that the leaf sent again
+     * @return      true    If the leaf has a session on this branch, which answers it
+     *              false   Otherwise
+     * @throws IOException If the response could not be sent
+     */
+    public boolean onRepeatedRegistration(NodeLocation location, LeafRegistration registration) throws IOException {
+        LeafSession session = this.getSession(location);
+        if (session == null) {
+            return false;
+        }
+
+        if (!registration.isMulticastCapable() && this.multicastMembers.remove(location)) {
+            logger.info("Leaf " + location + " left the multicast group");
+        }
+
+        session.resendRegistration();
+        return true;
+    }
+
+    /**
+     * Create the RegistrationResponse informing the leaf that it has been registered.
+     *
+     * @param session The session of the leaf
+     * @return The response for the leaf, including the negotiated protocol version and the
+     *         multicast group if the leaf joins it.
+     */
+    public RegistrationResponse createRegistrationResponse(LeafSession session) {
+        RegistrationResponse response = new RegistrationResponse();
+        response.setStatus(true);
+        response.setRegistrationDetails("OK");
+        response.setProtocolVersion(session.getProtocolVersion());
+        response.setChecksum(session.getChecksum());
+
+        if (this.multicastMembers.contains(session.getDestination())) {
+            response.setMulticastGroup(this.multicast.getDestination());
+        }
+
+        return response;
+    }
+
+    /**
+     * Record that the session has received a packet from its leaf, pushing back the
+     * time when the leaf is pruned.
+     *
+     * @param session The session that received a packet
      */
-    public synchronized void addLeaf(NodeLocation location) throws SocketException {
-        logger.info("Adding a new leaf servicer for " + location);
-        this.servicers.add(new DedicatedLeafServicer(this, location));
+    public void onLeafActivity(LeafSession session) {
+        this.pruner.schedule(session);
     }
 
     /**
-     * Removes an existing servicer for the leaf speicified by the location.
+     * Record that the session has sent its leaf the RegistrationResponse, allowing
+     * the broadcasts queued during registration to be sent.
+     *
+     * @param session The session that became ready
+     */
+    public void onLeafReady(LeafSession session) {
+        this.drainer.schedule(session);
+    }
+
+    /**
+     * Removes an existing session for the leaf speicified by the location.
      * 
-     * @param location The IPv4 address of the leaf
+     * @param session The session of the leaf
      */
-    public synchronized void removeLeaf(DedicatedLeafServicer servicer) {
-        logger.info("Stop leaf servicer for " + servicer.getDestination());
+    public void removeLeaf(LeafSession session) {
+        logger.info("Stop leaf session for " + session.getDestination());
 
-        servicer.stop();
-        this.servicers.remove(servicer);
+        session.stop();
+        if (this.sessions.remove(session.getDestination(), session)) {
+            this.multicastMembers.remove(session.getDestination());
+        }
+
+        this.pruner.cancel(session);
     }
 
     /**
@@ -151,9 +367,9 @@ public class Branch {
     }
 
     /**
-     * Manage a packet received by a DedicatedLeafServicer.
+     * Manage a packet received by a LeafSession.
      *
-     * @param packet The received packet by the servicer.
+     * @param packet The received packet by the session.
      * @return The status of the management operation
      */
     public Packet manage(Account account, Packet packet) {
@@ -161,23 +377,89 @@ public class Branch {
             return null;
         }
 
-        return this.manager.handle(account, packet);
+        // Responses to correlated requests carry the id of the request back to the leaf.
+        Packet response = this.manager.handle(account, packet);
+        if (response != null && packet.isCorrelated()) {
+            response.setCorrelationId(packet.getCorrelationId());
+        }
+
+        return response;
+    }
+
+    /**
+     * Manage a sequenced packet received by a LeafSession. Retransmissions of packets
+     * that were managed before are not managed again, and a packet is only recorded
+     * as received once the manager accepted it, leaving the leaf to retransmit it
+     * otherwise.
+     *
+     * @param account The account of the leaf
+     * @param window The receive window of the session
+     * @param packet The sequenced packet received by the session
+     * @return The response to send to the leaf besides the acknowledgement of the window, if any
+     */
+    public Packet manageSequenced(Account account, ReceiveWindow window, Packet packet) {
+        if (!window.isNew(packet.getSequence())) {
+            return null;
+        }
+
+        // The manager withholds its response when it could not accept the packet.
+        Packet response = this.manage(account, packet);
+        if (response == null) {
+            return null;
+        }
+
+        window.record(packet.getSequence());
+
+        // The acknowledgement of the window stands in for the acknowledgement of the manager.
+        return response instanceof Acknowledgement ? null : response;
     }
 
     /**
      * Send a message to all leaves on this branch.
+     *
+     * The packet is encoded once per wire format and checksum in use. With multicast enabled, a
+     * single datagram reaches every leaf that joined the group. It is queued on the
+     * sessions of the remaining leaves, which are then sent asynchronously. A slow or
+     * still registering leaf never delays the others.
      * 
      * @param packet The packet to broadcast to all leaves
      */
-    public synchronized void broadcast(Packet packet) throws IOException {
+    public void broadcast(Packet packet) {
         logger.debug("Broadcasting packet to all leaves");
 
         // Setting the packet to broadcast informs the leaves to process it as a broadcast
         packet.setBroadcast(true);
+        EncodedPacket[][] encodings = new EncodedPacket[WireFormat.values().length][PacketChecksum.values().length];
+
+        if (this.multicast != null) {
+            try {
+                this.multicast.send(this.encode(packet, WireFormat.COMPACT, PacketChecksum.CRC32, encodings));
+            } catch (IOException ex) {
+                logger.error("Failed to send broadcast to multicast group: " + ex.getMessage());
+            }
+        }
+
+        for (LeafSession session : this.sessions.values()) {
 
-        for (DedicatedLeafServicer servicer : this.servicers) {
-            servicer.forwardBroadcast(packet);
+            // Members of the multicast group already received the broadcast.
+            if (this.multicastMembers.contains(session.getDestination())) {
+                continue;
+            }
+
+            session.forwardBroadcast(this.encode(packet, session.getWireFormat(), session.getChecksum(), encodings));
+            this.drainer.schedule(session);
+        }
+    }
+
+    /*
+     * Encode the packet in the wire format and checksum, unless it has already been encoded in them.
+     */
+    private EncodedPacket encode(Packet packet, WireFormat format, PacketChecksum checksum, EncodedPacket[][] encodings) {
+        if (encodings[format.ordinal()][checksum.ordinal()] == null) {
+            encodings[format.ordinal()][checksum.ordinal()] = packet.encode(format, checksum);
         }
+
+        return encodings[format.ordinal()][checksum.ordinal()];
     }
 
     /**
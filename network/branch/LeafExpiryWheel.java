@@ -0,0 +1,163 @@
+package network.branch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LeafExpiryWheel is a hashed timer wheel tracking when each leaf session
+ * of a branch should expire.
+ *
+ * The wheel is a ring of slots, each covering one tick of time. A session
+ * is placed in the slot of the tick its deadline falls in, and is moved to
+ * a new slot whenever it receives a packet. Expiring the wheel only visits
+ * the slots of the ticks that have elapsed, so the cost of expiry depends on
+ * the number of expired sessions rather than on the size of the branch.
+ *
+ * Scheduling may happen concurrently from any thread, while expiry is
+ * expected to be driven by a single thread.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LeafExpiryWheel {
+
+    // The time covered by a single slot and the time a session may stay silent.
+    private long tickMs;
+    private long timeoutMs;
+
+    // The ring of slots and the slot that each scheduled session currently sits in.
+    private Set<LeafSession>[] slots;
+    private ConcurrentHashMap<LeafSession, Integer> scheduledSlots;
+
+    // The last tick that has been expired.
+    private long currentTick;
+
+    /**
+     * Initialize an empty wheel.
+     *
+     * @param tickMs The time (in milliseconds) covered by a single slot
+     * @param wheelSize The number of slots in the wheel. The wheel must span more than the timeout.
+     * @param timeoutMs The time (in milliseconds) after the last received packet when a session expires
+     * @param nowMs The current epoch time (in milliseconds)
+     */
+    public LeafExpiryWheel(long tickMs, int wheelSize, long timeoutMs, long nowMs) {
+        if (tickMs * wheelSize <= timeoutMs) {
+            throw new IllegalArgumentException("The wheel must span more than the timeout");
+        }
+
+        this.tickMs = tickMs;
+        this.timeoutMs = timeoutMs;
+        this.currentTick = nowMs / tickMs;
+        this.scheduledSlots = new ConcurrentHashMap<>();
+
+        this.slots = createSlots(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            this.slots[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Schedule (or reschedule) the session to expire a timeout after the last packet it received.
+     *
+     * @param session The session to schedule
+     */
+    public void schedule(LeafSession session) {
+        long deadline = session.getLastReceivedTime() + this.timeoutMs;
+
+        // Round up to the first tick at or after the deadline, so that the session has
+        // already expired by the time its slot is visited.
+        int slot = (int)(((deadline + this.tickMs - 1) / this.tickMs) % this.slots.length);
+
+        Integer previousSlot = this.scheduledSlots.put(session, slot);
+        if (previousSlot != null && previousSlot == slot) {
+            return;
+        }
+
+        // Insert into the new slot before leaving the old one so that the session is never
+        // absent from the wheel while it is being moved.
+        this.slots[slot].add(session);
+        if (previousSlot != null) {
+            this.slots[previousSlot].remove(session);
+        }
+    }
+
+    /**
+     * Stop tracking the session.
+     *
+     * @param session The session to remove from the wheel
+     */
+    public void cancel(LeafSession session) {
+        Integer slot = this.scheduledSlots.remove(session);
+        if (slot != null) {
+            this.slots[slot].remove(session);
+        }
+    }
+
+    /**
+     * Retrieve the number of sessions being tracked.
+     *
+     * @return The number of scheduled sessions
+     */
+    public int size() {
+        return this.scheduledSlots.size();
+    }
+
+    /**
+     * Advance the wheel to the current time, removing and returning every session
+     * whose deadline has passed.
+     *
+     * @param nowMs The current epoch time (in milliseconds)
+     * @return The sessions that expired
+     */
+    public List<LeafSession> expire(long nowMs) {
+        List<LeafSession> expired = new ArrayList<>();
+        long nowTick = nowMs / this.tickMs;
+
+        // Never walk more than one revolution: every slot would have been visited by then.
+        long firstTick = Math.max(this.currentTick + 1, nowTick - this.slots.length + 1);
+
+        for (long tick = firstTick; tick <= nowTick; tick++) {
+            int slot = (int)(tick % this.slots.length);
+            Iterator<LeafSession> sessions = this.slots[slot].iterator();
+
+            while (sessions.hasNext()) {
+                LeafSession session = sessions.next();
+
+                // The slot may also hold sessions whose deadline is a whole revolution away.
+                if (nowMs - session.getLastReceivedTime() < this.timeoutMs) {
+                    continue;
+                }
+
+                // Only a session still scheduled in this slot is taken off the wheel. One that was
+                // rescheduled since it was checked has moved on to another slot.
+                if (!this.scheduledSlots.remove(session, slot)) {
+                    continue;
+                }
+
+                // A session rescheduled into this very slot was never moved, and keeps its place.
+                if (nowMs - session.getLastReceivedTime() < this.timeoutMs) {
+                    this.scheduledSlots.putIfAbsent(session, slot);
+                    continue;
+                }
+
+                sessions.remove();
+                expired.add(session);
+            }
+        }
+
+        this.currentTick = Math.max(this.currentTick, nowTick);
+        return expired;
+    }
+
+    /*
+     * Create the ring of slots. Generic arrays cannot be created directly, so the array
+     * of raw sets is cast once here.
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<LeafSession>[] createSlots(int wheelSize) {
+        return (Set<LeafSession>[]) new Set<?>[wheelSize];
+    }
+}
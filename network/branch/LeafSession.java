@@ -0,0 +1,88 @@
+package network.branch;
+
+import java.io.IOException;
+
+import cps.accounts.Account;
+import network.core.EncodedPacket;
+import network.core.NodeLocation;
+import network.core.PacketChecksum;
+import network.core.WireFormat;
+
+/**
+ * LeafSession defines the interface that a branch uses to interact
+ * with a registered leaf, independently of how the packets of that
+ * leaf are received and serviced.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public interface LeafSession {
+
+    /**
+     * Retrieve the location of the leaf under service.
+     *
+     * @return The IPv4 address and port of the leaf
+     */
+    NodeLocation getDestination();
+
+    /**
+     * Retrieve the Account of the leaf under service.
+     *
+     * @return The account of the leaf, or null if account handling has not completed yet.
+     */
+    Account getAccount();
+
+    /**
+     * Retrieve the time (in milliseconds) when a packet was last received from the leaf.
+     *
+     * @return Epoch time (in milliseconds) of the last time a packet was received.
+     */
+    long getLastReceivedTime();
+
+    /**
+     * Retrieve the protocol version negotiated with the leaf during registration.
+     *
+     * @return The protocol version that both the leaf and the server understand.
+     */
+    int getProtocolVersion();
+
+    /**
+     * Retrieve the wire format negotiated with the leaf during registration.
+     *
+     * @return The wire format that packets are sent to the leaf in.
+     */
+    WireFormat getWireFormat();
+
+    /**
+     * Retrieve the checksum negotiated with the leaf during registration.
+     *
+     * @return The checksum that packets sent to the leaf are protected by.
+     */
+    PacketChecksum getChecksum();
+
+    /**
+     * Queue the broadcast message for the leaf. Never blocks: the message is sent
+     * once the outbound queue of the session is drained.
+     *
+     * @param broadcast The encoded broadcast payload message
+     */
+    void forwardBroadcast(EncodedPacket broadcast);
+
+    /**
+     * Send the queued broadcast messages to the leaf. Leaves that have not been sent
+     * their RegistrationResponse yet keep their messages queued until they are.
+     */
+    void drainOutbound() throws IOException;
+
+    /**
+     * Send the leaf its RegistrationResponse again, for a leaf that repeated its registration
+     * because the response was late or lost. A leaf that has not been sent its response yet
+     * is sent it once its account has been handled, so nothing is sent to it now.
+     */
+    void resendRegistration() throws IOException;
+
+    /**
+     * Stop servicing the leaf and release the network resources of the session.
+     */
+    void stop();
+}
@@ -0,0 +1,68 @@
+package network.branch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import network.core.EncodedPacket;
+
+/**
+ * OutboundQueue holds the encoded packets waiting to be sent to a single
+ * leaf. The queue is bounded: once it is full, the oldest packet is
+ * dropped to make room, since a leaf only cares about the most recent
+ * broadcasts.
+ *
+ * Packets may be offered and drained concurrently from any thread.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class OutboundQueue {
+
+    // The pending packets, oldest first.
+    private ArrayBlockingQueue<EncodedPacket> packets;
+
+    /**
+     * Initialize an empty queue.
+     *
+     * @param capacity The maximum number of pending packets
+     */
+    public OutboundQueue(int capacity) {
+        this.packets = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queue the packet without ever blocking, dropping the oldest pending packets
+     * if the queue is full.
+     *
+     * @param packet The encoded packet to queue
+     * @return The number of pending packets that were dropped to make room
+     */
+    public int offer(EncodedPacket packet) {
+        int dropped = 0;
+
+        while (!this.packets.offer(packet)) {
+            if (this.packets.poll() != null) {
+                dropped++;
+            }
+        }
+
+        return dropped;
+    }
+
+    /**
+     * Remove the oldest pending packet.
+     *
+     * @return The oldest pending packet, or null if the queue is empty.
+     */
+    public EncodedPacket poll() {
+        return this.packets.poll();
+    }
+
+    /**
+     * Retrieve the number of pending packets.
+     *
+     * @return The number of packets waiting to be sent
+     */
+    public int size() {
+        return this.packets.size();
+    }
+}
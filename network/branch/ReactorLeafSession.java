@@ -0,0 +1,545 @@
+package network.branch;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import config.SmartGrowConfiguration;
+import cps.accounts.Account;
+import cps.database.exceptions.SmartgrowDatabaseException;
+import logging.LogSampler;
+import logging.SmartLog;
+import network.branch.threads.LeafReactor;
+import network.core.EncodedPacket;
+import network.core.NodeLocation;
+import network.core.Packet;
+import network.core.PacketChecksum;
+import network.core.ReceiveWindow;
+import network.core.Transport;
+import network.core.WireFormat;
+import network.core.exceptions.CorruptPacketException;
+import network.core.packets.registration.RegistrationResponse;
+import network.stem.LeafAccountHandler;
+
+/**
+ * ReactorLeafSession services a leaf through a non-blocking channel that
+ * is multiplexed by a LeafReactor, rather than through a dedicated thread
+ * blocked on its own socket. All receiving and handling for the session
+ * happens on the reactor thread that it was registered with, while the
+ * account handling and the branch manager, which may wait on the database,
+ * run on the workers of the branch so that a slow leaf never stalls the
+ * others on its reactor. Their results are posted back to the reactor.
+ *
+ * A session may also share the socket of the stem instead of opening a
+ * channel of its own. In that case the stem receives the packets of the
+ * leaf and delivers them to the session, which handles them on its reactor.
+ *
+ * Sequenced packets are acknowledged once per burst: every packet pending on
+ * the channel is handled before a single acknowledgement covering all of
+ * them is sent.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ReactorLeafSession implements LeafSession {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(ReactorLeafSession.class.getName());
+
+    // Thins out the log message written for every packet.
+    private static LogSampler packetSampler = LogSampler.perSecond(SmartGrowConfiguration.PACKET_LOGS_PER_SECOND);
+
+    // The branch that this session belongs to and the reactor servicing it.
+    private Branch branch;
+    private LeafReactor reactor;
+
+    // The location of the leaf, both as a NodeLocation and as a resolved socket address.
+    private NodeLocation destination;
+    private InetSocketAddress address;
+
+    // The non-blocking channel that the leaf sends its packets to.
+    private DatagramChannel channel;
+
+    // The stem transport that is used instead of a channel when sharing the stem port.
+    private Transport stemTransport;
+
+    // The account of the leaf under service.
+    private volatile Account account;
+
+    // The protocol version, wire format, and checksum negotiated with the leaf during registration.
+    private int protocolVersion;
+    private WireFormat wireFormat;
+    private PacketChecksum checksum;
+
+    // The sequenced packets received from the leaf, and whether they are owed an acknowledgement.
+    private ReceiveWindow receiveWindow;
+    private boolean acknowledgementPending;
+
+    // The packets received from the leaf that wait for a worker, and whether a worker is
+    // handling earlier ones. Both are only touched on the reactor thread.
+    private ArrayDeque<Packet> inbound;
+    private boolean handling;
+
+    private volatile boolean ready;
+    private volatile boolean stopped;
+    private volatile long lastReceivedTime;
+
+    // The broadcasts waiting to be sent to the leaf.
+    private OutboundQueue outbound;
+
+    /**
+     * Open a channel for the leaf and register it with the reactor.
+     *
+     * @param branch The branch that this session belongs to
+     * @param reactor The reactor that will multiplex the channel of this session
+     * @param destination The IPv4 address (and port) of the leaf
+     * @param protocolVersion The protocol version negotiated with the leaf
+     * @param checksum The checksum negotiated with the leaf
+     * @throws IOException If the channel could not be opened
+     */
+    public ReactorLeafSession(Branch branch, LeafReactor reactor, NodeLocation destination, int protocolVersion,
+            PacketChecksum checksum) throws IOException {
+        this.branch = branch;
+        this.reactor = reactor;
+        this.destination = destination;
+        this.protocolVersion = protocolVersion;
+        this.wireFormat = WireFormat.forVersion(protocolVersion);
+        this.checksum = checksum;
+        this.receiveWindow = new ReceiveWindow();
+        this.inbound = new ArrayDeque<>();
+        this.address = new InetSocketAddress(destination.getIpAddress(), destination.getPort());
+        this.outbound = new OutboundQueue(SmartGrowConfiguration.CPS_OUTBOUND_QUEUE_SIZE);
+
+        // Begin tracking when the last packet was received from the leaf.
+        this.lastReceivedTime = System.currentTimeMillis();
+
+        // Let the channel pick a random port, just like a DedicatedLeafServicer socket.
+        this.channel = DatagramChannel.open();
+        this.channel.bind(null);
+        this.channel.configureBlocking(false);
+
+        this.reactor.register(this, this.channel);
+    }
+
+    /**
+     * Create a session that shares the port of the stem rather than opening a channel.
+     *
+     * @param branch The branch that this session belongs to
+     * @param reactor The reactor that will handle the packets delivered to this session
+     * @param destination The IPv4 address (and port) of the leaf
+     * @param protocolVersion The protocol version negotiated with the leaf
+     * @param checksum The checksum negotiated with the leaf
+     * @param stemTransport The stem transport that packets are received and sent through
+     */
+    public ReactorLeafSession(Branch branch, LeafReactor reactor, NodeLocation destination, int protocolVersion,
+            PacketChecksum checksum, Transport stemTransport) {
+        this.branch = branch;
+        this.reactor = reactor;
+        this.destination = destination;
+        this.protocolVersion = protocolVersion;
+        this.wireFormat = WireFormat.forVersion(protocolVersion);
+        this.checksum = checksum;
+        this.receiveWindow = new ReceiveWindow();
+        this.inbound = new ArrayDeque<>();
+        this.address = new InetSocketAddress(destination.getIpAddress(), destination.getPort());
+        this.stemTransport = stemTransport;
+        this.outbound = new OutboundQueue(SmartGrowConfiguration.CPS_OUTBOUND_QUEUE_SIZE);
+
+        // Begin tracking when the last packet was received from the leaf.
+        this.lastReceivedTime = System.currentTimeMillis();
+
+        this.reactor.execute(this::onRegistered);
+    }
+
+    /**
+     * Retrieve the resolved socket address of the leaf.
+     *
+     * @return The IPv4 socket address of the leaf
+     */
+    public InetSocketAddress getAddress() {
+        return this.address;
+    }
+
+    @Override
+    public NodeLocation getDestination() {
+        return this.destination;
+    }
+
+    @Override
+    public Account getAccount() {
+        return this.account;
+    }
+
+    @Override
+    public long getLastReceivedTime() {
+        return this.lastReceivedTime;
+    }
+
+    @Override
+    public int getProtocolVersion() {
+        return this.protocolVersion;
+    }
+
+    @Override
+    public WireFormat getWireFormat() {
+        return this.wireFormat;
+    }
+
+    @Override
+    public PacketChecksum getChecksum() {
+        return this.checksum;
+    }
+
+    /**
+     * Queue the broadcast message for the leaf.
+     *
+     * @param broadcast The encoded broadcast payload message
+     */
+    @Override
+    public void forwardBroadcast(EncodedPacket broadcast) {
+        if (this.outbound.offer(broadcast) > 0) {
+            logger.warn("Outbound queue of " + this.destination + " is full, dropped oldest broadcast");
+        }
+    }
+
+    /**
+     * Send the queued broadcast messages to the leaf.
+     *
+     * Leaves that have not been sent their RegistrationResponse yet keep their
+     * broadcasts queued until they are.
+     */
+    @Override
+    public void drainOutbound() throws IOException {
+        if (!this.ready || this.stopped) {
+            return;
+        }
+
+        EncodedPacket broadcast = null;
+        while ((broadcast = this.outbound.poll()) != null) {
+
+            // Sessions sharing the stem port send from the stem socket.
+            if (this.channel == null) {
+                this.stemTransport.send(broadcast, this.address);
+            } else if (this.channel.send(broadcast.getPayload(), this.address) == 0) {
+                logger.warn("Socket buffer is full, dropped broadcast to " + this.destination);
+            }
+        }
+    }
+
+    /**
+     * Stop the session by closing its channel, which removes it from the reactor.
+     */
+    @Override
+    public void stop() {
+        this.stopped = true;
+
+        // Sessions sharing the stem port have no channel of their own to close.
+        if (this.channel == null) {
+            return;
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException ex) {
+            logger.error("Failed to close channel of " + this.destination + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Hand a packet that the stem received on behalf of this session over to the
+     * reactor of the session for handling.
+     *
+     * @param packet The packet received from the leaf
+     */
+    public void deliver(Packet packet) {
+        this.onReactor(() -> {
+            if (this.stopped) {
+                return;
+            }
+
+            this.receive(packet);
+            this.dispatch();
+        });
+    }
+
+    /**
+     * Send the leaf its RegistrationResponse again from the reactor of this session, once
+     * the response has been sent the first time.
+     */
+    @Override
+    public void resendRegistration() {
+        this.onReactor(() -> {
+            if (!this.ready || this.stopped) {
+                return;
+            }
+
+            try {
+                this.send(this.branch.createRegistrationResponse(this), WireFormat.FIXED, PacketChecksum.CRC32);
+            } catch (IOException ex) {
+                logger.error("CRITICAL: failed network i/o when registering " + this.destination);
+            }
+        });
+    }
+
+    /**
+     * Invoked by the reactor once the channel is being multiplexed. Hands the account
+     * handling for the leaf to a worker, since it may wait on the ARP table and the
+     * database, and informs the leaf that it has been registered once it is done.
+     */
+    public void onRegistered() {
+
+        // The stem starts listening before the server attaches its account handler.
+        LeafAccountHandler accountHandler = this.branch.getAccountHandler();
+        if (accountHandler == null) {
+            logger.error("No account handler is attached yet, unable to register leaf from " + this.destination);
+            this.branch.removeLeaf(this);
+            return;
+        }
+
+        this.branch.getWorkers().execute(() -> {
+            Account account = null;
+
+            // Invoke the registered onLeafConnection handler for this starting leaf connection.
+            try {
+                account = accountHandler.onLeafConnection(this.destination.getIpAddress());
+            } catch (SmartgrowDatabaseException | IOException | RuntimeException ex) {
+
+                // Inability to perform account discovery operations disallows us
+                // from servicing the leaf.
+                logger.error("Unable to perform account handling for leaf from " + this.destination + ": " + ex);
+                this.branch.removeLeaf(this);
+                return;
+            }
+
+            Account registered = account;
+            this.onReactor(() -> this.completeRegistration(registered));
+        });
+    }
+
+    /**
+     * Invoked by the reactor when the channel has packets to be received. Every
+     * pending packet is received and handed to a worker, which runs the branch
+     * manager on them. The sequenced packets among them are acknowledged together
+     * once the manager is done with all of them.
+     */
+    public void onReadable() {
+        ByteBuffer buffer = this.reactor.getReceiveBuffer();
+
+        try {
+            while (true) {
+                buffer.clear();
+                SocketAddress source = this.channel.receive(buffer);
+
+                // The channel has no more pending packets.
+                if (source == null) {
+                    this.dispatch();
+                    return;
+                }
+
+                buffer.flip();
+                this.receive(buffer);
+            }
+        } catch (IOException ex) {
+            logger.error("CRITICAL: failed network i/o when servicing " + this.destination);
+        }
+    }
+
+    /*
+     * Send the leaf its RegistrationResponse once its account has been handled, along with
+     * whatever was broadcast or received from it in the meantime.
+     */
+    private void completeRegistration(Account account) {
+        if (this.stopped) {
+            return;
+        }
+
+        this.account = account;
+
+        // Inform the leaf that they have been registered
+        RegistrationResponse response = this.branch.createRegistrationResponse(this);
+
+        // The response is always in the fixed format and CRC32, which every leaf understands.
+        try {
+            this.send(response, WireFormat.FIXED, PacketChecksum.CRC32);
+            logger.debug("Sent successful RegistrationRequest packet to leaf");
+
+            // Send whatever was broadcast while the leaf was registering.
+            this.ready = true;
+            this.branch.onLeafReady(this);
+        } catch (IOException ex) {
+            logger.error("CRITICAL: failed network i/o when registering " + this.destination);
+            this.stop();
+            return;
+        }
+
+        this.dispatch();
+    }
+
+    /*
+     * Decode the received payload and queue the resulting packet for handling.
+     */
+    private void receive(ByteBuffer payload) {
+        Packet request = null;
+
+        try {
+            request = Packet.fromPayload(payload);
+        } catch (CorruptPacketException ex) {
+
+            // A corrupt payload only costs us this packet, not the whole session.
+            logger.error("Received payload is invalid: " + ex);
+            return;
+        }
+
+        request.setDestination(this.address);
+        this.receive(request);
+    }
+
+    /*
+     * Queue the packet for handling by the branch manager.
+     */
+    private void receive(Packet request) {
+        logger.info(packetSampler, () -> "received packet from leaf: " + request);
+
+        this.lastReceivedTime = System.currentTimeMillis();
+
+        // Push back the time when this leaf is pruned.
+        this.branch.onLeafActivity(this);
+
+        this.inbound.add(request);
+    }
+
+    /*
+     * Hand the queued packets to a worker, unless one is still handling earlier packets of
+     * this session. Packets of a leaf are handled one batch at a time, in the order they
+     * were received, and never before the leaf has been registered.
+     */
+    private void dispatch() {
+        if (this.handling || !this.ready || this.stopped || this.inbound.isEmpty()) {
+            return;
+        }
+
+        List<Packet> requests = new ArrayList<>(this.inbound);
+        this.inbound.clear();
+        this.handling = true;
+
+        this.branch.getWorkers().execute(() -> this.manage(requests));
+    }
+
+    /*
+     * Run the branch manager on the packets on a worker, then post the responses back to
+     * the reactor to be sent.
+     */
+    private void manage(List<Packet> requests) {
+        List<Packet> responses = new ArrayList<>(requests.size());
+        boolean sequenced = false;
+
+        try {
+            for (Packet request : requests) {
+
+                // Sequenced packets are acknowledged through the window rather than one by one.
+                if (request.isSequenced()) {
+                    responses.add(this.branch.manageSequenced(this.account, this.receiveWindow, request));
+                    sequenced = true;
+                } else {
+
+                    // Invoke the packet manager that will return a packet we can send back to the leaf.
+                    responses.add(this.branch.manage(this.account, request));
+                }
+            }
+        } catch (RuntimeException ex) {
+            logger.error("Failed to manage packets from " + this.destination + ", removing it: " + ex);
+            this.branch.removeLeaf(this);
+            return;
+        }
+
+        boolean acknowledge = sequenced;
+        this.onReactor(() -> this.respond(responses, acknowledge));
+    }
+
+    /*
+     * Send the responses of the branch manager and the acknowledgement of the sequenced
+     * packets, then hand over the packets received in the meantime.
+     */
+    private void respond(List<Packet> responses, boolean acknowledge) {
+        this.handling = false;
+        if (this.stopped) {
+            return;
+        }
+
+        this.acknowledgementPending |= acknowledge;
+
+        try {
+            for (Packet response : responses) {
+                this.send(response);
+            }
+
+            this.acknowledge();
+        } catch (IOException ex) {
+            logger.error("CRITICAL: failed network i/o when servicing " + this.destination);
+        }
+
+        this.dispatch();
+    }
+
+    /*
+     * Run the task on the reactor of this session, removing the session if the task fails.
+     */
+    private void onReactor(Runnable task) {
+        this.reactor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                logger.error("Failed to service " + this.destination + ", removing it: " + ex);
+                this.branch.removeLeaf(this);
+            }
+        });
+    }
+
+    /*
+     * Acknowledge every sequenced packet received so far, if any arrived since the last acknowledgement.
+     */
+    private void acknowledge() throws IOException {
+        if (!this.acknowledgementPending) {
+            return;
+        }
+
+        this.acknowledgementPending = false;
+        this.send(this.receiveWindow.createAcknowledgement());
+    }
+
+    /*
+     * Dispatch a packet to the leaf in the negotiated wire format and checksum.
+     */
+    private void send(Packet packet) throws IOException {
+        this.send(packet, this.wireFormat, this.checksum);
+    }
+
+    /*
+     * Dispatch a packet to the leaf through the channel of this session.
+     */
+    private void send(Packet packet, WireFormat format, PacketChecksum checksum) throws IOException {
+        if (packet == null) {
+            return;
+        }
+
+        // Sessions sharing the stem port respond from the stem socket.
+        if (this.channel == null) {
+            packet.setDestination(this.address);
+            this.stemTransport.send(packet, format, checksum);
+            return;
+        }
+
+        // Finalize the packet payload.
+        packet.compile(format, checksum);
+
+        ByteBuffer payload = ByteBuffer.wrap(packet.getDatagram().getData(), 0, packet.getDatagram().getLength());
+        if (this.channel.send(payload, this.address) == 0) {
+            logger.warn("Socket buffer is full, dropped packet to " + this.destination);
+        }
+    }
+}
@@ -4,13 +4,21 @@ import java.io.IOException;
 import java.lang.Runnable;
 import java.net.SocketException;
 
+import config.SmartGrowConfiguration;
 import cps.accounts.Account;
 import cps.database.exceptions.SmartgrowDatabaseException;
+import logging.LogSampler;
 import logging.SmartLog;
 import network.branch.Branch;
+import network.branch.LeafSession;
+import network.branch.OutboundQueue;
+import network.core.EncodedPacket;
 import network.core.NodeLocation;
 import network.core.Packet;
+import network.core.PacketChecksum;
+import network.core.ReceiveWindow;
 import network.core.Transport;
+import network.core.WireFormat;
 import network.core.exceptions.CorruptPacketException;
 import network.core.exceptions.TransportInterruptedException;
 import network.core.packets.registration.RegistrationResponse;
@@ -22,11 +30,14 @@ import network.core.packets.registration.RegistrationResponse;
  * @author Ahmed Sakr
  * @since October 18, 2019
  */
-public class DedicatedLeafServicer extends Transport implements Runnable {
+public class DedicatedLeafServicer extends Transport implements LeafSession, Runnable {
 
     // The logger instance for this class.
     private static SmartLog logger = new SmartLog(DedicatedLeafServicer.class.getName());
 
+    // Thins out the log message written for every packet.
+    private static LogSampler packetSampler = LogSampler.perSecond(SmartGrowConfiguration.PACKET_LOGS_PER_SECOND);
+
     // The account of the leaf under service.
     private Account account;
 
@@ -35,22 +46,37 @@ public class DedicatedLeafServicer extends Transport implements Runnable {
 
     // The branch that this servicer belongs to
     private Branch branch;
-    private boolean ready;
-    private long lastReceivedTime;
+    private volatile boolean ready;
+    private volatile long lastReceivedTime;
+
+    // The broadcasts waiting to be sent to the leaf.
+    private OutboundQueue outbound;
+
+    // The protocol version negotiated with the leaf, and the sequenced packets received from it.
+    private int protocolVersion;
+    private ReceiveWindow receiveWindow;
 
     /**
      * Initialize the state of the DedicatedLeafServicer thread.
      * 
      * @param branch The branch that this servicer belongs to
      * @param leafAddress The IPv4 address (and port) of the leaf
+     * @param protocolVersion The protocol version negotiated with the leaf
+     * @param checksum The checksum negotiated with the leaf
      */
-    public DedicatedLeafServicer(Branch branch, NodeLocation leafAddress) throws SocketException {
+    public DedicatedLeafServicer(Branch branch, NodeLocation leafAddress, int protocolVersion,
+            PacketChecksum checksum) throws SocketException {
         super(leafAddress);
+        this.protocolVersion = protocolVersion;
+        this.setWireFormat(WireFormat.forVersion(protocolVersion));
+        this.setChecksum(checksum);
+        this.receiveWindow = new ReceiveWindow();
 
         // Begin tracking when the last packet was received from the leaf.
         this.lastReceivedTime = System.currentTimeMillis();
 
         this.branch = branch;
+        this.outbound = new OutboundQueue(SmartGrowConfiguration.CPS_OUTBOUND_QUEUE_SIZE);
 
         // Start the servicer once initialization is complete
         this.serviceThread = new Thread(this, "LeafServicer-" + leafAddress.getPort());
@@ -62,45 +88,78 @@ public class DedicatedLeafServicer extends Transport implements Runnable {
      *
      * @return The account object providing valuable persistent information about the leaf.
      */
+    @Override
     public Account getAccount() {
         return this.account;
     }
 
+    /**
+     * Retrieve the protocol version negotiated with the leaf during registration.
+     *
+     * @return The protocol version that both the leaf and the server understand.
+     */
+    @Override
+    public int getProtocolVersion() {
+        return this.protocolVersion;
+    }
+
     /**
      * Retrieve the time (in milliseconds) when this thread has last received a packet
      * from the leaf.
      *
      * @return Epoch time (in milliseconds) of the last time a packet was received.
      */
+    @Override
     public long getLastReceivedTime() {
         return this.lastReceivedTime;
     }
 
     /**
-     * Forward the broadcast message to the destination.
+     * Queue the broadcast message for the destination.
      * 
-     * @param broadcast The broadcast payload message
+     * @param broadcast The encoded broadcast payload message
      */
-    public synchronized void forwardBroadcast(Packet broadcast) throws IOException {
-        
-        // Any broadcasting attempts must be blocked until the servicer has had the chance
-        // to respond to the leaf with a RegistrationResponse.
-        while (!this.ready) {
-            try {
-                logger.debug("Waiting for " + this.serviceThread.getName() + " to be ready");
-                this.wait();
-            } catch (InterruptedException ex) {
-                logger.error("CRITICAL: Interrupted while waiting for servicer to get ready.");
-                return;
-            }
+    @Override
+    public void forwardBroadcast(EncodedPacket broadcast) {
+        if (this.outbound.offer(broadcast) > 0) {
+            logger.warn("Outbound queue of " + this.getDestination() + " is full, dropped oldest broadcast");
+        }
+    }
+
+    /**
+     * Send the queued broadcast messages to the destination.
+     */
+    @Override
+    public void drainOutbound() throws IOException {
+
+        // Broadcasts stay queued until the servicer has had the chance to respond to
+        // the leaf with a RegistrationResponse.
+        if (!this.ready) {
+            return;
+        }
+
+        EncodedPacket broadcast = null;
+        while ((broadcast = this.outbound.poll()) != null) {
+            this.send(broadcast);
+        }
+    }
+
+    /**
+     * Send the leaf its RegistrationResponse again, once the servicer has sent it the first time.
+     */
+    @Override
+    public void resendRegistration() throws IOException {
+        if (!this.ready) {
+            return;
         }
 
-        this.send(broadcast);
+        this.send(this.branch.createRegistrationResponse(this), WireFormat.FIXED, PacketChecksum.CRC32);
     }
 
     /**
      * Stop the leaf servicer by interrupting it, causing it to terminate.
      */
+    @Override
     public void stop() {
         this.serviceThread.interrupt();
         this.close();
@@ -124,30 +183,38 @@ public class DedicatedLeafServicer extends Transport implements Runnable {
         }
 
         // Inform the leaf that they have been registered
-        RegistrationResponse response = new RegistrationResponse();
-        response.setStatus(true);
-        response.setRegistrationDetails("OK");
+        RegistrationResponse response = this.branch.createRegistrationResponse(this);
         
+        // The response is always in the fixed format and CRC32, which every leaf understands.
         try {
-            this.send(response);
+            this.send(response, WireFormat.FIXED, PacketChecksum.CRC32);
             logger.debug("Sent successful RegistrationRequest packet to leaf");
             
             // Set the state of this servicer to ready now that we have forwarded the
-            // registration response to the client.
-            synchronized (this) {
-                this.ready = true;
-                this.notifyAll();
-            }
+            // registration response to the client, and send whatever was broadcast meanwhile.
+            this.ready = true;
+            this.branch.onLeafReady(this);
 
             // Begin the receive-respond loop of the servicer.
             while (true) {
                 Packet request = this.receive();
-                logger.info("received packet from leaf: " + request);
+                logger.info(packetSampler, () -> "received packet from leaf: " + request);
 
                 synchronized (this) {
                     this.lastReceivedTime = System.currentTimeMillis();
                 }
 
+                // Push back the time when this leaf is pruned.
+                this.branch.onLeafActivity(this);
+
+                // Sequenced packets are acknowledged through the window, covering the
+                // packets received out of order as well.
+                if (request.isSequenced()) {
+                    this.send(this.branch.manageSequenced(this.account, this.receiveWindow, request));
+                    this.send(this.receiveWindow.createAcknowledgement());
+                    continue;
+                }
+
                 // Invoke the packet manager that will return a packet we can send back to the leaf.
                 this.send(this.branch.manage(this.account, request));
             }
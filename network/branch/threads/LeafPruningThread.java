@@ -1,16 +1,19 @@
 package network.branch.threads;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import logging.SmartLog;
 import network.branch.Branch;
-import network.branch.threads.DedicatedLeafServicer;
+import network.branch.LeafExpiryWheel;
+import network.branch.LeafSession;
 
 /**
  * LeafPruningThread is spawned when a branch is created to
  * clean up leaves that have stopped communicating.
+ *
+ * Sessions are tracked in a LeafExpiryWheel. Every packet received
+ * by a session reschedules its deadline, and every interval this thread
+ * advances the wheel and removes only the sessions that have expired.
  * 
  * @author Ahmed Sakr
  * @since October 27, 2019
@@ -20,54 +23,68 @@ public class LeafPruningThread extends Thread {
     // The logger instance for this class.
     private static SmartLog logger = new SmartLog(LeafPruningThread.class.getName());
 
-    // The period at which this thread kicks off to check for pruning validity.
-    public static final int LEAF_PRUNING_INTERVAL = 2500;
+    // The period at which this thread advances the expiry wheel.
+    public static final int LEAF_PRUNING_INTERVAL = 100;
 
     // The time that elapses after no packet has been received when pruning should kick in.
     public static final int LEAF_PRUNING_THRESHOLD = 5000;
 
+    // The number of slots in the expiry wheel, spanning 6.4 seconds at the pruning interval.
+    private static final int EXPIRY_WHEEL_SIZE = 64;
+
     // The branch that we are pruning dead leaves from.
     private Branch branch;
 
+    // The deadlines of all sessions on the branch.
+    private LeafExpiryWheel wheel;
+
     public LeafPruningThread(Branch branch) {
         super(String.format("%sBranch-PruningThread", branch));
         this.branch = branch;
+        this.wheel = new LeafExpiryWheel(LEAF_PRUNING_INTERVAL, EXPIRY_WHEEL_SIZE,
+            LEAF_PRUNING_THRESHOLD, System.currentTimeMillis());
 
         // Immediately start the pruning thread.
         this.start();
     }
 
+    /**
+     * Schedule the session to be pruned once it has not received a packet for the
+     * pruning threshold. Invoked whenever the session receives a packet.
+     *
+     * @param session The session whose deadline is being pushed back
+     */
+    public void schedule(LeafSession session) {
+        this.wheel.schedule(session);
+    }
+
+    /**
+     * Stop tracking the session for pruning.
+     *
+     * @param session The session that has been removed from the branch
+     */
+    public void cancel(LeafSession session) {
+        this.wheel.cancel(session);
+    }
+
     @Override
     public void run() {
         while (true) {
-
-            ArrayList<DedicatedLeafServicer> servicers = null;
-
             try {
 
                 // Sleep the interval time specified for pruning
                 Thread.sleep(LEAF_PRUNING_INTERVAL);
-                
-                // This whole operation is a critical section.
-                // No one should be able to modify the list of servicers until
-                // we are done.
-                synchronized (this.branch) {
-                    servicers = this.branch.getServicers();
-                    long currentTime = System.currentTimeMillis();
-
-                    // Check and collect all servicers whose leaf has not communicated past the
-                    // acceptable threshold.
-                    List<DedicatedLeafServicer> deadServicers = 
-                        servicers.stream()
-                            .filter((servicer) -> currentTime - servicer.getLastReceivedTime() >= LEAF_PRUNING_THRESHOLD)
-                            .collect(Collectors.toList());
-
-                    // Remove all dead servicers from the branch
-                    deadServicers.forEach((servicer) -> this.branch.removeLeaf(servicer));
-                }
+
+                // Only the sessions whose deadline has passed are visited. The branch is
+                // never locked, so leaves keep being added and removed while we prune.
+                List<LeafSession> deadSessions = this.wheel.expire(System.currentTimeMillis());
+
+                // Remove all dead sessions from the branch
+                deadSessions.forEach((session) -> this.branch.removeLeaf(session));
             } catch (InterruptedException ex) {
                 logger.error("Interrupted while sleeping. Pruning for branch " + this.branch + " is disabled.");
+                return;
             }
         }
     }
-}
\ No newline at end of file
+}
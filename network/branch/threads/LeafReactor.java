@@ -0,0 +1,148 @@
+package network.branch.threads;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import logging.SmartLog;
+import network.branch.Branch;
+import network.branch.ReactorLeafSession;
+import network.core.Packet;
+
+/**
+ * LeafReactor is a worker thread spawned by branches to multiplex the
+ * sockets of many leaf sessions over a single Selector. Instead of a
+ * thread blocking on each leaf socket, the reactor waits for any of its
+ * sessions to become readable and services them in turn.
+ *
+ * Any work that touches the selector or the sessions of this reactor
+ * is submitted through execute() so that it runs on the reactor thread.
+ *
+ * A task or session that fails never takes the reactor down with it: the
+ * failure is logged, and only the session that failed is removed.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LeafReactor extends Thread {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(LeafReactor.class.getName());
+
+    // The branch whose leaves this reactor services.
+    private Branch branch;
+
+    // The selector multiplexing all session channels of this reactor.
+    private Selector selector;
+
+    // Work submitted by other threads to run on the reactor thread.
+    private ConcurrentLinkedQueue<Runnable> tasks;
+
+    // The buffer that every session of this reactor receives payloads into.
+    private ByteBuffer receiveBuffer;
+
+    /**
+     * Initialize the reactor and immediately start it.
+     *
+     * @param branch The branch whose leaves this reactor services
+     * @param id The index of this reactor within the branch
+     * @throws IOException If the selector could not be opened
+     */
+    public LeafReactor(Branch branch, int id) throws IOException {
+        super(String.format("%sBranch-Reactor-%d", branch, id));
+
+        this.branch = branch;
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.receiveBuffer = ByteBuffer.allocate(Packet.PACKET_SIZE);
+
+        // Immediately start the reactor.
+        this.start();
+    }
+
+    /**
+     * Run the task on the reactor thread.
+     *
+     * @param task The work to run on the reactor thread
+     */
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+
+        // Wake the reactor up from its select so that it picks up the task.
+        this.selector.wakeup();
+    }
+
+    /**
+     * Start multiplexing the channel of the session on this reactor.
+     *
+     * @param session The session that owns the channel
+     * @param channel The non-blocking channel that the leaf sends its packets to
+     */
+    public void register(ReactorLeafSession session, DatagramChannel channel) {
+        this.execute(() -> {
+            try {
+                channel.register(this.selector, SelectionKey.OP_READ, session);
+                session.onRegistered();
+            } catch (ClosedChannelException ex) {
+                logger.warn("Session for " + session.getDestination() + " was stopped before registering");
+            }
+        });
+    }
+
+    /**
+     * Retrieve the receive buffer shared by the sessions of this reactor.
+     *
+     * Only safe to use on the reactor thread.
+     *
+     * @return The buffer to receive payloads into.
+     */
+    public ByteBuffer getReceiveBuffer() {
+        return this.receiveBuffer;
+    }
+
+    /**
+     * The entry point of the reactor thread.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!this.isInterrupted()) {
+                this.selector.select();
+
+                // Run the work handed to us by other threads first.
+                Runnable task = null;
+                while ((task = this.tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException ex) {
+                        logger.error(this.getName() + " failed to run a task: " + ex);
+                    }
+                }
+
+                // Service every session whose leaf has sent us packets.
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    ReactorLeafSession session = (ReactorLeafSession) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            session.onReadable();
+                        }
+                    } catch (RuntimeException ex) {
+                        logger.error("Failed to service " + session.getDestination() + ", removing it: " + ex);
+                        this.branch.removeLeaf(session);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            logger.fatal("CRITICAL: " + this.getName() + " failed to select: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package network.branch.threads;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import logging.SmartLog;
+import network.branch.Branch;
+import network.branch.LeafSession;
+
+/**
+ * OutboundDrainThread is spawned when a branch is created to send the
+ * packets queued on the outbound queues of its sessions. Broadcasting
+ * only queues the encoded packet on every session and hands the session
+ * to this thread, so the broadcaster never waits on any single leaf.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class OutboundDrainThread extends Thread {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(OutboundDrainThread.class.getName());
+
+    // The branch whose sessions are being drained.
+    private Branch branch;
+
+    // The sessions that may have queued packets to send.
+    private LinkedBlockingQueue<LeafSession> pending;
+
+    /**
+     * Initialize the drain thread and immediately start it.
+     *
+     * @param branch The branch whose sessions are being drained
+     */
+    public OutboundDrainThread(Branch branch) {
+        super(String.format("%sBranch-OutboundDrainThread", branch));
+        this.branch = branch;
+        this.pending = new LinkedBlockingQueue<>();
+
+        // Immediately start the drain thread.
+        this.start();
+    }
+
+    /**
+     * Request the queued packets of the session to be sent.
+     *
+     * @param session The session with queued packets
+     */
+    public void schedule(LeafSession session) {
+        this.pending.add(session);
+    }
+
+    /**
+     * The entry point of the drain thread.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            LeafSession session = null;
+
+            try {
+                session = this.pending.take();
+            } catch (InterruptedException ex) {
+                logger.error("Interrupted while waiting. Outbound packets for branch " + this.branch + " are no longer sent.");
+                return;
+            }
+
+            // A failure to reach one leaf must not hold back the rest.
+            try {
+                session.drainOutbound();
+            } catch (IOException ex) {
+                logger.error("Failed to send queued packets to " + session.getDestination() + ": " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package network.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * EncodedPacket is an immutable snapshot of the payload of a compiled
+ * Packet. Encoding a packet once allows it to be sent to many
+ * destinations without building it and computing its CRC32 for every
+ * one of them.
+ *
+ * The payload can be shared across threads freely; every caller is
+ * handed a read-only view of its own.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public final class EncodedPacket {
+
+    // The compiled payload, never modified once copied in.
+    private final byte[] payload;
+
+    // Whether the packet was encoded as a broadcast.
+    private final boolean broadcast;
+
+    /**
+     * Snapshot the compiled payload of a packet.
+     *
+     * @param payload The compiled payload, whose first length bytes are copied
+     * @param length The number of bytes on the wire
+     * @param broadcast Whether the packet is a broadcast packet
+     */
+    EncodedPacket(byte[] payload, int length, boolean broadcast) {
+        this.payload = Arrays.copyOf(payload, length);
+        this.broadcast = broadcast;
+    }
+
+    /**
+     * Check if this packet was encoded as a broadcast packet.
+     *
+     * @return  true    if the packet is broadcast
+     *          false   Otherwise
+     */
+    public boolean isBroadcast() {
+        return this.broadcast;
+    }
+
+    /**
+     * Retrieve the opcode value of this packet.
+     *
+     * @return The byte value of the opcode for this packet
+     */
+    public byte getOpCode() {
+        return this.payload[0];
+    }
+
+    /**
+     * Retrieve a read-only view of the payload, positioned at its first byte.
+     *
+     * @return A fresh read-only buffer over the payload
+     */
+    public ByteBuffer getPayload() {
+        return ByteBuffer.wrap(this.payload).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,137 @@
+package network.core;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.util.Enumeration;
+
+/**
+ * MulticastTransport is a Transport over an IP multicast group. Branches
+ * use it to send a single datagram that reaches every leaf that joined
+ * the group, and leaves use it to receive those datagrams.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MulticastTransport extends Transport {
+
+    // Broadcasts never need to leave the local network.
+    public static final int MULTICAST_TTL = 1;
+
+    private DatagramChannel channel;
+    private InetAddress group;
+
+    // The interface that the group is joined on, or null for the system default.
+    private NetworkInterface networkInterface;
+
+    // The membership of the group, while it is joined.
+    private MembershipKey membership;
+
+    /**
+     * Open a transport on a random port that sends to the multicast group.
+     *
+     * @param group The IPv4 multicast address and port of the group
+     * @param networkInterface The interface to send through, or null for the system default
+     * @throws IOException If the multicast socket could not be opened
+     */
+    public MulticastTransport(NodeLocation group, NetworkInterface networkInterface) throws IOException {
+        this(group, networkInterface, openChannel(new InetSocketAddress(0), true));
+    }
+
+    /**
+     * Open a transport listening on the specified port, which is able to join the
+     * multicast group.
+     *
+     * @param group The IPv4 multicast address and port of the group
+     * @param networkInterface The interface to join the group on, or null for the system default
+     * @param port The port to listen on, normally the port of the group
+     * @throws IOException If the multicast socket could not be opened
+     */
+    public MulticastTransport(NodeLocation group, NetworkInterface networkInterface, int port) throws IOException {
+        this(group, networkInterface, openChannel(new InetSocketAddress(port), true));
+    }
+
+    /*
+     * Configure the channel for the group.
+     */
+    private MulticastTransport(NodeLocation group, NetworkInterface networkInterface, DatagramChannel channel) throws IOException {
+        super(channel);
+
+        this.channel = channel;
+        this.group = InetAddress.getByName(group.getIpAddress());
+        this.networkInterface = networkInterface;
+
+        this.channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, MULTICAST_TTL);
+        if (networkInterface != null) {
+            this.channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+        }
+
+        // Everything sent on this transport goes to the group.
+        this.setDestination(group);
+    }
+
+    /**
+     * Start receiving the datagrams sent to the group.
+     *
+     * @throws IOException If the group could not be joined
+     */
+    public synchronized void joinGroup() throws IOException {
+        if (this.membership != null) {
+            return;
+        }
+
+        NetworkInterface joinInterface = this.networkInterface;
+        if (joinInterface == null) {
+            joinInterface = getDefaultInterface();
+        }
+
+        this.membership = this.channel.join(this.group, joinInterface);
+    }
+
+    /**
+     * Stop receiving the datagrams sent to the group.
+     *
+     * @throws IOException If the group could not be left
+     */
+    public synchronized void leaveGroup() throws IOException {
+        if (this.membership == null) {
+            return;
+        }
+
+        this.membership.drop();
+        this.membership = null;
+    }
+
+    /*
+     * Find the interface to join the group on when none was specified: the first interface
+     * that is up and supports multicast, preferring one that reaches beyond this machine.
+     */
+    private static NetworkInterface getDefaultInterface() throws SocketException {
+        NetworkInterface loopback = null;
+
+        Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+        while (interfaces.hasMoreElements()) {
+            NetworkInterface candidate = interfaces.nextElement();
+            if (!candidate.isUp() || !candidate.supportsMulticast()) {
+                continue;
+            }
+
+            if (!candidate.isLoopback()) {
+                return candidate;
+            }
+
+            loopback = candidate;
+        }
+
+        if (loopback == null) {
+            throw new SocketException("No network interface supports multicast");
+        }
+
+        return loopback;
+    }
+}
@@ -8,7 +8,8 @@ package network.core;
  */
 public class NetworkErrors {
 
-    // Used by the central processing server when it receives a registration request from an existing leaf.
+    // Used by older central processing servers when they receive a registration request from an existing
+    // leaf. Servers now send the leaf its RegistrationResponse again instead.
     public static final byte LEAF_ALREADY_REGISTERED = 0;
 
     // Used by any node that receives a packet that it did not expect (e.g., Plant endpoint receiving
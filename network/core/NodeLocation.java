@@ -5,14 +5,17 @@ package network.core;
  * SmartGrow network, importantly its IPv4 address and its
  * port.
  * 
+ * NodeLocations are immutable values, making them suitable as
+ * keys for looking up the session of a leaf.
+ * 
  * @author Ahmed Sakr
  * @since October 17, 2019
  */
 public class NodeLocation {
 
     // The address and remote port of the SmartGrow node
-    private String ipAddress;
-    private int port;
+    private final String ipAddress;
+    private final int port;
     
     /**
      * Constructs a NodeLocation object with the specified ipAddress and port.
@@ -62,12 +65,27 @@ public class NodeLocation {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+
         if (object == null || !(object instanceof NodeLocation)) {
             return false;
         }
 
         NodeLocation location = (NodeLocation) object;
-        return this.getPort() == location.getPort() && this.getIpAddress().equals(this.ipAddress);
+        return this.port == location.port && this.ipAddress.equals(location.ipAddress);
+    }
+
+    /**
+     * Override the default hashCode method to be consistent with equals, allowing
+     * NodeLocations to be used as keys in hash tables.
+     *
+     * @return A hash of the port and IP address.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * this.ipAddress.hashCode() + this.port;
     }
 
 }
\ No newline at end of file
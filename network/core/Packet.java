@@ -2,10 +2,9 @@ package network.core;
 
 import java.net.DatagramPacket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.zip.CRC32;
 
 import network.core.packets.Acknowledgement;
 import network.core.packets.GenericError;
@@ -27,7 +26,16 @@ import network.core.exceptions.OpCodeNotRecognizedException;
  * data communicated within the network.
  * 
  * Integrity verification is also enabled within Packets
- * using Cyclic Redundancy Checks (CRC32 specifically).
+ * using Cyclic Redundancy Checks (CRC32, or CRC32C where negotiated).
+ * 
+ * Packets are sent in one of two wire formats. The FIXED format pads
+ * every packet to 512 bytes. The COMPACT format is flagged in the
+ * destination byte, follows the header with a 16-bit body length, and
+ * only sends the bytes in use. Both formats are decoded transparently.
+ * 
+ * Packets sent with reliable delivery carry a sequence number, and requests
+ * (and their responses) may carry a correlation id. Both are flagged in the
+ * destination byte and follow the header in either format, in that order.
  * 
  * @author Ahmed Sakr
  * @since October 10, 2019
@@ -37,14 +45,56 @@ public abstract class Packet {
     // All packets are fixed to be 512 bytes at all times.
     public static final int PACKET_SIZE = 512;
 
+    // The opcode and destination bytes precede the contents of every packet.
+    public static final int HEADER_SIZE = 2;
+
+    // Compact packets follow the header with the 16-bit length of their body.
+    public static final int COMPACT_HEADER_SIZE = HEADER_SIZE + 2;
+
+    // The protocol version of this endpoint, advertised during registration. Version 1
+    // introduced the compact wire format, version 2 sequenced (reliable) delivery, and
+    // version 3 correlation ids.
+    public static final int PROTOCOL_VERSION = 3;
+
+    // The lowest protocol versions that understand sequenced and correlated packets.
+    public static final int SEQUENCED_PROTOCOL_VERSION = 2;
+    public static final int CORRELATED_PROTOCOL_VERSION = 3;
+
+    // Sequenced packets follow the header with their 32-bit sequence number, and correlated
+    // packets with their 32-bit correlation id.
+    public static final int SEQUENCE_SIZE = 4;
+    public static final int CORRELATION_SIZE = 4;
+
+    // The last 4 bytes of every packet hold the checksum.
+    public static final int CRC_SIZE = 4;
+
     // The intended target for this packet
     public static byte DESTINATION_SINGLE = 0;
     public static byte DESTINATION_BROADCAST = 1;
 
-    private CRC32 crc;
+    // The flag of the destination byte marking a packet in the compact wire format.
+    public static final byte COMPACT_FLAG = (byte)0x80;
+
+    // The flag of the destination byte marking a packet that carries a sequence number.
+    public static final byte SEQUENCED_FLAG = (byte)0x20;
+
+    // The flag of the destination byte marking a packet that carries a correlation id.
+    public static final byte CORRELATED_FLAG = (byte)0x10;
+
     private byte[] data;
     private int size;
 
+    // The sequence number of this packet, if it is sent with reliable delivery.
+    private int sequence;
+    private boolean sequenced;
+
+    // The id matching a response to its request, if the request was correlated.
+    private int correlationId;
+    private boolean correlated;
+
+    // The number of bytes on the wire since the last compile.
+    private int length;
+
     private DatagramPacket packet;
 
     /**
@@ -61,8 +111,8 @@ public abstract class Packet {
 
         // The first 2 bytes are initialized as the opcode and destination type
         this.size = 2;
+        this.length = PACKET_SIZE;
 
-        this.crc = new CRC32();
         this.packet = new DatagramPacket(this.data, this.data.length);
     }
 
@@ -73,7 +123,7 @@ public abstract class Packet {
      *          false   Otherwise
      */
     public boolean isBroadcast() {
-        return this.data[1] == DESTINATION_BROADCAST;
+        return (this.data[1] & DESTINATION_BROADCAST) == DESTINATION_BROADCAST;
     }
 
     /**
@@ -82,7 +132,70 @@ public abstract class Packet {
      * @param broadcast The packet is intended for multiple destinations.
      */
     public void setBroadcast(boolean broadcast) {
-        this.data[1] = broadcast ? DESTINATION_BROADCAST : DESTINATION_SINGLE;
+        this.data[1] = (byte)((this.data[1] & ~DESTINATION_BROADCAST) | (broadcast ? DESTINATION_BROADCAST : DESTINATION_SINGLE));
+    }
+
+    /**
+     * Check if this packet carries a sequence number.
+     *
+     * @return  true    if the packet is sequenced
+     *          false   Otherwise
+     */
+    public boolean isSequenced() {
+        return this.sequenced;
+    }
+
+    /**
+     * Retrieve the sequence number of this packet.
+     *
+     * @return The sequence number, which is only meaningful if the packet is sequenced.
+     */
+    public int getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Assign a sequence number to this packet, sending it as a sequenced packet from
+     * the next compile onwards. Only endpoints that negotiated protocol version 2 or
+     * later understand sequenced packets.
+     *
+     * @param sequence The sequence number of the packet
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+        this.sequenced = true;
+    }
+
+    /**
+     * Check if this packet carries a correlation id.
+     *
+     * @return  true    if the packet is correlated
+     *          false   Otherwise
+     */
+    public boolean isCorrelated() {
+        return this.correlated;
+    }
+
+    /**
+     * Retrieve the correlation id of this packet.
+     *
+     * @return The correlation id, which is only meaningful if the packet is correlated.
+     */
+    public int getCorrelationId() {
+        return this.correlationId;
+    }
+
+    /**
+     * Assign a correlation id to this packet, sending it as a correlated packet from
+     * the next compile onwards. Responses to a correlated request carry the id of the
+     * request. Only endpoints that negotiated protocol version 3 or later understand
+     * correlated packets.
+     *
+     * @param correlationId The correlation id of the packet
+     */
+    public void setCorrelationId(int correlationId) {
+        this.correlationId = correlationId;
+        this.correlated = true;
     }
 
     /**
@@ -122,6 +235,15 @@ public abstract class Packet {
         this.packet.setPort(leafLocation.getPort());
     }
 
+    /**
+     * Set the target destination ip and port using an already resolved socket address.
+     *
+     * @param address The IPv4 address and port of the destination
+     */
+    public void setDestination(InetSocketAddress address) {
+        this.packet.setSocketAddress(address);
+    }
+
     /**
      * Set the target destination ip and port for this packet.
      * 
@@ -135,15 +257,51 @@ public abstract class Packet {
 
     /**
      * Creates a Packet subclass based on the opcode.
-     * @return
+     *
+     * @param payload An array containing the received packet, in either wire format
+     * @return The Packet subclass decoded from the payload
      */
     public static Packet fromPayload(byte[] payload) throws CorruptPacketException {
-        if (payload.length != PACKET_SIZE) {
+        return fromPayload(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Creates a Packet subclass based on the opcode, reading the fields in place
+     * from the remaining bytes of the buffer.
+     *
+     * The buffer is not modified and no reference to it is kept, allowing the caller
+     * to reuse it for the next receive as soon as this method returns.
+     *
+     * @param payload A buffer whose remaining bytes contain the received packet, either
+     *                512 bytes in the fixed format or a length-prefixed compact packet
+     * @return The Packet subclass decoded from the payload
+     */
+    public static Packet fromPayload(ByteBuffer payload) throws CorruptPacketException {
+        if (payload.remaining() < COMPACT_HEADER_SIZE + CRC_SIZE) {
+            throw new CorruptPacketException("Packet is shorter than its header and CRC");
+        }
+
+        int start = payload.position();
+        boolean compact = (payload.get(start + 1) & COMPACT_FLAG) != 0;
+
+        if (compact) {
+
+            // The packet ends right after the CRC following its body. Anything beyond is ignored.
+            int length = COMPACT_HEADER_SIZE + (payload.getShort(start + HEADER_SIZE) & 0xFFFF) + CRC_SIZE;
+            if (length > payload.remaining() || length > PACKET_SIZE) {
+                throw new CorruptPacketException("Compact packet length exceeds the payload");
+            }
+
+            if (length != payload.remaining()) {
+                payload = payload.duplicate();
+                payload.limit(start + length);
+            }
+        } else if (payload.remaining() != PACKET_SIZE) {
             throw new CorruptPacketException("Packet size is not 512 bytes");
         }
 
         Packet pkt = null;
-        switch (payload[0]) {
+        switch (payload.get(start)) {
             case OpCodes.LEAF_REGISTRATION:
                 pkt = new LeafRegistration();
                 break;
@@ -169,35 +327,61 @@ public abstract class Packet {
                 throw new OpCodeNotRecognizedException("Packet OpCode is not recognized");
         }
 
-        // Verify the integrity of the packet using the CRC32 checksum
-        if (!pkt.verifyPacket(payload)) {
+        // Verify the integrity of the packet using the checksum it is flagged with.
+        PacketChecksum checksum = PacketChecksum.fromFlags(payload.get(start + 1));
+        if (!checksum.isAvailable()) {
+            throw new CRCVerificationException("Checksum " + checksum + " is not supported");
+        }
+
+        if (!pkt.verifyPacket(payload, checksum)) {
             throw new CRCVerificationException("CRC check failed");
         }
 
         // Extract the destination target from the payload
-        pkt.setBroadcast(payload[1] == Packet.DESTINATION_BROADCAST);
+        pkt.setBroadcast((payload.get(start + 1) & Packet.DESTINATION_BROADCAST) == Packet.DESTINATION_BROADCAST);
+
+        // The sequence number of sequenced packets precedes the body.
+        int offset = start + (compact ? COMPACT_HEADER_SIZE : HEADER_SIZE);
+        if ((payload.get(start + 1) & SEQUENCED_FLAG) != 0) {
+            if (offset + SEQUENCE_SIZE > payload.limit() - CRC_SIZE) {
+                throw new CorruptPacketException("Sequenced packet is shorter than its sequence number");
+            }
+
+            pkt.setSequence(payload.getInt(offset));
+            offset += SEQUENCE_SIZE;
+        }
+
+        // The correlation id of correlated packets follows the sequence number.
+        if ((payload.get(start + 1) & CORRELATED_FLAG) != 0) {
+            if (offset + CORRELATION_SIZE > payload.limit() - CRC_SIZE) {
+                throw new CorruptPacketException("Correlated packet is shorter than its correlation id");
+            }
+
+            pkt.setCorrelationId(payload.getInt(offset));
+            offset += CORRELATION_SIZE;
+        }
 
         // Extract the rest of the items from the packet using the subclass implementation
-        // of extract().
-        pkt.extract(Arrays.copyOfRange(payload, 2, payload.length));
+        // of extract(), which reads straight out of the payload past the header.
+        pkt.extract(payload, offset);
 
         return pkt;
     }
 
     /**
-     * Verify the payload using the CRC32 at the end of the payload.
+     * Verify the payload in place using the checksum at the end of the payload.
      * 
-     * @param payload A 512-byte array (with the last 4 bytes being the CRC32)
+     * @param payload A buffer whose remaining bytes are the packet (with the last 4 bytes being the checksum)
+     * @param checksum The checksum that the packet is protected by
      * 
      * @return        true      if the payload is valid
      *                false     otherwise
      */
-    protected boolean verifyPacket(byte[] payload) {
-        this.crc.reset();
-        this.crc.update(payload, 0, payload.length - 4);
-        byte[] payload_crc = Arrays.copyOfRange(payload, payload.length - 4, payload.length);
+    protected boolean verifyPacket(ByteBuffer payload, PacketChecksum checksum) {
+        int crcIndex = payload.limit() - CRC_SIZE;
 
-        return (int)this.crc.getValue() == this.convertBytesToInt(payload_crc);
+        // The checksum is stored Big-Endian, which is the default byte order of the buffer.
+        return checksum.compute(payload, payload.position(), crcIndex) == payload.getInt(crcIndex);
     }
 
     /**
@@ -216,20 +400,102 @@ public abstract class Packet {
      *
      */
     public void compile() {
-        
-        // Reset the packet data by moving the size back to 2.
-        this.size = 2;
+        this.compile(WireFormat.FIXED);
+    }
+
+    /**
+     * Compile the data in the specified wire format.
+     *
+     * @param format The wire format of the compiled packet
+     */
+    public void compile(WireFormat format) {
+        this.compile(format, PacketChecksum.CRC32);
+    }
+
+    /**
+     * Compile the data in the specified wire format, protected by the specified checksum.
+     *
+     * @param format The wire format of the compiled packet
+     * @param checksum The checksum appended to the packet
+     */
+    public void compile(WireFormat format, PacketChecksum checksum) {
+        boolean compact = format == WireFormat.COMPACT;
+
+        // Flag the wire format, the checksum, the sequence number, and the correlation id
+        // in the destination byte.
+        int flags = this.data[1] & ~(COMPACT_FLAG | PacketChecksum.CHECKSUM_FLAGS | SEQUENCED_FLAG | CORRELATED_FLAG);
+        this.data[1] = (byte)(flags | (compact ? COMPACT_FLAG : 0) | checksum.getFlag()
+            | (this.sequenced ? SEQUENCED_FLAG : 0) | (this.correlated ? CORRELATED_FLAG : 0));
+
+        // Reset the packet data by moving the size back to the end of the header.
+        this.size = compact ? COMPACT_HEADER_SIZE : HEADER_SIZE;
+
+        // The sequence number and correlation id are part of the body as far as the compact
+        // length is concerned.
+        if (this.sequenced) {
+            this.addInt(this.sequence);
+        }
+
+        if (this.correlated) {
+            this.addInt(this.correlationId);
+        }
 
         // Invoke the subclass implementation to bring the packet contents in.
         this.build();
 
-        if (this.getFreeSpace() > 0) {
-            this.pad();
+        if (compact) {
+
+            // Prefix the body with its length, and send nothing past the CRC following it.
+            int bodyLength = this.size - COMPACT_HEADER_SIZE;
+            this.data[2] = (byte)(bodyLength >> 8);
+            this.data[3] = (byte)bodyLength;
+            this.length = this.size + CRC_SIZE;
+        } else {
+            if (this.getFreeSpace() > 0) {
+                this.pad();
+            }
+
+            this.length = PACKET_SIZE;
         }
 
         // Calculate the checksum using the payload data and insert it in the
-        // last 4 bytes in the array.
-        System.arraycopy(this.computeCRC(), 0, this.data, PACKET_SIZE - 4, 4);
+        // last 4 bytes of the packet.
+        this.insertChecksum(checksum);
+        this.packet.setLength(this.length);
+    }
+
+    /**
+     * Compile the packet and snapshot the resulting payload, allowing it to be
+     * sent to any number of destinations without being compiled again.
+     *
+     * @return The immutable encoding of this packet
+     */
+    public EncodedPacket encode() {
+        return this.encode(WireFormat.FIXED);
+    }
+
+    /**
+     * Compile the packet in the specified wire format and snapshot the resulting payload.
+     *
+     * @param format The wire format of the encoded packet
+     * @return The immutable encoding of this packet
+     */
+    public EncodedPacket encode(WireFormat format) {
+        return this.encode(format, PacketChecksum.CRC32);
+    }
+
+    /**
+     * Compile the packet in the specified wire format and checksum, and snapshot the
+     * resulting payload.
+     *
+     * @param format The wire format of the encoded packet
+     * @param checksum The checksum appended to the packet
+     * @return The immutable encoding of this packet
+     */
+    public EncodedPacket encode(WireFormat format, PacketChecksum checksum) {
+        this.compile(format, checksum);
+
+        return new EncodedPacket(this.data, this.length, this.isBroadcast());
     }
 
     /**
@@ -245,8 +511,14 @@ public abstract class Packet {
     /**
      * Subclass implementation for extracting the packet information from a
      * received payload.
+     *
+     * Implementations read their fields in place using the getter helpers
+     * (getInt(), getDouble(), getString()) rather than copying the payload.
+     *
+     * @param payload The received payload
+     * @param offset The index of the first byte following the packet header
      */
-    protected abstract void extract(byte[] payload);
+    protected abstract void extract(ByteBuffer payload, int offset);
 
     /**
      * Subclass implementation of what should be built into the packet.
@@ -323,54 +595,65 @@ public abstract class Packet {
     }
 
     /**
-     * Extracts an integer from the array starting at the specified index.
+     * Reads an integer from the payload at the specified index.
      *
-     * @param payload The payload to extract the integer from
-     * @param startingIndex The index into the array from which to extract the integer.
-     * @return An integer value composed of the 4 bytes from the array.
+     * @param payload The payload to read the integer from
+     * @param index The index into the payload from which to read the integer.
+     * @return An integer value composed of the 4 bytes at the index.
      */
-    protected int getInt(byte[] payload, int startingIndex) {
+    protected int getInt(ByteBuffer payload, int index) {
 
-        // Index would overlap with CRC or exceed array
-        if (startingIndex + Integer.BYTES > this.PACKET_SIZE - 4) {
+        // Index would overlap with CRC or exceed the payload
+        if (index + Integer.BYTES > payload.limit() - CRC_SIZE) {
             return -1;
         }
 
-        return this.convertBytesToInt(Arrays.copyOfRange(payload, startingIndex, startingIndex + Integer.BYTES));
+        return payload.getInt(index);
     }
 
     /**
-     * Extracts a double from the array starting at the specified index.
+     * Reads a double from the payload at the specified index.
      *
-     * @param payload The payload to extract the double from
-     * @param startingIndex The index into the array from which to extract the integer.
-     * @return A double value composed of the 8 bytes from the array.
+     * @param payload The payload to read the double from
+     * @param index The index into the payload from which to read the double.
+     * @return A double value composed of the 8 bytes at the index.
      */
-    protected double getDouble(byte[] payload, int startingIndex) {
+    protected double getDouble(ByteBuffer payload, int index) {
 
-        // Index would overlap with CRC or exceed array
-        if (startingIndex + Double.BYTES > payload.length - 4) {
+        // Index would overlap with CRC or exceed the payload
+        if (index + Double.BYTES > payload.limit() - CRC_SIZE) {
             return -1.0;
         }
 
-        return this.convertBytesToDouble(Arrays.copyOfRange(payload, startingIndex, startingIndex + Double.BYTES));
+        return payload.getDouble(index);
     }
 
-
     /**
-     * Extracts string from the array by searching for the terminating byte.
+     * Reads a string from the payload at the specified index by searching for
+     * the terminating byte.
      *
-     * @param array The byte-array containing the characters of the string
-     * @return A string representation of the byte array.
+     * @param payload The payload containing the characters of the string
+     * @param index The index of the first character of the string
+     * @return A string representation of the bytes up to the terminating byte.
      */
-    protected String getString(byte[] array) {
-        for (int i = 0; i < array.length; i++) {
-            if (array[i] == (byte)0) {
-                return new String(array, 0, i);
-            }
+    protected String getString(ByteBuffer payload, int index) {
+        int end = index;
+        int limit = payload.limit() - CRC_SIZE;
+
+        while (end < limit && payload.get(end) != (byte)0) {
+            end++;
+        }
+
+        if (payload.hasArray()) {
+            return new String(payload.array(), payload.arrayOffset() + index, end - index);
+        }
+
+        byte[] characters = new byte[end - index];
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = payload.get(index + i);
         }
 
-        return new String(array, 0, array.length);
+        return new String(characters);
     }
 
     /**
@@ -399,36 +682,19 @@ public abstract class Packet {
     }
 
     /**
-     * Converts a Big-Endian byte array to its integer representation.
-     * 
-     * @param array The 4-byte array containing the value of the integer
-     */
-    protected int convertBytesToInt(byte[] array) {
-        return  (int)((array[0] << 24) & 0xFF000000) +
-                (int)((array[1] << 16) & 0x00FF0000) +
-                (int)((array[2] << 8) & 0x0000FF00) +
-                (int)(array[3] & 0xFF);
-    }
-
-    /**
-     * Converts the byte array into a double value.
-     * 
-     * @param array The 8-byte array containing the value of the double
-     */
-    protected double convertBytesToDouble(byte[] array) {
-        return ByteBuffer.wrap(array).getDouble();
-    }
-
-    /**
-     * Computes the checksum for the whole payload including the padding.
+     * Computes the checksum for the whole packet including the padding, and stores it
+     * Big-Endian in the last 4 bytes of the packet.
      *
-     * @return
+     * @param checksum The checksum to compute
      */
-    private byte[] computeCRC() {
-        this.crc.reset();
-        this.crc.update(this.data, 0, this.data.length - 4);
-
-        return this.convertIntToBytes((int) this.crc.getValue());
+    private void insertChecksum(PacketChecksum checksum) {
+        int crcIndex = this.length - CRC_SIZE;
+        int value = checksum.compute(this.data, 0, crcIndex);
+
+        this.data[crcIndex] = (byte)(value >> 24);
+        this.data[crcIndex + 1] = (byte)(value >> 16);
+        this.data[crcIndex + 2] = (byte)(value >> 8);
+        this.data[crcIndex + 3] = (byte)value;
     }
 
     /**
@@ -0,0 +1,172 @@
+package network.core;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * PacketChecksum defines the checksums that a Packet can be protected by.
+ *
+ * CRC32 is understood by every endpoint. CRC32C is computed by a hardware
+ * intrinsic on modern JVMs and is considerably cheaper, but is only offered
+ * where java.util.zip.CRC32C exists (Java 9 and later, never on Android).
+ * The checksum of a packet is flagged in its destination byte, and is
+ * negotiated per leaf during registration.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public enum PacketChecksum {
+
+    CRC32((byte)0x00, "java.util.zip.CRC32"),
+    CRC32C((byte)0x40, "java.util.zip.CRC32C");
+
+    // The flags of the destination byte marking the checksum of a packet.
+    public static final byte CHECKSUM_FLAGS = (byte)0x40;
+
+    // The flag of this checksum in the destination byte.
+    private final byte flag;
+
+    // Whether the implementation of this checksum exists on this JVM.
+    private final boolean available;
+
+    // Checksum instances are stateful, so every thread keeps its own.
+    private final ThreadLocal<Checksum> checksums;
+
+    PacketChecksum(byte flag, final String implementation) {
+        this.flag = flag;
+        this.available = PacketChecksum.isPresent(implementation);
+        this.checksums = new ThreadLocal<Checksum>() {
+            @Override
+            protected Checksum initialValue() {
+                return PacketChecksum.instantiate(implementation);
+            }
+        };
+    }
+
+    /**
+     * Retrieve the flag of this checksum in the destination byte.
+     *
+     * @return The flag bits of this checksum
+     */
+    public byte getFlag() {
+        return this.flag;
+    }
+
+    /**
+     * Check if this checksum can be computed on this JVM.
+     *
+     * @return  true    If the implementation of the checksum exists
+     *          false   Otherwise
+     */
+    public boolean isAvailable() {
+        return this.available;
+    }
+
+    /**
+     * Compute the checksum over a range of the array.
+     *
+     * @param data The array holding the packet
+     * @param offset The index of the first byte to checksum
+     * @param length The number of bytes to checksum
+     * @return The 32-bit checksum
+     */
+    public int compute(byte[] data, int offset, int length) {
+        Checksum checksum = this.checksums.get();
+        checksum.reset();
+        checksum.update(data, offset, length);
+
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Compute the checksum over a range of the buffer, in place.
+     *
+     * @param buffer The buffer holding the packet
+     * @param from The index of the first byte to checksum
+     * @param to The index following the last byte to checksum
+     * @return The 32-bit checksum
+     */
+    public int compute(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            return this.compute(buffer.array(), buffer.arrayOffset() + from, to - from);
+        }
+
+        ByteBuffer checked = buffer.duplicate();
+        checked.position(from);
+        checked.limit(to);
+
+        Checksum checksum = this.checksums.get();
+        checksum.reset();
+
+        // Checksum::update(ByteBuffer) only exists since Java 9, while CRC32 has always had it.
+        if (checksum instanceof java.util.zip.CRC32) {
+            ((java.util.zip.CRC32) checksum).update(checked);
+        } else {
+            checksum.update(checked);
+        }
+
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Retrieve the checksum flagged in the destination byte of a packet.
+     *
+     * @param destination The destination byte of the packet
+     * @return The checksum that the packet is protected by
+     */
+    public static PacketChecksum fromFlags(byte destination) {
+        return (destination & CHECKSUM_FLAGS) == CRC32C.flag ? CRC32C : CRC32;
+    }
+
+    /**
+     * Retrieve the checksums that this endpoint is able to compute, as a bitmask of
+     * their ordinals.
+     *
+     * @return The bitmask of available checksums
+     */
+    public static int getSupported() {
+        int supported = 0;
+        for (PacketChecksum checksum : values()) {
+            if (checksum.available) {
+                supported |= 1 << checksum.ordinal();
+            }
+        }
+
+        return supported;
+    }
+
+    /**
+     * Negotiate the checksum to use with an endpoint, which is the cheapest checksum
+     * that both endpoints are able to compute.
+     *
+     * @param remoteSupported The bitmask of checksums advertised by the remote endpoint
+     * @return The checksum to protect packets exchanged with the remote endpoint with
+     */
+    public static PacketChecksum negotiate(int remoteSupported) {
+        int shared = remoteSupported & getSupported();
+        return (shared & (1 << CRC32C.ordinal())) != 0 ? CRC32C : CRC32;
+    }
+
+    /*
+     * Check if the checksum implementation exists without initializing it.
+     */
+    private static boolean isPresent(String implementation) {
+        try {
+            Class.forName(implementation, false, PacketChecksum.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+    /*
+     * Create an instance of the checksum implementation.
+     */
+    private static Checksum instantiate(String implementation) {
+        try {
+            return (Checksum) Class.forName(implementation).getDeclaredConstructor().newInstance();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Checksum " + implementation + " is not available", ex);
+        }
+    }
+}
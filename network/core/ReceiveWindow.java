@@ -0,0 +1,88 @@
+package network.core;
+
+import network.core.packets.Acknowledgement;
+
+/**
+ * ReceiveWindow tracks the sequenced packets received from a single
+ * sender, so that retransmissions are recognized and every received
+ * packet can be acknowledged.
+ *
+ * Packets may arrive out of order. The window remembers the highest
+ * sequence below which every packet was received, and which of the
+ * following RANGE packets were received as well. Senders never have
+ * more than RANGE packets outstanding, so sequences beyond the window
+ * are never expected.
+ *
+ * A ReceiveWindow is only ever used by one thread at a time: the thread
+ * servicing its sender, or the worker handling its packets.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ReceiveWindow {
+
+    // The number of sequences past the cumulative sequence that are tracked.
+    public static final int RANGE = Integer.SIZE;
+
+    // The highest sequence below which every packet was received. Senders start at sequence 0.
+    private int cumulative = -1;
+
+    // The packets received past the cumulative sequence: bit i stands for sequence cumulative + 1 + i.
+    private int received;
+
+    /**
+     * Check whether the packet has not been received before and lies within the window.
+     *
+     * @param sequence The sequence number of the packet
+     * @return  true    if the packet should be handled
+     *          false   if it is a retransmission, or too far ahead to be tracked
+     */
+    public boolean isNew(int sequence) {
+        int distance = sequence - this.cumulative;
+        if (distance <= 0 || distance > RANGE) {
+            return false;
+        }
+
+        return (this.received & (1 << (distance - 1))) == 0;
+    }
+
+    /**
+     * Record that the packet was received, advancing the cumulative sequence past
+     * every packet that is no longer missing.
+     *
+     * @param sequence The sequence number of a packet that isNew() accepted
+     */
+    public void record(int sequence) {
+        if (!this.isNew(sequence)) {
+            return;
+        }
+
+        this.received |= 1 << (sequence - this.cumulative - 1);
+
+        // Slide the window along for as long as the next sequence is present.
+        while ((this.received & 1) != 0) {
+            this.received >>>= 1;
+            this.cumulative++;
+        }
+    }
+
+    /**
+     * Retrieve the highest sequence below which every packet was received.
+     *
+     * @return The cumulative sequence
+     */
+    public int getCumulative() {
+        return this.cumulative;
+    }
+
+    /**
+     * Create the acknowledgement covering every packet received so far.
+     *
+     * @return The acknowledgement for the sender
+     */
+    public Acknowledgement createAcknowledgement() {
+
+        // Sequence cumulative + 1 is missing by definition, so the bitmap starts after it.
+        return new Acknowledgement(this.cumulative, this.received >>> 1);
+    }
+}
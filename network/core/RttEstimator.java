@@ -0,0 +1,139 @@
+package network.core;
+
+/**
+ * RttEstimator estimates the round-trip time to a single peer from the
+ * round trips that have been measured, and derives how long to wait for
+ * a response before assuming the request or its response was lost.
+ *
+ * The estimate follows Jacobson and Karels: a smoothed round-trip time
+ * and its mean deviation are both kept, and the timeout is the smoothed
+ * round-trip time plus four times the deviation. A stable network is
+ * given a timeout barely above its round-trip time, while a jittery one
+ * is given enough room to not retransmit needlessly.
+ *
+ * Round trips of retransmitted requests must not be sampled, since the
+ * response may have answered any of the transmissions (Karn's rule).
+ * Instead, every timeout doubles the timeout until a valid sample is
+ * measured again.
+ *
+ * An RttEstimator is safe to share between threads.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class RttEstimator {
+
+    // The smallest deviation accounted for, so a perfectly stable round trip still leaves room.
+    private static final long CLOCK_GRANULARITY_NANOS = 1000000;
+
+    // The bounds of the timeout (in nanoseconds).
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+
+    // The smoothed round-trip time and its mean deviation (in nanoseconds), once sampled.
+    private long smoothedRttNanos;
+    private long rttVarianceNanos;
+    private boolean sampled;
+
+    // The current timeout (in nanoseconds).
+    private long timeoutNanos;
+
+    /**
+     * Initialize an estimator that has not measured any round trips yet.
+     *
+     * @param initialTimeoutMs The timeout (in milliseconds) to use until the first round trip is measured
+     * @param minTimeoutMs The minimum timeout (in milliseconds)
+     * @param maxTimeoutMs The maximum timeout (in milliseconds), which backing off never exceeds
+     */
+    public RttEstimator(long initialTimeoutMs, long minTimeoutMs, long maxTimeoutMs) {
+        this.minTimeoutNanos = minTimeoutMs * 1000000;
+        this.maxTimeoutNanos = maxTimeoutMs * 1000000;
+        this.timeoutNanos = this.clamp(initialTimeoutMs * 1000000);
+    }
+
+    /**
+     * Update the estimate with a measured round trip.
+     *
+     * @param rttNanos The time (in nanoseconds) between sending a request once and receiving its response
+     */
+    public synchronized void sample(long rttNanos) {
+        if (rttNanos < 0) {
+            return;
+        }
+
+        // The first round trip is all we know: assume it deviates by half of itself.
+        if (!this.sampled) {
+            this.smoothedRttNanos = rttNanos;
+            this.rttVarianceNanos = rttNanos / 2;
+            this.sampled = true;
+        } else {
+
+            // The deviation is updated against the previous smoothed round-trip time (gains 1/4 and 1/8).
+            this.rttVarianceNanos = (3 * this.rttVarianceNanos + Math.abs(this.smoothedRttNanos - rttNanos)) / 4;
+            this.smoothedRttNanos = (7 * this.smoothedRttNanos + rttNanos) / 8;
+        }
+
+        this.timeoutNanos = this.clamp(this.smoothedRttNanos
+            + Math.max(CLOCK_GRANULARITY_NANOS, 4 * this.rttVarianceNanos));
+    }
+
+    /**
+     * Back off after waiting for a response in vain, doubling the timeout.
+     *
+     * Requests that were sent together usually time out together, and should only back
+     * off once: a timeout shorter than the current one was started before the last
+     * backoff, and is not counted again.
+     *
+     * @param usedTimeoutNanos The timeout (in nanoseconds) that expired
+     */
+    public synchronized void onTimeout(long usedTimeoutNanos) {
+        if (usedTimeoutNanos >= this.timeoutNanos) {
+            this.timeoutNanos = Math.min(this.maxTimeoutNanos, this.timeoutNanos * 2);
+        }
+    }
+
+    /**
+     * Retrieve the time to wait for a response before sending the request again.
+     *
+     * @return The timeout (in nanoseconds)
+     */
+    public synchronized long getTimeoutNanos() {
+        return this.timeoutNanos;
+    }
+
+    /**
+     * Retrieve the time to wait for a response before sending the request again.
+     *
+     * @return The timeout (in milliseconds), rounded up
+     */
+    public long getTimeoutMs() {
+        return toMillis(this.getTimeoutNanos());
+    }
+
+    /**
+     * Retrieve the smoothed round-trip time.
+     *
+     * @return The smoothed round-trip time (in nanoseconds), or -1 if no round trip was measured yet
+     */
+    public synchronized long getSmoothedRttNanos() {
+        return this.sampled ? this.smoothedRttNanos : -1;
+    }
+
+    /**
+     * Convert a time in nanoseconds to milliseconds, rounding up so that a wait of
+     * less than a millisecond is never mistaken for a wait of none (or forever).
+     *
+     * @param nanos The time (in nanoseconds)
+     * @return The time (in milliseconds), at least 1
+     */
+    public static long toMillis(long nanos) {
+        return Math.max(1, (nanos + 999999) / 1000000);
+    }
+
+    /*
+     * Restrict the timeout to the configured bounds.
+     */
+    private long clamp(long timeoutNanos) {
+        return Math.max(this.minTimeoutNanos, Math.min(this.maxTimeoutNanos, timeoutNanos));
+    }
+}
@@ -0,0 +1,222 @@
+package network.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SendWindow tracks the sequenced packets that have been sent to a
+ * single receiver but not acknowledged yet, allowing a sender to have
+ * several packets in flight instead of waiting for every one of them
+ * to be acknowledged before sending the next.
+ *
+ * Every packet is retransmitted until it is acknowledged. The time to
+ * wait before retransmitting is derived from the round trips measured
+ * by the acknowledgements, and backs off on every retransmission.
+ *
+ * A SendWindow is safe to share between the threads sending packets,
+ * receiving acknowledgements, and retransmitting.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class SendWindow {
+
+    // The outstanding packets, indexed by their sequence modulo the capacity.
+    private final Slot[] slots;
+
+    // The oldest sequence that has not been acknowledged, and the sequence of the next packet.
+    private int base;
+    private int next;
+
+    // The round-trip estimate of the receiver, which the retransmission timers are derived from.
+    private RttEstimator rtt;
+
+    /**
+     * Initialize an empty window.
+     *
+     * @param capacity The maximum number of packets in flight, which receivers track up to ReceiveWindow.RANGE of
+     * @param rtt The round-trip estimate of the receiver, which the window samples and backs off
+     */
+    public SendWindow(int capacity, RttEstimator rtt) {
+        if (capacity <= 0 || capacity > ReceiveWindow.RANGE) {
+            throw new IllegalArgumentException("Window capacity must be between 1 and " + ReceiveWindow.RANGE);
+        }
+
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new Slot();
+        }
+
+        this.rtt = rtt;
+    }
+
+    /**
+     * Reserve the sequence number of the next packet, blocking while the window is full.
+     * Every reserved sequence must be followed by a call to sent().
+     *
+     * @return The sequence number to send the packet with
+     * @throws InterruptedException If interrupted while waiting for room in the window
+     */
+    public synchronized int reserve() throws InterruptedException {
+        while (this.next - this.base >= this.slots.length) {
+            this.wait();
+        }
+
+        Slot slot = this.slot(this.next);
+        slot.packet = null;
+        slot.acknowledged = false;
+
+        return this.next++;
+    }
+
+    /**
+     * Record that the packet with the reserved sequence has been sent, starting its
+     * retransmission timer.
+     *
+     * @param sequence The sequence reserved for the packet
+     * @param packet The encoded packet, which is sent again as-is when retransmitted
+     */
+    public synchronized void sent(int sequence, EncodedPacket packet) {
+        Slot slot = this.slot(sequence);
+        slot.packet = packet;
+        slot.sentAt = System.nanoTime();
+        slot.timeoutNanos = this.rtt.getTimeoutNanos();
+        slot.retransmissions = 0;
+
+        // Let the retransmitting thread know that there is a new timer to wait for.
+        this.notifyAll();
+    }
+
+    /**
+     * Record the packets covered by an acknowledgement from the receiver, sliding the
+     * window past every packet that is no longer outstanding.
+     *
+     * The round trip of the most recently sent packet that is newly acknowledged and was
+     * never retransmitted is sampled: the acknowledgements of older packets in the same
+     * burst were held back for the newer ones, which would inflate the estimate.
+     *
+     * @param cumulative The highest sequence below which every packet was received
+     * @param selective The packets received beyond it, where bit i stands for sequence cumulative + 2 + i
+     * @return The number of packets newly acknowledged
+     */
+    public synchronized int onAcknowledgement(int cumulative, int selective) {
+        int acknowledged = 0;
+        long now = System.nanoTime();
+
+        // The most recent send time of the newly acknowledged packets that were never retransmitted.
+        long sampledSentAt = 0;
+        boolean sampled = false;
+
+        for (int sequence = this.base; sequence != this.next; sequence++) {
+            Slot slot = this.slot(sequence);
+            if (slot.packet == null || slot.acknowledged) {
+                continue;
+            }
+
+            int distance = sequence - cumulative;
+            boolean covered = distance <= 0
+                || (distance >= 2 && distance - 2 < Integer.SIZE && (selective & (1 << (distance - 2))) != 0);
+
+            if (covered) {
+                slot.acknowledged = true;
+                acknowledged++;
+
+                if (slot.retransmissions == 0 && (!sampled || slot.sentAt - sampledSentAt > 0)) {
+                    sampledSentAt = slot.sentAt;
+                    sampled = true;
+                }
+            }
+        }
+
+        if (sampled) {
+            this.rtt.sample(now - sampledSentAt);
+        }
+
+        // Release the slots of the acknowledged packets at the start of the window.
+        int released = 0;
+        while (this.base != this.next && this.slot(this.base).acknowledged) {
+            this.slot(this.base).packet = null;
+            this.base++;
+            released++;
+        }
+
+        if (released > 0) {
+            this.notifyAll();
+        }
+
+        return acknowledged;
+    }
+
+    /**
+     * Retrieve the number of packets that have not been acknowledged yet.
+     *
+     * @return The number of outstanding packets
+     */
+    public synchronized int getOutstanding() {
+        return this.next - this.base;
+    }
+
+    /**
+     * Block until at least one packet has gone unacknowledged for longer than its
+     * retransmission timeout, backing off and restarting the timers of the packets returned.
+     *
+     * @return The packets that are due to be sent again
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized List<EncodedPacket> awaitRetransmissions() throws InterruptedException {
+        List<EncodedPacket> due = new ArrayList<>();
+
+        while (true) {
+            long now = System.nanoTime();
+
+            // Wait indefinitely unless some packet has a timer running.
+            long wait = -1;
+
+            for (int sequence = this.base; sequence != this.next; sequence++) {
+                Slot slot = this.slot(sequence);
+                if (slot.packet == null || slot.acknowledged) {
+                    continue;
+                }
+
+                long remaining = slot.sentAt + slot.timeoutNanos - now;
+                if (remaining <= 0) {
+
+                    // The timer that expired backs off the estimate, and the next timer uses it.
+                    this.rtt.onTimeout(slot.timeoutNanos);
+                    due.add(slot.packet);
+                    slot.sentAt = now;
+                    slot.timeoutNanos = this.rtt.getTimeoutNanos();
+                    slot.retransmissions++;
+                } else if (wait < 0 || remaining < wait) {
+                    wait = remaining;
+                }
+            }
+
+            if (!due.isEmpty()) {
+                return due;
+            }
+
+            // A wait of zero is a wait forever, so a timer about to expire is rounded up.
+            this.wait(wait < 0 ? 0 : RttEstimator.toMillis(wait));
+        }
+    }
+
+    /*
+     * Retrieve the slot holding the sequence.
+     */
+    private Slot slot(int sequence) {
+        int index = sequence % this.slots.length;
+        return this.slots[index < 0 ? index + this.slots.length : index];
+    }
+
+    /*
+     * An outstanding packet and the state of its retransmission timer.
+     */
+    private static class Slot {
+        private EncodedPacket packet;
+        private long sentAt;
+        private long timeoutNanos;
+        private int retransmissions;
+        private boolean acknowledged;
+    }
+}
@@ -2,10 +2,17 @@ package network.core;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
-import java.net.UnknownHostException;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 
 import logging.SmartLog;
 import network.core.exceptions.CorruptPacketException;
@@ -17,6 +24,10 @@ import network.core.exceptions.TransportInterruptedException;
  * SmartGrow network will be capable of easily setting up
  * a connection and start communicating with other ends.
  * 
+ * The socket is a non-blocking channel. Receiving waits on a selector
+ * until a deadline rather than on a socket timeout, so that receives with
+ * ever-changing timeouts never touch the options of the socket.
+ * 
  * @author Ahmed Sakr
  * @since October 10, 2019
  */
@@ -28,18 +39,40 @@ public class Transport {
     // The default time to wait before timing out on a receive with timeout.
     public static final int RECEIVE_TIMEOUT_MS = 3000;
 
-    private DatagramSocket socket;
+    // The longest that a receive with timeout waits, keeping its deadline from overflowing.
+    private static final long MAX_RECEIVE_TIMEOUT_MS = Integer.MAX_VALUE;
+
+    // Packets never hold on to the payload they were decoded from, so every thread
+    // can keep reusing a single receive buffer instead of allocating one per packet.
+    private static final ThreadLocal<ReceiveBuffer> receiveBuffers = new ThreadLocal<ReceiveBuffer>() {
+        @Override
+        protected ReceiveBuffer initialValue() {
+            return new ReceiveBuffer();
+        }
+    };
+
+    private DatagramChannel channel;
     private NodeLocation destination;
 
+    // The selectors that receives wait on until a packet arrives, and that sends wait on
+    // when the socket buffer is full.
+    private Selector receiveSelector;
+    private Selector sendSelector;
+
+    // The destination resolved once, rather than on every send.
+    private InetSocketAddress destinationAddress;
+
+    // The wire format and checksum that packets are sent in, as negotiated with the destination.
+    private WireFormat wireFormat = WireFormat.FIXED;
+    private PacketChecksum checksum = PacketChecksum.CRC32;
+
     /**
      * 
      * @param port
      * @throws SocketException
      */
     public Transport(int port) throws SocketException {
-        this.socket = new DatagramSocket(port);
-
-        logger.debug("Initialized on port #" + port);
+        this(openChannel(new InetSocketAddress(port), false));
     }
 
     /**
@@ -49,10 +82,8 @@ public class Transport {
      * @param destination The fixed destination that is being
      */
     public Transport(NodeLocation destination) throws SocketException {
-        this.socket = new DatagramSocket();
+        this(openChannel(new InetSocketAddress(0), false));
         this.setDestination(destination);
-
-        logger.debug("Initialized on port #" + this.socket.getLocalPort());
     }
 
     /**
@@ -61,10 +92,74 @@ public class Transport {
      * @param port The port desired to listen on.
      */
     public Transport(NodeLocation destination, int port) throws SocketException {
-        this.socket = new DatagramSocket(port);
+        this(openChannel(new InetSocketAddress(port), false));
         this.setDestination(destination);
+    }
 
-        logger.debug("Initialized on port #" + port);
+    /**
+     * Allows subclasses to provide an already bound channel, such as one that
+     * joins a multicast group.
+     *
+     * @param channel The bound, non-blocking channel to send and receive on
+     * @throws SocketException If the selectors of the channel could not be opened
+     */
+    protected Transport(DatagramChannel channel) throws SocketException {
+        this.channel = channel;
+
+        try {
+            this.receiveSelector = Selector.open();
+            this.sendSelector = Selector.open();
+            this.channel.register(this.receiveSelector, SelectionKey.OP_READ);
+            this.channel.register(this.sendSelector, SelectionKey.OP_WRITE);
+        } catch (IOException ex) {
+            throw new SocketException("Unable to open selectors: " + ex.getMessage());
+        }
+
+        logger.debug("Initialized on port #" + this.getPort());
+    }
+
+    /**
+     * Open a non-blocking channel bound to the address.
+     *
+     * @param address The local address and port to bind to, where port 0 picks a random one
+     * @param multicast Whether the channel joins IPv4 multicast groups, sharing its port with
+     *                  the other members of the group
+     * @return The bound channel
+     * @throws SocketException If the channel could not be opened or bound
+     */
+    protected static DatagramChannel openChannel(InetSocketAddress address, boolean multicast) throws SocketException {
+        DatagramChannel channel = null;
+
+        try {
+            channel = multicast ? DatagramChannel.open(StandardProtocolFamily.INET) : DatagramChannel.open();
+            channel.socket().setReuseAddress(multicast);
+            channel.socket().bind(address);
+            channel.configureBlocking(false);
+            return channel;
+        } catch (IOException ex) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeEx) {
+                    logger.error("Failed to close channel: " + closeEx.getMessage());
+                }
+            }
+
+            if (ex instanceof SocketException) {
+                throw (SocketException) ex;
+            }
+
+            throw new SocketException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the channel that this transport sends and receives on.
+     *
+     * @return The non-blocking channel of this transport
+     */
+    protected DatagramChannel getChannel() {
+        return this.channel;
     }
 
     /**
@@ -73,7 +168,7 @@ public class Transport {
      * @return The 16-bit port number being listened on.
      */
     public int getPort() {
-        return this.socket.getLocalPort();
+        return this.channel.socket().getLocalPort();
     }
 
     /**
@@ -83,6 +178,46 @@ public class Transport {
      */
     public void setDestination(NodeLocation location) {
         this.destination = location;
+        this.destinationAddress = location == null
+            ? null : new InetSocketAddress(location.getIpAddress(), location.getPort());
+    }
+
+    /**
+     * Override the wire format that packets are sent in. Only formats negotiated with
+     * the destination during registration should be used.
+     *
+     * @param wireFormat The wire format of sent packets
+     */
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    /**
+     * Retrieve the wire format that packets are sent in.
+     *
+     * @return The wire format of sent packets
+     */
+    public WireFormat getWireFormat() {
+        return this.wireFormat;
+    }
+
+    /**
+     * Override the checksum that packets are protected by. Only checksums negotiated
+     * with the destination during registration should be used.
+     *
+     * @param checksum The checksum of sent packets
+     */
+    public void setChecksum(PacketChecksum checksum) {
+        this.checksum = checksum;
+    }
+
+    /**
+     * Retrieve the checksum that packets are protected by.
+     *
+     * @return The checksum of sent packets
+     */
+    public PacketChecksum getChecksum() {
+        return this.checksum;
     }
 
     /**
@@ -100,26 +235,64 @@ public class Transport {
      * @throws IOException
      */
     public void send(Packet packet) throws TransportInterruptedException, IOException {
+        this.send(packet, this.wireFormat, this.checksum);
+    }
+
+    /**
+     * Dispatch a packet to its intended destination in the specified wire format and checksum.
+     *
+     * @param packet The packet to send
+     * @param format The wire format to compile the packet in
+     * @param checksum The checksum to protect the packet with
+     * @throws IOException
+     */
+    public void send(Packet packet, WireFormat format, PacketChecksum checksum) throws TransportInterruptedException, IOException {
 
         if (packet == null) {
             return;
         }
 
         // Finalize the packet payload.
-        packet.compile();
+        packet.compile(format, checksum);
 
         if (this.destination != null) {
             
             // Override the destination of the packet based on the transport destination
-            packet.setDestination(this.destination);
+            packet.setDestination(this.destinationAddress);
         }
 
         // Dispatch the packet.
-        try {
-            this.socket.send(packet.getDatagram());
-        } catch (SocketException ex) {
-            throw new TransportInterruptedException("Transport thread interrupted");
+        DatagramPacket datagram = packet.getDatagram();
+        this.send(ByteBuffer.wrap(datagram.getData(), datagram.getOffset(), datagram.getLength()),
+            datagram.getSocketAddress());
+    }
+
+    /**
+     * Dispatch an already encoded packet to the destination of this transport.
+     *
+     * @param packet The encoded packet
+     * @throws IOException
+     */
+    public void send(EncodedPacket packet) throws TransportInterruptedException, IOException {
+        this.send(packet, this.destinationAddress);
+    }
+
+    /**
+     * Dispatch an already encoded packet to the specified destination. The packet is
+     * sent as-is, without being compiled again.
+     *
+     * @param packet The encoded packet
+     * @param destination The address and port of the recipient
+     * @throws IOException
+     */
+    public void send(EncodedPacket packet, InetSocketAddress destination) throws TransportInterruptedException, IOException {
+
+        if (packet == null) {
+            return;
         }
+
+        // Dispatch the packet.
+        this.send(packet.getPayload(), destination);
     }
 
     /**
@@ -132,69 +305,130 @@ public class Transport {
      * @see network.core.Packet
      */
     public Packet receive() throws CorruptPacketException, TransportInterruptedException, IOException {
-
-        byte[] payload = new byte[Packet.PACKET_SIZE];
-        DatagramPacket udpPacket = new DatagramPacket(payload, payload.length);
-
-        // Receive the payload on this socket.
-        try {
-            this.socket.receive(udpPacket);
-        } catch (SocketException ex) {
-            throw new TransportInterruptedException("Transport thread interrupted");
-        }
-
-        // Transform the UDP payload into a Packet object.
-        Packet packet = Packet.fromPayload(payload);
-
-        try {
-            packet.setDestination(udpPacket.getAddress().getHostAddress(), udpPacket.getPort());
-        } catch (UnknownHostException ex) {
-
-            // This happening means there is a failure in the physical network.
-            // We must terminate.
-            logger.fatal("CRITICAL: Unable to resolve hostname: " + ex);
-            System.exit(1);
-        }
-
-        return packet;
+        return this.receive(0);
     }
 
     /**
-     * Attempt to receive a UDP packet within a certain timeout threshold.
+     * Attempt to receive a UDP packet within the default timeout threshold.
      * 
      * @return      A packet interpretation of the payload (if received in time).
      *              Otherwise, if no packet is received, null is returned.
      */
     public Packet receiveWithTimeout() throws CorruptPacketException, TransportInterruptedException, IOException {
-        
-        Packet payload = null;
+        return this.receiveWithTimeout(RECEIVE_TIMEOUT_MS);
+    }
+
+    /**
+     * Attempt to receive a UDP packet within a certain timeout threshold.
+     *
+     * @param timeoutMs The time (in milliseconds) to wait for a packet
+     * @return      A packet interpretation of the payload (if received in time).
+     *              Otherwise, if no packet is received, null is returned.
+     */
+    public Packet receiveWithTimeout(long timeoutMs) throws CorruptPacketException, TransportInterruptedException, IOException {
+
+        // A timeout of zero would wait forever, so a receive is always given at least a millisecond.
+        long timeout = Math.max(1, Math.min(MAX_RECEIVE_TIMEOUT_MS, timeoutMs));
 
         try {
-            this.socket.setSoTimeout(RECEIVE_TIMEOUT_MS);
-            payload = this.receive();
+            return this.receive(timeout);
         } catch (SocketTimeoutException ex) {
 
             // Concering scenario - No packet received after the timeout threshold.
             // However, it's not an error scenario that we should be concerned about yet.
-            logger.warn("Timed out after waiting " + RECEIVE_TIMEOUT_MS + " milliseconds.");
-        } catch (SocketException ex) {
-
-            // This is concerning: the inability to set timeout will cause the system
-            // to behave weirdly.
-            logger.fatal("Unable to set timeout on transport");
-        } finally {
-
-            // Restore the infinite timeout on this socket before exiting.
-            this.socket.setSoTimeout(0);
+            logger.warn("Timed out after waiting " + timeout + " milliseconds.");
+            return null;
         }
-
-        return payload;
     }
 
     /**
      * Close the DatagramSocket, disallowing it from receiving or sending more messages.
      */
     public void close() {
-        this.socket.close();
+        try {
+            this.channel.close();
+        } catch (IOException ex) {
+            logger.error("Failed to close channel: " + ex.getMessage());
+        }
+
+        // Closing the selectors wakes up any receive or send waiting on them.
+        try {
+            this.receiveSelector.close();
+            this.sendSelector.close();
+        } catch (IOException ex) {
+            logger.error("Failed to close selectors: " + ex.getMessage());
+        }
+    }
+
+    /*
+     * Receive a UDP packet before the timeout (in milliseconds, or 0 to wait forever) passes,
+     * and transform it into a SmartGrow Packet.
+     */
+    private Packet receive(long timeoutMs) throws CorruptPacketException, TransportInterruptedException, IOException {
+        long deadline = System.nanoTime() + timeoutMs * 1000000;
+
+        ReceiveBuffer buffer = receiveBuffers.get();
+        SocketAddress source = null;
+
+        try {
+            while (true) {
+                buffer.view.clear();
+                source = this.channel.receive(buffer.view);
+                if (source != null) {
+                    break;
+                }
+
+                // Wait for the socket to become readable, but never past the deadline.
+                if (timeoutMs == 0) {
+                    this.receiveSelector.select();
+                } else {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        throw new SocketTimeoutException("Receive timed out");
+                    }
+
+                    this.receiveSelector.select(Math.max(1, remainingNanos / 1000000));
+                }
+
+                this.receiveSelector.selectedKeys().clear();
+            }
+        } catch (ClosedChannelException | ClosedSelectorException ex) {
+            throw new TransportInterruptedException("Transport thread interrupted");
+        }
+
+        // Transform the UDP payload into a Packet object by decoding it in place. Compact
+        // packets are shorter than the buffer, so only the received bytes are decoded.
+        buffer.view.flip();
+        Packet packet = Packet.fromPayload(buffer.view);
+        packet.setDestination((InetSocketAddress) source);
+
+        return packet;
+    }
+
+    /*
+     * Send the payload to the destination, waiting for room in the socket buffer if it is full.
+     */
+    private void send(ByteBuffer payload, SocketAddress destination) throws TransportInterruptedException, IOException {
+        try {
+            while (this.channel.send(payload, destination) == 0) {
+
+                // Senders take turns waiting, since a selector only serves one wait at a time.
+                synchronized (this.sendSelector) {
+                    this.sendSelector.select(RECEIVE_TIMEOUT_MS);
+                    this.sendSelector.selectedKeys().clear();
+                }
+            }
+        } catch (ClosedChannelException | ClosedSelectorException ex) {
+            throw new TransportInterruptedException("Transport thread interrupted");
+        }
+    }
+
+    /*
+     * The per-thread storage used for receiving payloads: the raw array, and the view that
+     * packets are received into and decoded from.
+     */
+    private static class ReceiveBuffer {
+        private final byte[] payload = new byte[Packet.PACKET_SIZE];
+        private final ByteBuffer view = ByteBuffer.wrap(this.payload);
     }
 }
\ No newline at end of file
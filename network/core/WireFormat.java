@@ -0,0 +1,63 @@
+package network.core;
+
+/**
+ * WireFormat defines how a Packet is laid out on the wire.
+ *
+ * FIXED is the original format: every packet is padded to 512 bytes and
+ * checksummed as a whole. COMPACT prefixes the body of the packet with its
+ * length and sends only the bytes in use. Every endpoint decodes both
+ * formats; a packet is only ever sent in the COMPACT format to an endpoint
+ * that negotiated it during registration.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public enum WireFormat {
+
+    FIXED(0),
+    COMPACT(1);
+
+    // The lowest protocol version that understands this format.
+    private final int protocolVersion;
+
+    WireFormat(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Retrieve the lowest protocol version that understands this format.
+     *
+     * @return The protocol version introducing this format
+     */
+    public int getProtocolVersion() {
+        return this.protocolVersion;
+    }
+
+    /**
+     * Retrieve the most compact format understood by the protocol version.
+     *
+     * @param protocolVersion The protocol version of the endpoint
+     * @return The best format the endpoint is able to decode
+     */
+    public static WireFormat forVersion(int protocolVersion) {
+        WireFormat best = FIXED;
+        for (WireFormat format : values()) {
+            if (format.protocolVersion <= protocolVersion) {
+                best = format;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Negotiate the format to use with an endpoint, which is the best format that both
+     * this endpoint and the remote endpoint understand.
+     *
+     * @param remoteVersion The protocol version advertised by the remote endpoint
+     * @return The format to communicate with the remote endpoint in
+     */
+    public static WireFormat negotiate(int remoteVersion) {
+        return forVersion(Math.min(remoteVersion, Packet.PROTOCOL_VERSION));
+    }
+}
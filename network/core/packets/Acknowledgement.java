@@ -1,50 +1,96 @@
 package network.core.packets;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import network.core.OpCodes;
 import network.core.Packet;
 
 /**
- * GenericError Packet provides all nodes in the
- * SmartGrow systems with a mechanism to communicate errors
- * or faults to other nodes in the system to facilitate recovery
- * if possible.
- * 
+ * Acknowledgement Packet informs a node that the packets it has
+ * sent were accepted.
+ *
+ * Acknowledgements of sequenced packets cover many packets at once.
+ * The cumulative sequence is the highest sequence below which every
+ * packet was received, and the selective bitmap marks the packets
+ * received beyond it: bit i stands for sequence cumulative + 2 + i.
+ *
  * @author Ahmed Sakr
  * @since November 8, 2019
  */
 public class Acknowledgement extends Packet {
 
+    // The sequenced packets covered by this acknowledgement.
+    private int cumulative;
+    private int selective;
+
     /**
-     * Initialize the GenericError packet.
+     * Initialize the Acknowledgement packet.
      */
     public Acknowledgement() {
         super(OpCodes.ACKNOWLEDGEMENT);
+        this.cumulative = -1;
+    }
+
+    /**
+     * Initialize the Acknowledgement packet for sequenced packets.
+     *
+     * @param cumulative The highest sequence below which every packet was received
+     * @param selective The packets received beyond the cumulative sequence
+     */
+    public Acknowledgement(int cumulative, int selective) {
+        super(OpCodes.ACKNOWLEDGEMENT);
+        this.cumulative = cumulative;
+        this.selective = selective;
+    }
+
+    /**
+     * Retrieve the highest sequence below which every packet was received.
+     *
+     * @return The cumulative sequence
+     */
+    public int getCumulative() {
+        return this.cumulative;
+    }
+
+    /**
+     * Retrieve the packets received beyond the cumulative sequence.
+     *
+     * @return The selective bitmap, where bit i stands for sequence cumulative + 2 + i
+     */
+    public int getSelective() {
+        return this.selective;
     }
 
     /**
      * Retrieves all information for this Acknowledgement packet by reading the
      * provided payload.
-     * 
+     *
      * This method is invoked by Packet::fromPayload when the caller wishes to
      * create an instance of Acknowledgement through a given payload.
-     * 
+     *
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    public void extract(byte[] data) {
-
+    public void extract(ByteBuffer payload, int offset) {
+        this.cumulative = super.getInt(payload, offset);
+        this.selective = super.getInt(payload, offset + Integer.BYTES);
     }
 
     /**
      * Builds the parent payload by moving the state information in this object
      * into the parent packet.
-     * 
+     *
      * Order of addition matters. This defines the format of the packet.
      */
     @Override
     public void build() {
+        super.addInt(this.cumulative);
+        super.addInt(this.selective);
+    }
 
+    @Override
+    public String toString() {
+        return "cumulative=" + this.cumulative + ", selective=" + Integer.toBinaryString(this.selective);
     }
-}
\ No newline at end of file
+}
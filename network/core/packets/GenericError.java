@@ -1,6 +1,6 @@
 package network.core.packets;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import network.core.OpCodes;
 import network.core.Packet;
@@ -83,11 +83,12 @@ public class GenericError extends Packet {
      * create an instance of GenericError through a given payload.
      * 
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    public void extract(byte[] data) {
-        this.setErrorType(data[0]);
-        this.setErrorMessage(super.getString(Arrays.copyOfRange(data, 1, data.length)));
+    public void extract(ByteBuffer payload, int offset) {
+        this.setErrorType(payload.get(offset));
+        this.setErrorMessage(super.getString(payload, offset + 1));
     }
 
     /**
@@ -1,6 +1,6 @@
 package network.core.packets.plants;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 import logging.SmartLog;
@@ -58,14 +58,15 @@ public class AvailablePlants extends Packet {
      * create an instance of AvailablePlants through a given payload.
      * 
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    protected void extract(byte[] payload) {
+    protected void extract(ByteBuffer payload, int offset) {
 
         String plantName = null;
 
-        int index = 0, plantId = 0;
-        while (index < payload.length - 4) {
+        int index = offset, plantId = 0;
+        while (index < payload.limit() - Packet.CRC_SIZE) {
  
             plantId = super.getInt(payload, index);
 
@@ -75,7 +76,7 @@ public class AvailablePlants extends Packet {
             }
             
             // Get the plant name for the associated plant id
-            plantName = super.getString(Arrays.copyOfRange(payload, index + Integer.BYTES, payload.length));
+            plantName = super.getString(payload, index + Integer.BYTES);
             this.plants.put(plantId, plantName);
 
             /*
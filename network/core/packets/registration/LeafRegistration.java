@@ -1,5 +1,7 @@
 package network.core.packets.registration;
 
+import java.nio.ByteBuffer;
+
 import network.core.OpCodes;
 import network.core.Packet;
 import network.leaf.Identity;
@@ -16,6 +18,15 @@ public class LeafRegistration extends Packet {
 
     private Identity identity;
 
+    // Whether the leaf is able to join the multicast group of its branch.
+    private boolean multicastCapable;
+
+    // The protocol version of the leaf, deciding the wire formats it understands.
+    private int protocolVersion;
+
+    // The bitmask of checksums that the leaf is able to compute.
+    private int supportedChecksums;
+
     public LeafRegistration() {
         super(OpCodes.LEAF_REGISTRATION);
     }
@@ -38,6 +49,70 @@ public class LeafRegistration extends Packet {
         this.identity = identity;
     }
 
+    /**
+     * Checks if the leaf is able to receive broadcasts through a multicast group.
+     *
+     * Leaves that predate multicast leave this byte as padding, and are treated as
+     * not capable.
+     *
+     * @return  true    The leaf will join the multicast group of its branch
+     *          false   Otherwise
+     */
+    public boolean isMulticastCapable() {
+        return this.multicastCapable;
+    }
+
+    /**
+     * Overrides the multicast capability of the leaf.
+     *
+     * @param multicastCapable The leaf will join the multicast group of its branch
+     */
+    public void setMulticastCapable(boolean multicastCapable) {
+        this.multicastCapable = multicastCapable;
+    }
+
+    /**
+     * Retrieves the protocol version advertised by the leaf.
+     *
+     * Leaves that predate versioning leave this byte as padding, which reads as
+     * version 0: the fixed wire format only.
+     *
+     * @return The protocol version of the leaf
+     */
+    public int getProtocolVersion() {
+        return this.protocolVersion;
+    }
+
+    /**
+     * Overrides the protocol version advertised by the leaf.
+     *
+     * @param protocolVersion The protocol version of the leaf
+     */
+    public void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Retrieves the checksums that the leaf is able to compute.
+     *
+     * Leaves that predate checksum negotiation leave this byte as padding, and only
+     * ever use CRC32.
+     *
+     * @return The bitmask of checksum ordinals supported by the leaf
+     */
+    public int getSupportedChecksums() {
+        return this.supportedChecksums;
+    }
+
+    /**
+     * Overrides the checksums that the leaf is able to compute.
+     *
+     * @param supportedChecksums The bitmask of checksum ordinals supported by the leaf
+     */
+    public void setSupportedChecksums(int supportedChecksums) {
+        this.supportedChecksums = supportedChecksums;
+    }
+
     /**
      * Retrieves all information for this LeafRegistration packet by reading the
      * provided payload.
@@ -46,11 +121,15 @@ public class LeafRegistration extends Packet {
      * create an instance of LeafRegistration through a given payload.
      * 
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    protected void extract(byte[] payload) {
-        Identity identity = payload[0] == 1 ? Identity.ANDROID_USER : Identity.PLANT_ENDPOINT;
+    protected void extract(ByteBuffer payload, int offset) {
+        Identity identity = payload.get(offset) == 1 ? Identity.ANDROID_USER : Identity.PLANT_ENDPOINT;
         this.setIdentity(identity);
+        this.setMulticastCapable(payload.get(offset + 1) == 1);
+        this.setProtocolVersion(payload.get(offset + 2) & 0xFF);
+        this.setSupportedChecksums(payload.get(offset + 3) & 0xFF);
     }
 
     /**
@@ -62,5 +141,8 @@ public class LeafRegistration extends Packet {
     @Override
     protected void build() {
         super.addByte((byte)identity.ordinal());
+        super.addBoolean(this.multicastCapable);
+        super.addByte((byte)this.protocolVersion);
+        super.addByte((byte)this.supportedChecksums);
     }
 }
\ No newline at end of file
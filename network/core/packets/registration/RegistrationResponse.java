@@ -1,10 +1,11 @@
 package network.core.packets.registration;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
+import network.core.NodeLocation;
 import network.core.OpCodes;
+import network.core.PacketChecksum;
 import network.core.Packet;
-import network.leaf.Identity;
 
 /**
  * The RegistrationResponse packet is sent by the Central Processing
@@ -18,6 +19,15 @@ public class RegistrationResponse extends Packet {
     private String registrationDetails;
     private boolean status;
 
+    // The multicast group that the leaf should join for broadcasts, if any.
+    private NodeLocation multicastGroup;
+
+    // The protocol version that the server settled on with the leaf.
+    private int protocolVersion;
+
+    // The checksum that the server settled on with the leaf.
+    private PacketChecksum checksum = PacketChecksum.CRC32;
+
     public RegistrationResponse() {
         super(OpCodes.REGISTRATION_RESPONSE);
     }
@@ -60,6 +70,61 @@ public class RegistrationResponse extends Packet {
         this.status = status;
     }
 
+    /**
+     * Retrieves the multicast group that the leaf should join to receive broadcasts.
+     *
+     * @return The IPv4 address and port of the group, or null if broadcasts are
+     *         sent to the leaf by unicast.
+     */
+    public NodeLocation getMulticastGroup() {
+        return this.multicastGroup;
+    }
+
+    /**
+     * Overrides the multicast group that the leaf should join.
+     *
+     * @param multicastGroup The IPv4 address and port of the group, or null for unicast broadcasts
+     */
+    public void setMulticastGroup(NodeLocation multicastGroup) {
+        this.multicastGroup = multicastGroup;
+    }
+
+    /**
+     * Retrieves the protocol version that the server settled on with the leaf.
+     *
+     * @return The negotiated protocol version, or 0 if the server predates versioning.
+     */
+    public int getProtocolVersion() {
+        return this.protocolVersion;
+    }
+
+    /**
+     * Overrides the negotiated protocol version.
+     *
+     * @param protocolVersion The protocol version that the leaf should use
+     */
+    public void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Retrieves the checksum that the server settled on with the leaf.
+     *
+     * @return The negotiated checksum, which is CRC32 if the server predates negotiation.
+     */
+    public PacketChecksum getChecksum() {
+        return this.checksum;
+    }
+
+    /**
+     * Overrides the negotiated checksum.
+     *
+     * @param checksum The checksum that the leaf should protect its packets with
+     */
+    public void setChecksum(PacketChecksum checksum) {
+        this.checksum = checksum;
+    }
+
     /**
      * Retrieves all information for this RegistrationResponse packet by reading the
      * provided payload.
@@ -68,11 +133,28 @@ public class RegistrationResponse extends Packet {
      * create an instance of RegistrationResponse through a given payload.
      * 
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    protected void extract(byte[] payload) {
-        this.setStatus(payload[0] == 1);
-        this.setRegistrationDetails(super.getString(Arrays.copyOfRange(payload, 1, payload.length)));
+    protected void extract(ByteBuffer payload, int offset) {
+        this.setStatus(payload.get(offset) == 1);
+        this.setRegistrationDetails(super.getString(payload, offset + 1));
+
+        // The multicast group and protocol version follow the null-terminated details. Servers
+        // that predate them leave padding, which reads as no group and version 0.
+        int groupOffset = offset + 1 + this.registrationDetails.length() + 1;
+        String groupAddress = super.getString(payload, groupOffset);
+        int portOffset = groupOffset + groupAddress.length() + 1;
+
+        if (!groupAddress.isEmpty()) {
+            this.setMulticastGroup(new NodeLocation(groupAddress, super.getInt(payload, portOffset)));
+        }
+
+        this.setProtocolVersion(payload.get(portOffset + Integer.BYTES) & 0xFF);
+
+        // Checksums unknown to this leaf are never negotiated, but fall back to CRC32 regardless.
+        int checksum = payload.get(portOffset + Integer.BYTES + 1) & 0xFF;
+        this.setChecksum(checksum < PacketChecksum.values().length ? PacketChecksum.values()[checksum] : PacketChecksum.CRC32);
     }
 
     /**
@@ -85,5 +167,11 @@ public class RegistrationResponse extends Packet {
     protected void build() {
         super.addByte(this.status == true ? (byte)1 : (byte)0);
         super.addString(this.getRegistrationDetails());
+
+        // An empty address means that the leaf receives broadcasts by unicast.
+        super.addString(this.multicastGroup == null ? "" : this.multicastGroup.getIpAddress());
+        super.addInt(this.multicastGroup == null ? 0 : this.multicastGroup.getPort());
+        super.addByte((byte)this.protocolVersion);
+        super.addByte((byte)this.checksum.ordinal());
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package network.core.packets.sensors;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import network.core.OpCodes;
 import network.core.Packet;
@@ -52,10 +52,11 @@ public class RequestSensors extends Packet {
      * create an instance of RequestSensors through a given payload.
      * 
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    protected void extract(byte[] payload) {
-        this.plantId = super.getInt(payload, 0);
+    protected void extract(ByteBuffer payload, int offset) {
+        this.plantId = super.getInt(payload, offset);
     }
 
     /**
@@ -1,7 +1,6 @@
 package network.core.packets.sensors;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
 
 import endpoint.sensors.SupportedSensors;
 import network.core.OpCodes;
@@ -12,21 +11,29 @@ import network.core.Packet;
  * processing server containing the latest sensory information
  * it has retrieved.
  * 
+ * The values are stored in a primitive array indexed by the sensor id,
+ * along with a bitmask of the sensors that are present, so that adding,
+ * encoding and decoding sensor values never boxes them.
+ *
  * @author Ahmed Sakr
  * @since October 10, 2019
  */
 public class SensorsData extends Packet {
 
-    private HashMap<Byte, Double> data;
+    // The value of every supported sensor, indexed by the sensor id.
+    private double[] data;
+
+    // Bit i is set if the sensor with id i holds a value.
+    private int present;
 
     /**
      * Initialize a new SensorsData packet object.
      */
     public SensorsData() {
         super(OpCodes.SENSORS_DATA);
-        this.data = new HashMap<>();
+        this.data = new double[SupportedSensors.SUPPORTED_SENSORS + 1];
 
-        // Initialize the hashmap with the starting value of the sensors.
+        // Start every supported sensor at zero, setting its bit in the presence mask.
         this.initialize();
     }
 
@@ -37,15 +44,15 @@ public class SensorsData extends Packet {
      * @param sensorData The data of that sensor.
      */
     public boolean addSensorData(byte sensorId, double sensorData) {
-        if (sensorId > SupportedSensors.SUPPORTED_SENSORS) {
-            
+        if (!SensorsData.isSupported(sensorId)) {
+
             // Unsupported sensors will not be appended to the set of sensor values.
             return false;
         } else {
-            this.data.put(sensorId, sensorData);
+            this.data[sensorId] = sensorData;
+            this.present |= 1 << sensorId;
             return true;
         }
-        
     }
 
     /**
@@ -54,14 +61,14 @@ public class SensorsData extends Packet {
      * @return The size of the sensors set
      */
     public int getSize() {
-        return this.data.size();
+        return Integer.bitCount(this.present);
     }
 
     /**
      * Empty all sensors added to this packet.
      */
     public void clear() {
-        this.data.clear();
+        this.present = 0;
     }
 
     /**
@@ -72,8 +79,8 @@ public class SensorsData extends Packet {
      * @return The sensor data
      */
     public double getSensorData(byte sensorId) {
-        if (this.data.containsKey(sensorId)) {
-            return this.data.get(sensorId);
+        if (SensorsData.isSupported(sensorId) && (this.present & (1 << sensorId)) != 0) {
+            return this.data[sensorId];
         } else {
 
             // Return -1 if the sensor id is not contained in the sensor values set.
@@ -85,10 +92,18 @@ public class SensorsData extends Packet {
      * Initialize the sensors value to -1.
      */
     private void initialize() {
-        this.data.put(SupportedSensors.AIR_HUMIDITY, 0.0);
-        this.data.put(SupportedSensors.AIR_TEMPERATURE, 0.0);
-        this.data.put(SupportedSensors.LIGHT_INTENSITY, 0.0);
-        this.data.put(SupportedSensors.SOIL_MOISTURE, 0.0);
+        this.addSensorData(SupportedSensors.AIR_HUMIDITY, 0.0);
+        this.addSensorData(SupportedSensors.AIR_TEMPERATURE, 0.0);
+        this.addSensorData(SupportedSensors.LIGHT_INTENSITY, 0.0);
+        this.addSensorData(SupportedSensors.SOIL_MOISTURE, 0.0);
+    }
+
+    /*
+     * Check whether the id belongs to a supported sensor. Zero is never a sensor id,
+     * as it marks the start of the padding in the payload.
+     */
+    private static boolean isSupported(byte sensorId) {
+        return sensorId >= 1 && sensorId <= SupportedSensors.SUPPORTED_SENSORS;
     }
 
     /**
@@ -99,15 +114,19 @@ public class SensorsData extends Packet {
      * create an instance of SensorsData through a given payload.
      * 
      * @param payload A prepopulated 512-byte payload used to get information from
+     * @param offset The index of the first byte following the packet header
      */
     @Override
-    protected void extract(byte[] payload) {
+    protected void extract(ByteBuffer payload, int offset) {
 
         // A sensor data block consists of the sensor id (1 byte) and sensor value (8 bytes)
         int sensorDataLength = 1 + Double.BYTES;
+        int limit = payload.limit() - Packet.CRC_SIZE;
 
-        for (int i = 0; payload[i] != 0; i += sensorDataLength) {
-            this.data.put(payload[i], super.getDouble(payload, i + 1));
+        // A sensor id of zero marks the start of the padding. Sensors we do not
+        // recognize are skipped.
+        for (int i = offset; i + sensorDataLength <= limit && payload.get(i) != 0; i += sensorDataLength) {
+            this.addSensorData(payload.get(i), super.getDouble(payload, i + 1));
         }
     }
 
@@ -119,9 +138,11 @@ public class SensorsData extends Packet {
      */
     @Override
     protected void build() {
-        for (Byte sensorId : this.data.keySet()) {
-            super.addByte(sensorId);
-            super.addDouble(this.data.get(sensorId));
+        for (byte sensorId = 1; sensorId <= SupportedSensors.SUPPORTED_SENSORS; sensorId++) {
+            if ((this.present & (1 << sensorId)) != 0) {
+                super.addByte(sensorId);
+                super.addDouble(this.data[sensorId]);
+            }
         }
     }
     
@@ -131,15 +152,17 @@ public class SensorsData extends Packet {
      */
     @Override
     public String toString() {
-        final StringBuilder builder = new StringBuilder("");
+        final StringBuilder builder = new StringBuilder();
 
         // Represent all sensors in one line of pairs: their name followed by their vlaue.
-        this.data.keySet().stream()
-            .forEach((sensor) -> 
-                builder.append(String.format("%s: %f ",
-                     SupportedSensors.getStringRepresentation(sensor), this.data.get(sensor)
-                ))
-            );
+        for (byte sensorId = 1; sensorId <= SupportedSensors.SUPPORTED_SENSORS; sensorId++) {
+            if ((this.present & (1 << sensorId)) != 0) {
+                builder.append(SupportedSensors.getStringRepresentation(sensorId))
+                    .append(": ")
+                    .append(this.data[sensorId])
+                    .append(' ');
+            }
+        }
 
         return builder.toString();
     }
@@ -1,17 +1,30 @@
 package network.leaf;
 
 import java.io.IOException;
+import java.net.NetworkInterface;
 import java.net.SocketException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import config.SmartGrowConfiguration;
 import logging.SmartLog;
 import network.branch.BroadcastHandler;
+import network.core.EncodedPacket;
+import network.core.MulticastTransport;
 import network.core.NodeLocation;
 import network.core.Packet;
+import network.core.RttEstimator;
+import network.core.SendWindow;
 import network.core.Transport;
 import network.core.exceptions.CorruptPacketException;
+import network.core.packets.Acknowledgement;
 import network.leaf.threads.BroadcastHandlerThread;
+import network.leaf.threads.LeafDispatcherThread;
 import network.leaf.threads.LeafRegistrationThread;
+import network.leaf.threads.MulticastListenerThread;
+import network.leaf.threads.RetransmissionThread;
 
 /**
  * A Leaf is a network endpoint that is a point of interest
@@ -31,6 +44,21 @@ import network.leaf.threads.LeafRegistrationThread;
  * central processing server (CPS) and communicating with its
  * assigned branch.
  * 
+ * Packets that must arrive are sent through sendReliably(). Against a
+ * server that understands sequenced packets, such packets are pipelined
+ * through a send window and retransmitted until acknowledged; otherwise
+ * every packet is sent and acknowledged in turn.
+ * 
+ * Requests sent through request() are answered through a ResponseFuture.
+ * Against a server that understands correlation ids, every request is
+ * matched to its own response, so any number of requests may be in
+ * flight at once; otherwise requests take turns on a round trip each.
+ * 
+ * Every wait for the branch is bounded by a timeout derived from the
+ * round trips measured to it, and backs off when it expires. All packets
+ * are received by a single dispatcher, so waiting never touches the
+ * socket.
+ * 
  * @author Ahmed Sakr
  * @since October 10, 2019
  */
@@ -48,9 +76,31 @@ public class Leaf extends Transport {
     // The worker responsible for processing broadcasts on behalf of this leaf.
     private BroadcastHandlerThread broadcastHandlerThread;
 
+    // The worker receiving the broadcasts sent to the multicast group of our branch (if joined).
+    private MulticastListenerThread multicastListenerThread;
+
+    // The worker receiving everything sent to this leaf.
+    private LeafDispatcherThread dispatcherThread;
+
+    // The round-trip estimate of our branch, which every timeout of this leaf is derived from.
+    private RttEstimator rtt;
+
+    // The window of the sequenced packets in flight, and the worker retransmitting
+    // them (once sequenced delivery is enabled).
+    private SendWindow sendWindow;
+    private RetransmissionThread retransmissionThread;
+
+    // The requests waiting on their responses, keyed by their correlation id.
+    private ConcurrentHashMap<Integer, ResponseFuture> pendingRequests;
+    private AtomicInteger nextCorrelationId;
+
+    // Makes requests take turns on servers that do not understand correlation ids.
+    private final Object roundTripLock = new Object();
+
     // State information about this leaf instance
     private Identity identity;
-    private boolean registered;
+    private volatile boolean registered;
+    private volatile int protocolVersion;
 
     /**
      * Create a Leaf with a provided identity.
@@ -61,8 +111,7 @@ public class Leaf extends Transport {
         super(new NodeLocation(SmartGrowConfiguration.CPS_ADDRESS, SmartGrowConfiguration.CPS_PORT), port);
         
         this.identity = identity;
-        this.leafRegistrationThread = new LeafRegistrationThread(this);
-        this.broadcastHandlerThread = new BroadcastHandlerThread(this);
+        this.initialize();
     }
 
     /**
@@ -74,8 +123,7 @@ public class Leaf extends Transport {
         super(new NodeLocation(SmartGrowConfiguration.CPS_ADDRESS, SmartGrowConfiguration.CPS_PORT));
 
         this.identity = identity;
-        this.leafRegistrationThread = new LeafRegistrationThread(this);
-        this.broadcastHandlerThread = new BroadcastHandlerThread(this);
+        this.initialize();
     }
 
     /**
@@ -105,6 +153,84 @@ public class Leaf extends Transport {
         return this.identity;
     }
 
+    /**
+     * Join the multicast group that our branch sends its broadcasts to. Broadcasts received
+     * on the group are handed to the broadcast handler, just like unicast broadcasts.
+     *
+     * @param group The IPv4 multicast address and port of the group
+     * @throws IOException If the group could not be joined
+     */
+    public void joinMulticastGroup(NodeLocation group) throws IOException {
+        NetworkInterface networkInterface = SmartGrowConfiguration.MULTICAST_INTERFACE == null
+            ? null : NetworkInterface.getByName(SmartGrowConfiguration.MULTICAST_INTERFACE);
+
+        MulticastTransport multicast = new MulticastTransport(group, networkInterface, group.getPort());
+        multicast.joinGroup();
+
+        logger.info("Joined multicast group " + group);
+        this.multicastListenerThread = new MulticastListenerThread(this, multicast);
+    }
+
+    /**
+     * Hand a received broadcast packet over to the broadcast handler thread.
+     *
+     * @param broadcast The broadcast packet received from the branch
+     */
+    public void dispatchBroadcast(Packet broadcast) {
+        if (this.getBroadcastHandler() == null) {
+            return;
+        }
+
+        synchronized (this.broadcastHandlerThread) {
+
+            // Pass off the broadcast to the thread before waking it up.
+            this.broadcastHandlerThread.setBroadcastPacket(broadcast);
+            
+            // Awake the thread so that it can process the broadcast, relinquishing us
+            // from this responsibility.
+            this.broadcastHandlerThread.notify();
+        }
+    }
+
+    /**
+     * Override the protocol version that the server agreed on during registration.
+     *
+     * @param protocolVersion The protocol version understood by both the leaf and the server
+     */
+    public void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Retrieve the protocol version that the server agreed on during registration.
+     *
+     * @return The protocol version understood by both the leaf and the server
+     */
+    public int getProtocolVersion() {
+        return this.protocolVersion;
+    }
+
+    /**
+     * Retrieve the round-trip estimate of our branch.
+     *
+     * @return The estimator that the timeouts of this leaf are derived from
+     */
+    public RttEstimator getRttEstimator() {
+        return this.rtt;
+    }
+
+    /**
+     * Start sending the packets passed to sendReliably() as sequenced packets. Only
+     * called once the server has agreed on a protocol version that understands them.
+     */
+    public void enableSequencedDelivery() {
+        this.sendWindow = new SendWindow(SmartGrowConfiguration.LEAF_SEND_WINDOW, this.rtt);
+
+        // Acknowledgements may arrive at any time from now on, and are applied by the dispatcher.
+        this.dispatcherThread.setSendWindow(this.sendWindow);
+        this.retransmissionThread = new RetransmissionThread(this, this.sendWindow);
+    }
+
     /**
      * Override the registration status of this leaf.
      *
@@ -121,7 +247,7 @@ public class Leaf extends Transport {
      *                  processing server
      *          false   Otherwise
      */
-    public synchronized boolean isRegistered() {
+    public boolean isRegistered() {
         return this.registered;
     }
 
@@ -153,6 +279,105 @@ public class Leaf extends Transport {
         super.send(packet);
     }
 
+    /**
+     * Send the packet to the branch and make sure that it arrives.
+     *
+     * With sequenced delivery, the packet is assigned a sequence number and this
+     * method returns as soon as it is sent, blocking only while the send window is
+     * full. The packet is retransmitted until the branch acknowledges it. Otherwise,
+     * the packet is sent again until the branch responds with an acknowledgement.
+     *
+     * @param packet The packet to send to the branch
+     * @throws InterruptedException If interrupted while waiting for room in the send window
+     */
+    public void sendReliably(Packet packet) throws IOException, InterruptedException {
+        this.waitForRegistration();
+
+        if (!this.registered) {
+            logger.warn("Unable to send packet because leaf is not registered with the cps");
+            return;
+        }
+
+        if (this.sendWindow == null) {
+            this.sendAndAwaitAcknowledgement(packet);
+            return;
+        }
+
+        int sequence = this.sendWindow.reserve();
+        packet.setSequence(sequence);
+
+        // Encode the packet once, so that retransmissions send the very same payload.
+        EncodedPacket encoded = packet.encode(this.getWireFormat(), this.getChecksum());
+        this.sendWindow.sent(sequence, encoded);
+        this.send(encoded);
+    }
+
+    /**
+     * Send a request to the branch, returning right away with the future response.
+     *
+     * The request is sent again whenever a caller waiting on the response has waited
+     * longer than the round trip to the branch should take, until the response arrives
+     * or the attempts run out.
+     *
+     * Callers that give up waiting on the response should cancel the future, so that
+     * a response arriving late is discarded rather than kept around.
+     *
+     * @param request The request to send to the branch
+     * @return The response of the branch to this request
+     */
+    public ResponseFuture request(Packet request) throws IOException {
+        ResponseFuture response = new ResponseFuture(this, this.nextCorrelationId.getAndIncrement());
+
+        this.waitForRegistration();
+        if (!this.registered) {
+            response.fail(new IOException("Leaf is not registered with the cps"));
+            return response;
+        }
+
+        if (this.protocolVersion < Packet.CORRELATED_PROTOCOL_VERSION) {
+            this.roundTrip(request, response);
+            return response;
+        }
+
+        // The response is matched to this request by the dispatcher, whenever it arrives.
+        request.setCorrelationId(response.getCorrelationId());
+        this.pendingRequests.put(response.getCorrelationId(), response);
+
+        // Encode the request once, so that retransmissions send the very same payload.
+        EncodedPacket encoded = request.encode(this.getWireFormat(), this.getChecksum());
+
+        try {
+            response.sent(encoded, this.rtt);
+            this.send(encoded);
+        } catch (IOException ex) {
+            this.pendingRequests.remove(response.getCorrelationId());
+            throw ex;
+        }
+
+        return response;
+    }
+
+    /**
+     * Complete the request that a correlated response answers.
+     *
+     * @param response The correlated response received from the branch
+     * @return  true    if the response completed a pending request
+     *          false   if the request was answered already or given up on
+     */
+    public boolean completeRequest(Packet response) {
+        ResponseFuture request = this.pendingRequests.remove(response.getCorrelationId());
+        return request != null && request.complete(response);
+    }
+
+    /**
+     * Forget a request that has been cancelled, discarding its response should it still arrive.
+     *
+     * @param correlationId The correlation id of the request
+     */
+    void forgetRequest(int correlationId) {
+        this.pendingRequests.remove(correlationId);
+    }
+
     /**
      * Block receiving until registration with the central processing server is
      * complete.
@@ -162,6 +387,11 @@ public class Leaf extends Transport {
     @Override
     public Packet receive() throws CorruptPacketException, IOException {
 
+        // The dispatcher is the only one receiving on the socket.
+        if (Thread.currentThread().equals(this.dispatcherThread)) {
+            return this.receiveFromSocket();
+        }
+
         // By-pass these checks for the registration worker as this is only
         // intended to stop other callers from proceeding before registration
         // succeeds.
@@ -175,6 +405,158 @@ public class Leaf extends Transport {
             }
         }
 
+        try {
+            return this.dispatcherThread.take();
+        } catch (InterruptedException ex) {
+            logger.warn("Interrupted while waiting for a packet");
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Attempt to receive a packet from the branch within the default timeout threshold.
+     *
+     * @return      The packet received from the branch (if received in time).
+     *              Otherwise, if no packet is received, null is returned.
+     */
+    @Override
+    public Packet receiveWithTimeout() throws CorruptPacketException, IOException {
+        return this.receiveWithTimeout(RECEIVE_TIMEOUT_MS);
+    }
+
+    /**
+     * Attempt to receive a packet from the branch within a certain timeout threshold.
+     * Only the time spent waiting for registration is not counted.
+     *
+     * @param timeoutMs The time (in milliseconds) to wait for a packet
+     * @return      The packet received from the branch (if received in time).
+     *              Otherwise, if no packet is received, null is returned.
+     */
+    @Override
+    public Packet receiveWithTimeout(long timeoutMs) throws CorruptPacketException, IOException {
+        if (!Thread.currentThread().equals(this.leafRegistrationThread)) {
+            this.waitForRegistration();
+
+            if (!this.registered) {
+                logger.warn("Unable to receive packet because leaf is not registered with the cps");
+                return null;
+            }
+        }
+
+        // Wait on the packets received by the dispatcher rather than on the socket.
+        try {
+            Packet response = this.dispatcherThread.poll(timeoutMs);
+            if (response == null) {
+                logger.debug("Timed out after waiting " + timeoutMs + " milliseconds.");
+            }
+
+            return response;
+        } catch (InterruptedException ex) {
+            logger.warn("Interrupted while waiting for a packet");
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Stop the workers of this leaf and close its socket.
+     */
+    @Override
+    public void close() {
+        if (this.retransmissionThread != null) {
+            this.retransmissionThread.interrupt();
+        }
+
+        // Nobody is left to receive the responses of the pending requests.
+        Iterator<ResponseFuture> pending = this.pendingRequests.values().iterator();
+        while (pending.hasNext()) {
+            pending.next().fail(new IOException("Leaf was closed"));
+            pending.remove();
+        }
+
+        // The dispatcher stops once the socket is closed.
+        super.close();
+    }
+
+    /*
+     * Send the request and wait for the next response, for servers that do not understand
+     * correlation ids. Requests take turns, since a response could not be told apart otherwise.
+     */
+    private void roundTrip(Packet request, ResponseFuture response) throws IOException {
+        synchronized (this.roundTripLock) {
+            for (int attempt = 0; attempt < SmartGrowConfiguration.LEAF_REQUEST_ATTEMPTS; attempt++) {
+                long timeoutNanos = this.rtt.getTimeoutNanos();
+                long sentAt = System.nanoTime();
+                this.send(request);
+
+                try {
+                    Packet received = this.receiveWithTimeout(RttEstimator.toMillis(timeoutNanos));
+                    if (received != null) {
+
+                        // Only the round trip of a request sent once is known to be measured correctly.
+                        if (attempt == 0) {
+                            this.rtt.sample(System.nanoTime() - sentAt);
+                        }
+
+                        response.complete(received);
+                        return;
+                    }
+                } catch (CorruptPacketException ex) {
+                    response.fail(ex);
+                    return;
+                }
+
+                this.rtt.onTimeout(timeoutNanos);
+            }
+
+            response.fail(new TimeoutException("No response after "
+                + SmartGrowConfiguration.LEAF_REQUEST_ATTEMPTS + " attempts"));
+        }
+    }
+
+    /*
+     * Send the packet until the branch acknowledges it, for servers that do not understand
+     * sequenced packets.
+     */
+    private void sendAndAwaitAcknowledgement(Packet packet) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            long timeoutNanos = this.rtt.getTimeoutNanos();
+            long sentAt = System.nanoTime();
+            this.send(packet);
+
+            try {
+                Packet response = this.receiveWithTimeout(RttEstimator.toMillis(timeoutNanos));
+                if (response instanceof Acknowledgement) {
+
+                    // Only the round trip of a packet sent once is known to be measured correctly.
+                    if (attempt == 0) {
+                        this.rtt.sample(System.nanoTime() - sentAt);
+                    }
+
+                    return;
+                }
+
+                if (response != null) {
+                    logger.warn("Expected an acknowledgement but received: " + response);
+                    continue;
+                }
+            } catch (CorruptPacketException ex) {
+
+                // The response may well have been the acknowledgement. Send the packet again.
+                logger.error("Received payload is invalid: " + ex);
+                continue;
+            }
+
+            this.rtt.onTimeout(timeoutNanos);
+        }
+    }
+
+    /*
+     * Receive the next packet on the socket, handing the broadcasts received meanwhile
+     * to the broadcast handler.
+     */
+    private Packet receiveFromSocket() throws CorruptPacketException, IOException {
         Packet response = super.receive();
 
         /*
@@ -182,22 +564,12 @@ public class Leaf extends Transport {
          * However, we can't ignore this packet and go back to receiving. We must pass off this
          * broadcast packet to the appropriate handler first.
          */
-        if  (response.isBroadcast()) {
-            if (this.getBroadcastHandler() != null) {
-                synchronized (this.broadcastHandlerThread) {
-
-                    // Pass off the broadcast to the thread before waking it up.
-                    this.broadcastHandlerThread.setBroadcastPacket(response);
-                    
-                    // Awake the thread so that it can process the broadcast, relinquishing us
-                    // from this responsibility.
-                    this.broadcastHandlerThread.notify();
-                }
-            }
+        while (response.isBroadcast()) {
+            this.dispatchBroadcast(response);
 
             // Now that the broadcast processing has been delegated to someone else, we need to go
             // back into our receiving state to listen for our intended packet.
-            return this.receive();
+            response = super.receive();
         }
 
         // Immediately return the response if it wasn't a broadcast. This means we got the packet
@@ -205,6 +577,24 @@ public class Leaf extends Transport {
         return response;
     }
 
+    /*
+     * Start the workers of this leaf, beginning with registration.
+     */
+    private void initialize() {
+        this.pendingRequests = new ConcurrentHashMap<>();
+        this.nextCorrelationId = new AtomicInteger();
+        this.rtt = new RttEstimator(SmartGrowConfiguration.LEAF_INITIAL_TIMEOUT_MS,
+            SmartGrowConfiguration.LEAF_MIN_TIMEOUT_MS, SmartGrowConfiguration.LEAF_MAX_TIMEOUT_MS);
+
+        // The dispatcher recognizes itself by this field when receiving, so it is only
+        // started once assigned. It must be receiving before we register.
+        this.dispatcherThread = new LeafDispatcherThread(this, SmartGrowConfiguration.LEAF_RECEIVE_QUEUE_SIZE);
+        this.dispatcherThread.start();
+
+        this.leafRegistrationThread = new LeafRegistrationThread(this);
+        this.broadcastHandlerThread = new BroadcastHandlerThread(this);
+    }
+
     /*
      * Join the lock wait set if registration has still not completed.
      */
@@ -0,0 +1,240 @@
+package network.leaf;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import java.io.IOException;
+
+import config.SmartGrowConfiguration;
+import network.core.EncodedPacket;
+import network.core.Packet;
+import network.core.RttEstimator;
+
+/**
+ * ResponseFuture is the response to a request that a Leaf has sent to
+ * its branch, which completes once the branch responds.
+ *
+ * While a caller waits on the response, the request is sent again each
+ * time the round-trip estimate of the branch expires without a response,
+ * backing off every time, until the attempts run out. The branch answers
+ * a retransmission with the same correlation id, so whichever response
+ * arrives first completes the request and the rest are discarded.
+ *
+ * A request that is given up on should be cancelled: the leaf then
+ * forgets about it, and discards its response should it still arrive.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class ResponseFuture implements Future<Packet> {
+
+    // The leaf that sent the request, and the correlation id of the request.
+    private Leaf leaf;
+    private int correlationId;
+
+    // Released once the request is completed, failed, or cancelled.
+    private CountDownLatch done;
+
+    // The encoded request and the round-trip estimate its timer is derived from (once sent).
+    private EncodedPacket request;
+    private RttEstimator rtt;
+
+    // When the request was last sent (in nanoseconds), the timeout of that transmission,
+    // and the number of times it was sent.
+    private long sentAt;
+    private long timeoutNanos;
+    private int transmissions;
+
+    private Packet response;
+    private Throwable failure;
+    private boolean cancelled;
+
+    /**
+     * Initialize the response to a request.
+     *
+     * @param leaf The leaf that sent the request
+     * @param correlationId The correlation id of the request
+     */
+    ResponseFuture(Leaf leaf, int correlationId) {
+        this.leaf = leaf;
+        this.correlationId = correlationId;
+        this.done = new CountDownLatch(1);
+    }
+
+    /**
+     * Retrieve the correlation id of the request.
+     *
+     * @return The correlation id, which the response carries as well
+     */
+    public int getCorrelationId() {
+        return this.correlationId;
+    }
+
+    /**
+     * Record that the request has been sent for the first time, starting its timer.
+     *
+     * @param request The encoded request, which is sent again as-is when retransmitted
+     * @param rtt The round-trip estimate of the branch
+     */
+    synchronized void sent(EncodedPacket request, RttEstimator rtt) {
+        this.request = request;
+        this.rtt = rtt;
+        this.sentAt = System.nanoTime();
+        this.timeoutNanos = rtt.getTimeoutNanos();
+        this.transmissions = 1;
+    }
+
+    /**
+     * Complete the request with the response received from the branch.
+     *
+     * @param response The response to the request
+     * @return False if the request was already completed, failed, or cancelled
+     */
+    synchronized boolean complete(Packet response) {
+        if (this.isDone()) {
+            return false;
+        }
+
+        // A request sent more than once could have been answered by any of its transmissions.
+        if (this.transmissions == 1) {
+            this.rtt.sample(System.nanoTime() - this.sentAt);
+        }
+
+        this.response = response;
+        this.done.countDown();
+        return true;
+    }
+
+    /**
+     * Fail the request, such as when no response could be received.
+     *
+     * @param failure The reason the request failed
+     * @return False if the request was already completed, failed, or cancelled
+     */
+    synchronized boolean fail(Throwable failure) {
+        if (this.isDone()) {
+            return false;
+        }
+
+        this.failure = failure;
+        this.done.countDown();
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (this.isDone()) {
+                return false;
+            }
+
+            this.cancelled = true;
+            this.done.countDown();
+        }
+
+        // A response arriving from now on is discarded as late.
+        this.leaf.forgetRequest(this.correlationId);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.done.getCount() == 0;
+    }
+
+    @Override
+    public Packet get() throws InterruptedException, ExecutionException {
+        while (!this.done.await(this.getRetransmitDelay(), TimeUnit.NANOSECONDS)) {
+            this.retransmitIfDue();
+        }
+
+        return this.getResult();
+    }
+
+    @Override
+    public Packet get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (this.done.await(Math.min(remaining, this.getRetransmitDelay()), TimeUnit.NANOSECONDS)) {
+                return this.getResult();
+            }
+
+            if (deadline - System.nanoTime() <= 0) {
+                throw new TimeoutException("No response to request " + this.correlationId);
+            }
+
+            this.retransmitIfDue();
+        }
+    }
+
+    /*
+     * Retrieve the time (in nanoseconds) until the request is due to be sent again, or
+     * forever if it is never sent again.
+     */
+    private synchronized long getRetransmitDelay() {
+        if (this.request == null) {
+            return Long.MAX_VALUE;
+        }
+
+        return Math.max(0, this.sentAt + this.timeoutNanos - System.nanoTime());
+    }
+
+    /*
+     * Send the request again if its timer expired, or give up on it once the attempts run out.
+     * Callers waiting together only retransmit once, as the first one restarts the timer.
+     */
+    private void retransmitIfDue() {
+        synchronized (this) {
+            if (this.isDone() || this.request == null || this.sentAt + this.timeoutNanos - System.nanoTime() > 0) {
+                return;
+            }
+
+            if (this.transmissions >= SmartGrowConfiguration.LEAF_REQUEST_ATTEMPTS) {
+                this.fail(new TimeoutException("No response to request " + this.correlationId
+                    + " after " + this.transmissions + " attempts"));
+                this.leaf.forgetRequest(this.correlationId);
+                return;
+            }
+
+            // The timer that expired backs off the estimate, and the next timer uses it.
+            this.rtt.onTimeout(this.timeoutNanos);
+            this.sentAt = System.nanoTime();
+            this.timeoutNanos = this.rtt.getTimeoutNanos();
+            this.transmissions++;
+        }
+
+        try {
+            this.leaf.send(this.request);
+        } catch (IOException ex) {
+            if (this.fail(ex)) {
+                this.leaf.forgetRequest(this.correlationId);
+            }
+        }
+    }
+
+    /*
+     * Retrieve the outcome of the request once it is done.
+     */
+    private synchronized Packet getResult() throws ExecutionException {
+        if (this.cancelled) {
+            throw new CancellationException("Request " + this.correlationId + " was cancelled");
+        }
+
+        if (this.failure != null) {
+            throw new ExecutionException(this.failure);
+        }
+
+        return this.response;
+    }
+}
@@ -0,0 +1,143 @@
+package network.leaf.threads;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import logging.SmartLog;
+import network.core.Packet;
+import network.core.SendWindow;
+import network.core.exceptions.CorruptPacketException;
+import network.core.exceptions.TransportInterruptedException;
+import network.core.packets.Acknowledgement;
+import network.core.packets.registration.RegistrationResponse;
+import network.leaf.Leaf;
+
+/**
+ * LeafDispatcherThread is the only thread receiving on the socket of a
+ * leaf, from the moment the leaf is created. Everybody else waits on the
+ * packets it hands over, so that waiting with a timeout never touches
+ * the socket.
+ *
+ * Acknowledgements are applied to the send window of the leaf once it
+ * sends sequenced packets, and
+ * broadcasts are handed to the broadcast handler as always. Correlated
+ * responses complete the request they answer, and are discarded if that
+ * request was answered already or given up on. RegistrationResponses
+ * arriving once the leaf is registered answered a repeated registration,
+ * and are discarded as well. Every other packet is a
+ * response for the application, which is queued until the application
+ * receives it from the leaf.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LeafDispatcherThread extends Thread {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(LeafDispatcherThread.class.getName());
+
+    // The leaf that we are receiving for, and the window of the packets it has in flight (if any).
+    private Leaf leaf;
+    private volatile SendWindow sendWindow;
+
+    // The responses waiting to be received by the application.
+    private BlockingQueue<Packet> responses;
+
+    /**
+     * Initialize the dispatcher thread. Unlike the other workers of the leaf, it is
+     * started by the leaf, which must know the thread before it starts receiving.
+     *
+     * @param leaf The leaf that we are receiving for
+     * @param capacity The number of responses held until the application receives them
+     */
+    public LeafDispatcherThread(Leaf leaf, int capacity) {
+        super(String.format("LeafDispatcher-%d", leaf.getPort()));
+        this.leaf = leaf;
+        this.responses = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Apply the acknowledgements received from now on to the send window.
+     *
+     * @param sendWindow The window of the sequenced packets that the leaf has in flight
+     */
+    public void setSendWindow(SendWindow sendWindow) {
+        this.sendWindow = sendWindow;
+    }
+
+    /**
+     * Block until a response for the application has been received.
+     *
+     * @return The oldest response that has not been received by the application
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Packet take() throws InterruptedException {
+        return this.responses.take();
+    }
+
+    /**
+     * Wait up to the timeout for a response for the application to be received.
+     *
+     * @param timeoutMs The time (in milliseconds) to wait
+     * @return The oldest response, or null if none was received in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Packet poll(long timeoutMs) throws InterruptedException {
+        return this.responses.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The entry point for the LeafDispatcher thread.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            try {
+
+                // Broadcasts never reach us: the leaf hands them to the broadcast handler.
+                Packet packet = this.leaf.receive();
+
+                // Correlated responses complete their request. A response with no request
+                // waiting on it arrived late or twice.
+                if (packet.isCorrelated()) {
+                    if (!this.leaf.completeRequest(packet)) {
+                        logger.debug("Discarded late or duplicate response to request " + packet.getCorrelationId());
+                    }
+
+                    continue;
+                }
+
+                // A registration we repeated may be answered twice. Only the first answer counts.
+                if (packet instanceof RegistrationResponse && this.leaf.isRegistered()) {
+                    logger.debug("Discarded duplicate RegistrationResponse");
+                    continue;
+                }
+
+                // Acknowledgements of the send window are never correlated. Without a send window,
+                // acknowledgements are awaited by the application instead.
+                SendWindow window = this.sendWindow;
+                if (window != null && packet instanceof Acknowledgement) {
+                    Acknowledgement acknowledgement = (Acknowledgement) packet;
+                    window.onAcknowledgement(acknowledgement.getCumulative(), acknowledgement.getSelective());
+                    continue;
+                }
+
+                if (!this.responses.offer(packet)) {
+                    logger.warn("Response queue is full, dropped packet: " + packet);
+                }
+            } catch (CorruptPacketException ex) {
+
+                // A corrupt datagram only costs us this packet. Sequenced packets are retransmitted.
+                logger.error("Received payload is invalid: " + ex);
+            } catch (TransportInterruptedException ex) {
+                logger.info("Leaf is no longer receiving");
+                return;
+            } catch (IOException ex) {
+                logger.error("I/O exception encountered during leaf receive");
+                return;
+            }
+        }
+    }
+}
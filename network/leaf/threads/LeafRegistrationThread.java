@@ -2,9 +2,14 @@ package network.leaf.threads;
 
 import java.io.IOException;
 
+import config.SmartGrowConfiguration;
 import logging.SmartLog;
+import network.core.NetworkErrors;
 import network.core.NodeLocation;
 import network.core.Packet;
+import network.core.PacketChecksum;
+import network.core.RttEstimator;
+import network.core.WireFormat;
 import network.core.exceptions.CorruptPacketException;
 import network.core.packets.GenericError;
 import network.core.packets.registration.LeafRegistration;
@@ -27,6 +32,11 @@ public class LeafRegistrationThread extends Thread {
     // Maximum amount of registration attempts before giving up.
     private final int REGISTRATION_ATTEMPTS = 3;
 
+    // Whether we offer to join the multicast group of our branch. Android only delivers multicast
+    // datagrams to applications holding a WifiManager.MulticastLock, which we cannot take for them.
+    private static final boolean MULTICAST_CAPABLE = SmartGrowConfiguration.LEAF_MULTICAST
+        && !"Dalvik".equals(System.getProperty("java.vm.name"));
+
     // The leaf that we want to register with the server.
     private Leaf leaf;
 
@@ -42,34 +52,102 @@ public class LeafRegistrationThread extends Thread {
      * Attempt to register with the central processing server with multiple
      * attempts if necessary.
      * 
+     * @param multicastCapable Whether we offer to join the multicast group of our branch
      * @return    A packet sent from the server
      */
-    private Packet attemptRegistration() throws IOException, CorruptPacketException {
+    private Packet attemptRegistration(boolean multicastCapable) throws IOException, CorruptPacketException {
 
         // Initialize the LeafRegistration request packet with out identity.
         LeafRegistration registration = new LeafRegistration();
         registration.setIdentity(this.leaf.getIdentity());
+        registration.setMulticastCapable(multicastCapable);
+        registration.setProtocolVersion(Packet.PROTOCOL_VERSION);
+        registration.setSupportedChecksums(PacketChecksum.getSupported());
         
+        RttEstimator rtt = this.leaf.getRttEstimator();
+
         Packet response = null;
         for (int i = 0; i < REGISTRATION_ATTEMPTS; i++) {
+            long timeoutNanos = rtt.getTimeoutNanos();
+            if (rtt.getSmoothedRttNanos() < 0) {
+                timeoutNanos = Math.max(timeoutNanos, SmartGrowConfiguration.LEAF_REGISTRATION_TIMEOUT_MS * 1000000L);
+            }
+
+            long sentAt = System.nanoTime();
 
             // Request registration by sending the LeafRegistration packet
             logger.info("Sending LeafRegistration packet");
             leaf.send(registration);
 
             // Wait for a response from the server
-            response = leaf.receiveWithTimeout();
+            response = this.awaitResponse(sentAt + timeoutNanos);
             if (response != null) {
+
+                // The first round trip to the server, unless the registration was sent again.
+                if (i == 0) {
+                    rtt.sample(System.nanoTime() - sentAt);
+                }
+
                 break;
             }
 
-            // Try again to register.
+            // Try again to register, waiting longer this time.
             logger.info("Timed out with no response from server.");
+            rtt.onTimeout(timeoutNanos);
         }
 
         return response;
     }
 
+    /*
+     * Wait until the deadline for the response of the server. Older servers answer a registration
+     * that we repeated with an error while our first one is still being handled, so that error is
+     * skipped in favour of the RegistrationResponse that follows it.
+     */
+    private Packet awaitResponse(long deadlineNanos) throws IOException, CorruptPacketException {
+        while (true) {
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return null;
+            }
+
+            Packet response = this.leaf.receiveWithTimeout(RttEstimator.toMillis(remainingNanos));
+            if (!(response instanceof GenericError)
+                    || ((GenericError) response).getErrorType() != NetworkErrors.LEAF_ALREADY_REGISTERED) {
+                return response;
+            }
+
+            logger.warn("Server is still registering us, waiting for its response");
+        }
+    }
+
+    /*
+     * Join the multicast group of our branch, returning whether we did.
+     */
+    private boolean joinMulticastGroup(NodeLocation group) {
+        try {
+            this.leaf.joinMulticastGroup(group);
+            return true;
+        } catch (IOException ex) {
+            logger.error("Failed to join multicast group " + group + ": " + ex);
+            return false;
+        }
+    }
+
+    /*
+     * Register again without offering to join the multicast group. Our branch stops sending us its
+     * broadcasts once we are in the group, and answers with its response again, minus the group.
+     */
+    private void registerWithoutMulticast() throws IOException, CorruptPacketException {
+        Packet response = this.attemptRegistration(false);
+
+        if (response instanceof RegistrationResponse && ((RegistrationResponse) response).getMulticastGroup() == null) {
+            logger.info("Registered again without multicast, broadcasts are sent to us directly");
+        } else {
+            logger.error("Failed to leave the multicast group of our branch, broadcasts will not be received: " + response);
+        }
+    }
+
     /**
      * Starting point of the worker thread.
      */
@@ -78,7 +156,7 @@ public class LeafRegistrationThread extends Thread {
         synchronized (this.leaf) {
             try {
 
-                Packet response = this.attemptRegistration();
+                Packet response = this.attemptRegistration(MULTICAST_CAPABLE);
 
                 if (response == null) {
 
@@ -104,11 +182,28 @@ public class LeafRegistrationThread extends Thread {
                             logger.info("Successfully registered with server response: " +
                                 registration.getRegistrationDetails());
 
+                            // Our branch sends its broadcasts to a multicast group rather than to us. Unless
+                            // we join it, we register again without it, while still sending to the stem.
+                            NodeLocation group = registration.getMulticastGroup();
+                            if (group != null && !this.joinMulticastGroup(group)) {
+                                this.registerWithoutMulticast();
+                            }
+
                             // The response should have been sent from a dedicated branch socket
                             // created for us. We must save it as this will be our communication
                             // point moving forward.
                             this.leaf.setDestination(new NodeLocation(response.getAddress(), response.getPort()));
 
+                            // Send everything from now on in the wire format that the server settled on.
+                            this.leaf.setWireFormat(WireFormat.forVersion(registration.getProtocolVersion()));
+                            this.leaf.setChecksum(registration.getChecksum());
+                            this.leaf.setProtocolVersion(registration.getProtocolVersion());
+
+                            // Servers that understand sequenced packets let us pipeline what we send reliably.
+                            if (registration.getProtocolVersion() >= Packet.SEQUENCED_PROTOCOL_VERSION) {
+                                this.leaf.enableSequencedDelivery();
+                            }
+
                             // Set the leaf registration status to true so that the send() and receive() methods
                             // on the leaf no longer move the caller into the wait set.
                             this.leaf.setRegistered(true);
@@ -0,0 +1,72 @@
+package network.leaf.threads;
+
+import java.io.IOException;
+
+import logging.SmartLog;
+import network.core.MulticastTransport;
+import network.core.Packet;
+import network.core.exceptions.CorruptPacketException;
+import network.core.exceptions.TransportInterruptedException;
+import network.leaf.Leaf;
+
+/**
+ * MulticastListenerThread is spawned when a leaf joins the multicast
+ * group of its branch. It receives the broadcasts sent to the group and
+ * hands them to the leaf, which processes them like any other broadcast.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MulticastListenerThread extends Thread {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(MulticastListenerThread.class.getName());
+
+    // The leaf that we are receiving broadcasts for.
+    private Leaf leaf;
+
+    // The transport that joined the multicast group.
+    private MulticastTransport multicast;
+
+    /**
+     * Initialize the multicast listener thread and immediately start it.
+     *
+     * @param leaf The leaf that we are receiving broadcasts for
+     * @param multicast The transport that joined the multicast group
+     */
+    public MulticastListenerThread(Leaf leaf, MulticastTransport multicast) {
+        super(String.format("MulticastListener-%d", leaf.getPort()));
+        this.leaf = leaf;
+        this.multicast = multicast;
+
+        // Immediately start the thread.
+        this.start();
+    }
+
+    /**
+     * The entry point for the MulticastListener thread.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Packet packet = this.multicast.receive();
+
+                // Only broadcasts are ever sent to the group.
+                if (packet.isBroadcast()) {
+                    this.leaf.dispatchBroadcast(packet);
+                }
+            } catch (CorruptPacketException ex) {
+
+                // A corrupt datagram only costs us this broadcast.
+                logger.error("Received corrupt broadcast: " + ex);
+            } catch (TransportInterruptedException ex) {
+                logger.info("Multicast group is no longer being listened to");
+                return;
+            } catch (IOException ex) {
+                logger.error("I/O exception encountered during multicast receive");
+                return;
+            }
+        }
+    }
+}
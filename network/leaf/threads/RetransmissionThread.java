@@ -0,0 +1,68 @@
+package network.leaf.threads;
+
+import java.io.IOException;
+import java.util.List;
+
+import logging.SmartLog;
+import network.core.EncodedPacket;
+import network.core.SendWindow;
+import network.core.exceptions.TransportInterruptedException;
+import network.leaf.Leaf;
+
+/**
+ * RetransmissionThread sends the sequenced packets of a leaf again when
+ * they have not been acknowledged in time, leaving the threads that send
+ * them free to carry on.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class RetransmissionThread extends Thread {
+
+    // The logger instance for this class.
+    private static SmartLog logger = new SmartLog(RetransmissionThread.class.getName());
+
+    // The leaf that we are retransmitting for, and the window of the packets it has in flight.
+    private Leaf leaf;
+    private SendWindow sendWindow;
+
+    /**
+     * Initialize the retransmission thread and immediately start it.
+     *
+     * @param leaf The leaf that we are retransmitting for
+     * @param sendWindow The window of the sequenced packets that the leaf has in flight
+     */
+    public RetransmissionThread(Leaf leaf, SendWindow sendWindow) {
+        super(String.format("Retransmission-%d", leaf.getPort()));
+        this.leaf = leaf;
+        this.sendWindow = sendWindow;
+
+        // Immediately start the thread.
+        this.start();
+    }
+
+    /**
+     * The entry point for the Retransmission thread.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                List<EncodedPacket> due = this.sendWindow.awaitRetransmissions();
+                logger.debug("Retransmitting " + due.size() + " unacknowledged packets");
+
+                // The packets are sent exactly as they were the first time around.
+                for (EncodedPacket packet : due) {
+                    this.leaf.send(packet);
+                }
+            } catch (InterruptedException | TransportInterruptedException ex) {
+                logger.info("Leaf is no longer retransmitting");
+                return;
+            } catch (IOException ex) {
+
+                // The packets stay in the window and are retransmitted again later.
+                logger.error("I/O exception encountered during retransmission: " + ex);
+            }
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package network.stem;
 
-import java.util.ArrayList;
+import java.util.Collection;
 
 import cps.accounts.Account;
-import network.branch.threads.DedicatedLeafServicer;
+import network.branch.LeafSession;
 import network.core.packets.plants.AvailablePlants;
 import network.stem.Stem;
 
@@ -33,12 +33,17 @@ public class ActivePlantEndpoints {
      * @return A set of plant id-names for the active plants in the system.
      */
     public AvailablePlants getActivePlants() {
-        ArrayList<DedicatedLeafServicer> activePlants = this.stem.getPlants().getServicers();
+        Collection<LeafSession> activePlants = this.stem.getPlants().getSessions();
         AvailablePlants availablePlants = new AvailablePlants();
 
-        for (DedicatedLeafServicer servicer : activePlants) {
+        for (LeafSession session : activePlants) {
 
-            Account plantAccount = servicer.getAccount();
+            Account plantAccount = session.getAccount();
+
+            // The plant is still being registered and has no account yet.
+            if (plantAccount == null) {
+                continue;
+            }
 
             // Append the plant id-name pair to the packet
             availablePlants.addPlant(plantAccount.getId(), String.format("Plant #%d", plantAccount.getId()));
@@ -1,18 +1,22 @@
 package network.stem;
 
 import java.io.IOException;
+import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
 
+import config.SmartGrowConfiguration;
+
 import cps.management.LeafManager;
 import logging.SmartLog;
 import network.branch.Branch;
-import network.branch.threads.DedicatedLeafServicer;
+import network.branch.ReactorLeafSession;
 import network.core.NodeLocation;
 import network.core.Packet;
 import network.core.Transport;
 import network.core.exceptions.CorruptPacketException;
 import network.core.exceptions.TransportInterruptedException;
+import network.core.packets.registration.LeafRegistration;
 import network.leaf.Identity;
 import network.stem.threads.AvailablePlantsThread;
 import network.stem.threads.StemListener;
@@ -45,12 +49,26 @@ public class Stem extends Transport {
      * Initialize a stem on the specified port.
      *
      * @param port The port that the Stem should listen on.
-     * @throws SocketException
+     * @throws IOException If the stem socket or the branches could not be initialized
      */
-    public Stem(int port) throws SocketException {
+    public Stem(int port) throws IOException {
         super(port);
-        this.plants = new Branch("Plants");
-        this.users = new Branch("Users");
+
+        // Leaves sharing the stem port are serviced through the stem socket itself.
+        Transport stemTransport = SmartGrowConfiguration.CPS_SINGLE_PORT ? this : null;
+        this.plants = new Branch("Plants", stemTransport);
+        this.users = new Branch("Users", stemTransport);
+
+        // Each branch broadcasts to a multicast group of its own.
+        if (SmartGrowConfiguration.CPS_MULTICAST) {
+            NetworkInterface networkInterface = SmartGrowConfiguration.MULTICAST_INTERFACE == null
+                ? null : NetworkInterface.getByName(SmartGrowConfiguration.MULTICAST_INTERFACE);
+
+            this.plants.enableMulticast(new NodeLocation(SmartGrowConfiguration.CPS_PLANTS_MULTICAST_GROUP,
+                SmartGrowConfiguration.CPS_PLANTS_MULTICAST_PORT), networkInterface);
+            this.users.enableMulticast(new NodeLocation(SmartGrowConfiguration.CPS_USERS_MULTICAST_GROUP,
+                SmartGrowConfiguration.CPS_USERS_MULTICAST_PORT), networkInterface);
+        }
         
         // Initialize the leaf-servicing thread.
         this.stemListener = new StemListener(this);
@@ -103,15 +121,15 @@ public class Stem extends Transport {
      * Register a leaf by inserting it into the appropriate branch.
      *
      * @param location The NodeLocation object containing the IPv4 address and port of the leaf.
-     * @param leafIdentity The identity that the leaf provided
+     * @param registration The registration request that the leaf sent
      * 
-     * @throws SocketException If the branch failed to start a DedicatedLeafServicer
+     * @throws IOException If the branch failed to start a session for the leaf
      */
-    public void registerLeaf(NodeLocation location, Identity leafIdentity) throws SocketException {
-        if (leafIdentity == Identity.PLANT_ENDPOINT) {
-            this.plants.addLeaf(location);
+    public void registerLeaf(NodeLocation location, LeafRegistration registration) throws IOException {
+        if (registration.getIdentity() == Identity.PLANT_ENDPOINT) {
+            this.plants.addLeaf(location, registration);
         } else {
-            this.users.addLeaf(location);
+            this.users.addLeaf(location, registration);
         }
     }
 
@@ -126,4 +144,41 @@ public class Stem extends Transport {
     public boolean isExistingLeaf(NodeLocation location) {
         return this.users.isExistingLeaf(location) || this.plants.isExistingLeaf(location);
     }
+
+    /**
+     * Send a registered leaf its RegistrationResponse again, after it repeated its registration.
+     *
+     * @param location The NodeLocation object representing the IPv4 address and port of the leaf
+     * @param registration The registration request that the leaf sent again
+     * @return      true    If the leaf has a session, which answers it
+     *              false   If the leaf is not registered
+     * @throws IOException If the response could not be sent
+     */
+    public boolean resendRegistration(NodeLocation location, LeafRegistration registration) throws IOException {
+        return this.plants.onRepeatedRegistration(location, registration)
+            || this.users.onRepeatedRegistration(location, registration);
+    }
+
+    /**
+     * Deliver a packet received by the stem to the session of the leaf that sent it. This
+     * only applies when leaves share the stem port.
+     *
+     * @param location The NodeLocation object representing the IPv4 address and port of the leaf
+     * @param packet The packet received on the stem
+     * @return      true    If the packet was delivered to a session
+     *              false   If the sender has no session routed through the stem
+     */
+    public boolean route(NodeLocation location, Packet packet) {
+        ReactorLeafSession session = this.plants.route(location);
+        if (session == null) {
+            session = this.users.route(location);
+        }
+
+        if (session == null) {
+            return false;
+        }
+
+        session.deliver(packet);
+        return true;
+    }
 }
\ No newline at end of file
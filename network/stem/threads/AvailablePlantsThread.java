@@ -1,7 +1,5 @@
 package network.stem.threads;
 
-import java.io.IOException;
-
 import logging.SmartLog;
 import network.core.packets.plants.AvailablePlants;
 import network.stem.ActivePlantEndpoints;
@@ -58,8 +56,6 @@ public class AvailablePlantsThread extends Thread {
             }
         } catch (InterruptedException ex) {
             logger.error(Thread.currentThread().getName() + " has been unexpectedly interrupted!");
-        } catch (IOException ex) {
-            logger.error(Thread.currentThread().getName() + " encountered an error: " + ex.getMessage());
         }
     }
 }
\ No newline at end of file
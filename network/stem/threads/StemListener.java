@@ -44,55 +44,79 @@ public class StemListener extends Thread {
 
     /**
      * The entry point for the StemListener thread.
+     *
+     * A datagram that cannot be received or handled only costs us that datagram: the
+     * listener keeps going until the stem socket is closed.
      */
     @Override
     public void run() {
-        try {
-            while (true) {
-                Packet packet = this.stem.receive();
-                NodeLocation location = new NodeLocation(packet.getAddress(), packet.getPort());
-
-                /*
-                 * The following if-else if-else logic covers the following two (2) irregular
-                 * scenarios and the expected scenario:
-                 * 
-                 * 1. (Irregular) A packet that is not LeafRegistration has been sent to the Stem. The stem
-                 * is only supposed to receive LeafRegistration packets because everything else should go
-                 * through the DedicatedLeafServicers.
-                 * 2. (Irregular) A repeated LeafRegistration request packet from a leaf that is already
-                 * being serviced.
-                 * 3. (Expected) A LeafRegistration packet from a client that is not being serviced yet.
-                 */
-                if (!(packet instanceof LeafRegistration)) {
-                    logger.warn("Received packet that is not LeafRegistration");
-
-                    GenericError error = new GenericError(NetworkErrors.WRONG_PACKET,
-                        "You are only allowed to send LeafRegistration packets to the main server.");
-                    error.setDestination(location);
-
-                    this.stem.send(error);
-                } else if (this.stem.isExistingLeaf(location)) {
-                    logger.warn("Repeated registration request from " + location);
-
-                    GenericError error = new GenericError(NetworkErrors.LEAF_ALREADY_REGISTERED,
-                        "You are already registered with the server.");
-                    error.setDestination(location);
-
-                    this.stem.send(error);
-                } else {
-                    logger.info("New client from " + location);
-                    
-                    // Register the leaf with the stem
-                    LeafRegistration registration = (LeafRegistration) packet;
-                    this.stem.registerLeaf(location, registration.getIdentity());
-                }
+        while (true) {
+            Packet packet = null;
+
+            try {
+                packet = this.stem.receive();
+            } catch (TransportInterruptedException ex) {
+
+                // The stem socket was closed, so there is nothing left to listen to.
+                logger.error("Transport interrupted");
+                return;
+            } catch (CorruptPacketException ex) {
+                logger.error("Received corrupt packet: " + ex.getMessage());
+                continue;
+            } catch (IOException ex) {
+                logger.error("I/O exception encountered during receive: " + ex.getMessage());
+                continue;
             }
-        } catch (CorruptPacketException ex) {
-            logger.error("Received corrupt packet");
-        } catch (TransportInterruptedException ex) {
-            logger.error("Transport interrupted");
-        } catch (IOException ex) {
-            logger.error("I/O exception encountered during receive");
+
+            try {
+                this.handle(packet);
+            } catch (IOException | RuntimeException ex) {
+                logger.error("Failed to handle packet from " + packet.getAddress() + ":" + packet.getPort() + ": " + ex);
+            }
+        }
+    }
+
+    /*
+     * Route the packet to the session of its leaf, or register the leaf that sent it.
+     */
+    private void handle(Packet packet) throws IOException {
+        NodeLocation location = new NodeLocation(packet.getAddress(), packet.getPort());
+
+        // Leaves sharing the stem port send everything here. Their packets are
+        // routed straight to their session.
+        if (!(packet instanceof LeafRegistration) && this.stem.route(location, packet)) {
+            return;
+        }
+
+        /*
+         * The following if-else if-else logic covers the following two (2) irregular
+         * scenarios and the expected scenario:
+         * 
+         * 1. (Irregular) A packet that is not LeafRegistration has been sent to the Stem. The stem
+         * is only supposed to receive LeafRegistration packets because everything else should go
+         * through the leaf sessions of the branches.
+         * 2. (Irregular) A repeated LeafRegistration request packet from a leaf that is already
+         * being serviced, which sent it again before our RegistrationResponse reached it. Its
+         * session answers with the response again, or with the first one if it is still pending.
+         * A leaf that failed to join our multicast group also registers again, without it.
+         * 3. (Expected) A LeafRegistration packet from a client that is not being serviced yet.
+         */
+        if (!(packet instanceof LeafRegistration)) {
+            logger.warn("Received packet that is not LeafRegistration");
+
+            GenericError error = new GenericError(NetworkErrors.WRONG_PACKET,
+                "You are only allowed to send LeafRegistration packets to the main server.");
+            error.setDestination(location);
+
+            this.stem.send(error);
+        } else if (this.stem.resendRegistration(location, (LeafRegistration) packet)) {
+            logger.warn("Repeated registration request from " + location);
+        } else {
+            logger.info("New client from " + location);
+            
+            // Register the leaf with the stem
+            LeafRegistration registration = (LeafRegistration) packet;
+            this.stem.registerLeaf(location, registration);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import cps.accounts.Account;
+import network.branch.LeafExpiryWheel;
+import network.branch.LeafSession;
+import network.core.EncodedPacket;
+import network.core.NodeLocation;
+import network.core.PacketChecksum;
+import network.core.WireFormat;
+
+/**
+ * The following class hosts several unit tests to verify that the
+ * LeafExpiryWheel expires exactly the sessions that went silent.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class LeafExpiryWheelUnittest {
+
+    // Wheel parameters matching the pruning thread: 100ms ticks, 64 slots, 5 second timeout.
+    private static final long TICK = 100;
+    private static final int SLOTS = 64;
+    private static final long TIMEOUT = 5000;
+
+    /*
+     * A session stub whose last received time is controlled by the test.
+     */
+    private static class StubSession implements LeafSession {
+        private long lastReceivedTime;
+
+        StubSession(long lastReceivedTime) {
+            this.lastReceivedTime = lastReceivedTime;
+        }
+
+        public NodeLocation getDestination() { return null; }
+        public Account getAccount() { return null; }
+        public long getLastReceivedTime() { return this.lastReceivedTime; }
+        public int getProtocolVersion() { return 0; }
+        public WireFormat getWireFormat() { return WireFormat.FIXED; }
+        public PacketChecksum getChecksum() { return PacketChecksum.CRC32; }
+        public void forwardBroadcast(EncodedPacket broadcast) { }
+        public void drainOutbound() { }
+        public void resendRegistration() { }
+        public void stop() { }
+    }
+
+    /**
+     * Test: Check that a silent session expires once the timeout has elapsed, and not before.
+     */
+    @Test
+    public void silentSessionExpiresAfterTimeout() {
+        LeafExpiryWheel wheel = new LeafExpiryWheel(TICK, SLOTS, TIMEOUT, 0);
+        StubSession session = new StubSession(50);
+        wheel.schedule(session);
+
+        assertTrue(wheel.expire(5000).isEmpty());
+
+        List<LeafSession> expired = wheel.expire(5100);
+        assertEquals(1, expired.size());
+        assertEquals(session, expired.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test: Check that rescheduling a session on activity pushes back its expiry.
+     */
+    @Test
+    public void activeSessionIsRescheduled() {
+        LeafExpiryWheel wheel = new LeafExpiryWheel(TICK, SLOTS, TIMEOUT, 0);
+        StubSession session = new StubSession(0);
+        wheel.schedule(session);
+
+        // The session receives a packet at 3 seconds.
+        session.lastReceivedTime = 3000;
+        wheel.schedule(session);
+
+        assertTrue(wheel.expire(7000).isEmpty());
+        assertEquals(1, wheel.expire(8000).size());
+    }
+
+    /**
+     * Test: Check that only the silent sessions are expired among many active ones.
+     */
+    @Test
+    public void onlySilentSessionsExpire() {
+        LeafExpiryWheel wheel = new LeafExpiryWheel(TICK, SLOTS, TIMEOUT, 0);
+
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(new StubSession(4000));
+        }
+
+        StubSession silent = new StubSession(0);
+        wheel.schedule(silent);
+
+        List<LeafSession> expired = wheel.expire(6000);
+        assertEquals(1, expired.size());
+        assertEquals(silent, expired.get(0));
+        assertEquals(100, wheel.size());
+    }
+
+    /**
+     * Test: Check that a cancelled session never expires.
+     */
+    @Test
+    public void cancelledSessionNeverExpires() {
+        LeafExpiryWheel wheel = new LeafExpiryWheel(TICK, SLOTS, TIMEOUT, 0);
+        StubSession session = new StubSession(0);
+        wheel.schedule(session);
+        wheel.cancel(session);
+
+        assertTrue(wheel.expire(20000).isEmpty());
+    }
+
+    /**
+     * Test: Check that a session still expires if the wheel was advanced late, after
+     * more than a full revolution.
+     */
+    @Test
+    public void lateAdvanceStillExpiresSession() {
+        LeafExpiryWheel wheel = new LeafExpiryWheel(TICK, SLOTS, TIMEOUT, 0);
+        wheel.schedule(new StubSession(0));
+
+        assertEquals(1, wheel.expire(60000).size());
+    }
+}
@@ -0,0 +1,60 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+
+import network.core.MulticastTransport;
+import network.core.NodeLocation;
+import network.core.exceptions.CorruptPacketException;
+import network.core.packets.plants.AvailablePlants;
+
+/**
+ * The following class hosts a unit test to verify that a broadcast sent
+ * to a multicast group reaches the members of the group over loopback.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class MulticastTransportUnittest {
+
+    // The group used by the test, kept away from the groups of the real branches.
+    private static final NodeLocation GROUP = new NodeLocation("239.255.30.99", 3099);
+
+    /**
+     * Test: Check that a single datagram sent to the group is received by every member.
+     */
+    @Test
+    public void broadcastReachesEveryMember() throws IOException, CorruptPacketException {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+
+        MulticastTransport first = new MulticastTransport(GROUP, loopback, GROUP.getPort());
+        MulticastTransport second = new MulticastTransport(GROUP, loopback, GROUP.getPort());
+        MulticastTransport sender = new MulticastTransport(GROUP, loopback);
+
+        try {
+            first.joinGroup();
+            second.joinGroup();
+
+            AvailablePlants plants = new AvailablePlants();
+            plants.addPlant(5, "Basil");
+            plants.setBroadcast(true);
+            sender.send(plants.encode());
+
+            for (MulticastTransport member : new MulticastTransport[] { first, second }) {
+                AvailablePlants received = (AvailablePlants) member.receiveWithTimeout();
+
+                assertTrue(received.isBroadcast());
+                assertEquals("Basil", received.getPlants().get(5));
+            }
+        } finally {
+            first.close();
+            second.close();
+            sender.close();
+        }
+    }
+}
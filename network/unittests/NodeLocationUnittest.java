@@ -0,0 +1,65 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import network.core.NodeLocation;
+
+/**
+ * The following class hosts several unit tests to verify that NodeLocation
+ * behaves as a value that can be used to look up leaves.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class NodeLocationUnittest {
+
+    /**
+     * Test: Check that locations with the same address and port are equal.
+     */
+    @Test
+    public void locationsWithSameAddressAndPortAreEqual() {
+        NodeLocation first = new NodeLocation("192.168.1.20", 3010);
+        NodeLocation second = new NodeLocation("192.168.1.20", 3010);
+
+        assertTrue(first.equals(second));
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    /**
+     * Test: Check that locations with a different address are not equal, even on the same port.
+     */
+    @Test
+    public void locationsWithDifferentAddressesAreNotEqual() {
+        NodeLocation first = new NodeLocation("192.168.1.20", 3010);
+        NodeLocation second = new NodeLocation("192.168.1.21", 3010);
+
+        assertFalse(first.equals(second));
+    }
+
+    /**
+     * Test: Check that locations with a different port are not equal.
+     */
+    @Test
+    public void locationsWithDifferentPortsAreNotEqual() {
+        NodeLocation first = new NodeLocation("192.168.1.20", 3010);
+        NodeLocation second = new NodeLocation("192.168.1.20", 3011);
+
+        assertFalse(first.equals(second));
+    }
+
+    /**
+     * Test: Check that a location can be used to look up a value stored under an equal location.
+     */
+    @Test
+    public void locationCanBeUsedAsHashKey() {
+        HashMap<NodeLocation, String> leaves = new HashMap<>();
+        leaves.put(new NodeLocation("10.0.0.5", 45000), "Plant");
+
+        assertEquals("Plant", leaves.get(new NodeLocation("10.0.0.5", 45000)));
+    }
+}
@@ -0,0 +1,56 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import network.branch.OutboundQueue;
+import network.core.EncodedPacket;
+import network.core.packets.Acknowledgement;
+
+/**
+ * The following class hosts several unit tests to verify that the
+ * OutboundQueue of a leaf session stays bounded.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class OutboundQueueUnittest {
+
+    /**
+     * Test: Check that packets are drained in the order they were queued.
+     */
+    @Test
+    public void packetsAreDrainedInOrder() {
+        OutboundQueue queue = new OutboundQueue(4);
+        EncodedPacket first = new Acknowledgement().encode();
+        EncodedPacket second = new Acknowledgement().encode();
+
+        assertEquals(0, queue.offer(first));
+        assertEquals(0, queue.offer(second));
+
+        assertEquals(first, queue.poll());
+        assertEquals(second, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    /**
+     * Test: Check that a full queue drops its oldest packet instead of blocking.
+     */
+    @Test
+    public void fullQueueDropsOldest() {
+        OutboundQueue queue = new OutboundQueue(2);
+        EncodedPacket[] packets = new EncodedPacket[3];
+        for (int i = 0; i < packets.length; i++) {
+            packets[i] = new Acknowledgement().encode();
+        }
+
+        queue.offer(packets[0]);
+        queue.offer(packets[1]);
+        assertEquals(1, queue.offer(packets[2]));
+
+        assertEquals(2, queue.size());
+        assertEquals(packets[1], queue.poll());
+        assertEquals(packets[2], queue.poll());
+    }
+}
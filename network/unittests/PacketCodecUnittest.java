@@ -0,0 +1,346 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+
+import endpoint.sensors.SupportedSensors;
+import network.core.EncodedPacket;
+import network.core.NodeLocation;
+import network.core.Packet;
+import network.core.PacketChecksum;
+import network.core.WireFormat;
+import network.core.exceptions.CRCVerificationException;
+import network.core.exceptions.CorruptPacketException;
+import network.core.packets.Acknowledgement;
+import network.core.packets.GenericError;
+import network.core.packets.plants.AvailablePlants;
+import network.core.packets.registration.LeafRegistration;
+import network.core.packets.registration.RegistrationResponse;
+import network.core.packets.sensors.RequestSensors;
+import network.core.packets.sensors.SensorsData;
+import network.leaf.Identity;
+
+/**
+ * The following class hosts several unit tests to verify that packets
+ * survive being compiled and decoded back through Packet::fromPayload.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class PacketCodecUnittest {
+
+    /*
+     * Compile the packet and decode it back from its payload.
+     */
+    private Packet roundTrip(Packet packet) throws CorruptPacketException {
+        packet.compile();
+        return Packet.fromPayload(packet.getDatagram().getData());
+    }
+
+    /**
+     * Test: Check that a SensorsData packet keeps all of its sensor values.
+     */
+    @Test
+    public void sensorsDataSurvivesRoundTrip() throws CorruptPacketException {
+        SensorsData data = new SensorsData();
+        data.addSensorData(SupportedSensors.LIGHT_INTENSITY, 700.5);
+        data.addSensorData(SupportedSensors.SOIL_MOISTURE, 40.25);
+        data.addSensorData(SupportedSensors.AIR_TEMPERATURE, 21.0);
+        data.addSensorData(SupportedSensors.AIR_HUMIDITY, 55.75);
+
+        SensorsData decoded = (SensorsData) this.roundTrip(data);
+
+        assertEquals(700.5, decoded.getSensorData(SupportedSensors.LIGHT_INTENSITY), 0.001);
+        assertEquals(40.25, decoded.getSensorData(SupportedSensors.SOIL_MOISTURE), 0.001);
+        assertEquals(21.0, decoded.getSensorData(SupportedSensors.AIR_TEMPERATURE), 0.001);
+        assertEquals(55.75, decoded.getSensorData(SupportedSensors.AIR_HUMIDITY), 0.001);
+    }
+
+    /**
+     * Test: Check that the registration packets keep their identity, status and details.
+     */
+    @Test
+    public void registrationPacketsSurviveRoundTrip() throws CorruptPacketException {
+        LeafRegistration registration = new LeafRegistration();
+        registration.setIdentity(Identity.ANDROID_USER);
+        assertEquals(Identity.ANDROID_USER, ((LeafRegistration) this.roundTrip(registration)).getIdentity());
+
+        RegistrationResponse response = new RegistrationResponse();
+        response.setStatus(true);
+        response.setRegistrationDetails("OK");
+
+        RegistrationResponse decoded = (RegistrationResponse) this.roundTrip(response);
+        assertTrue(decoded.isRegistered());
+        assertEquals("OK", decoded.getRegistrationDetails());
+
+        // Packets without a multicast group decode just like those of older servers and leaves.
+        assertNull(decoded.getMulticastGroup());
+        assertFalse(((LeafRegistration) this.roundTrip(registration)).isMulticastCapable());
+    }
+
+    /**
+     * Test: Check that the registration packets keep the multicast capability and group.
+     */
+    @Test
+    public void multicastRegistrationSurvivesRoundTrip() throws CorruptPacketException {
+        LeafRegistration registration = new LeafRegistration();
+        registration.setIdentity(Identity.ANDROID_USER);
+        registration.setMulticastCapable(true);
+        assertTrue(((LeafRegistration) this.roundTrip(registration)).isMulticastCapable());
+
+        RegistrationResponse response = new RegistrationResponse();
+        response.setStatus(true);
+        response.setRegistrationDetails("OK");
+        response.setMulticastGroup(new NodeLocation("239.255.30.2", 3012));
+
+        RegistrationResponse decoded = (RegistrationResponse) this.roundTrip(response);
+        assertEquals("OK", decoded.getRegistrationDetails());
+        assertEquals(new NodeLocation("239.255.30.2", 3012), decoded.getMulticastGroup());
+    }
+
+    /**
+     * Test: Check that the remaining packets keep their contents.
+     */
+    @Test
+    public void remainingPacketsSurviveRoundTrip() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(1042);
+        assertEquals(1042, ((RequestSensors) this.roundTrip(request)).getPlantId());
+
+        GenericError error = new GenericError((byte)1, "Wrong packet");
+        GenericError decodedError = (GenericError) this.roundTrip(error);
+        assertEquals(1, decodedError.getErrorType());
+        assertEquals("Wrong packet", decodedError.getErrorMessage());
+
+        assertTrue(this.roundTrip(new Acknowledgement()) instanceof Acknowledgement);
+    }
+
+    /**
+     * Test: Check that every plant of a full AvailablePlants packet is decoded.
+     */
+    @Test
+    public void availablePlantsSurvivesRoundTrip() throws CorruptPacketException {
+        AvailablePlants plants = new AvailablePlants();
+        for (int i = 1; i <= 30; i++) {
+            plants.addPlant(i, String.format("Plant #%d", i));
+        }
+
+        AvailablePlants decoded = (AvailablePlants) this.roundTrip(plants);
+
+        assertEquals(30, decoded.getPlants().size());
+        assertEquals("Plant #17", decoded.getPlants().get(17));
+    }
+
+    /**
+     * Test: Check that a packet can be decoded in place from the middle of a larger buffer.
+     */
+    @Test
+    public void packetCanBeDecodedAtAnOffset() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(7);
+        request.compile();
+
+        byte[] buffer = new byte[Packet.PACKET_SIZE + 16];
+        System.arraycopy(request.getDatagram().getData(), 0, buffer, 9, Packet.PACKET_SIZE);
+
+        ByteBuffer view = ByteBuffer.wrap(buffer, 9, Packet.PACKET_SIZE);
+        assertEquals(7, ((RequestSensors) Packet.fromPayload(view)).getPlantId());
+    }
+
+    /**
+     * Test: Check that a payload with a flipped bit fails CRC verification.
+     */
+    @Test(expected = CRCVerificationException.class)
+    public void corruptedPayloadFailsVerification() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(7);
+        request.compile();
+
+        byte[] payload = request.getDatagram().getData().clone();
+        payload[3] ^= 0x10;
+
+        Packet.fromPayload(payload);
+    }
+
+    /**
+     * Test: Check that an encoded packet decodes back and is unaffected by later changes to the packet.
+     */
+    @Test
+    public void encodedPacketIsImmutable() throws CorruptPacketException {
+        AvailablePlants plants = new AvailablePlants();
+        plants.addPlant(5, "Basil");
+        plants.setBroadcast(true);
+
+        EncodedPacket encoded = plants.encode();
+
+        // Recompiling the packet with different contents must not leak into the encoding.
+        plants.addPlant(6, "Mint");
+        plants.compile();
+
+        AvailablePlants decoded = (AvailablePlants) Packet.fromPayload(encoded.getPayload());
+        assertTrue(decoded.isBroadcast());
+        assertEquals(1, decoded.getPlants().size());
+        assertTrue(encoded.getPayload().isReadOnly());
+    }
+
+    /**
+     * Test: Check that compact packets only carry the bytes in use and decode back.
+     */
+    @Test
+    public void compactPacketsSurviveRoundTrip() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(1042);
+        EncodedPacket encodedRequest = request.encode(WireFormat.COMPACT);
+
+        assertEquals(Packet.COMPACT_HEADER_SIZE + Integer.BYTES + Packet.CRC_SIZE, encodedRequest.getPayload().remaining());
+        assertEquals(1042, ((RequestSensors) Packet.fromPayload(encodedRequest.getPayload())).getPlantId());
+
+        SensorsData data = new SensorsData();
+        data.addSensorData(SupportedSensors.LIGHT_INTENSITY, 700.5);
+        data.addSensorData(SupportedSensors.AIR_HUMIDITY, 55.75);
+        data.setBroadcast(true);
+        data.compile(WireFormat.COMPACT);
+
+        // Decode from the received length, just like a transport would.
+        ByteBuffer received = ByteBuffer.wrap(data.getDatagram().getData(), 0, data.getDatagram().getLength());
+        SensorsData decoded = (SensorsData) Packet.fromPayload(received);
+
+        assertTrue(decoded.isBroadcast());
+        assertEquals(700.5, decoded.getSensorData(SupportedSensors.LIGHT_INTENSITY), 0.001);
+        assertEquals(55.75, decoded.getSensorData(SupportedSensors.AIR_HUMIDITY), 0.001);
+    }
+
+    /**
+     * Test: Check that sequenced packets keep their sequence number in both wire formats,
+     * and that acknowledgements keep the sequences they cover.
+     */
+    @Test
+    public void sequencedPacketsSurviveRoundTrip() throws CorruptPacketException {
+        SensorsData data = new SensorsData();
+        data.addSensorData(SupportedSensors.SOIL_MOISTURE, 40.25);
+        data.setSequence(-7);
+
+        for (WireFormat format : WireFormat.values()) {
+            SensorsData decoded = (SensorsData) Packet.fromPayload(data.encode(format).getPayload());
+
+            assertTrue(decoded.isSequenced());
+            assertEquals(-7, decoded.getSequence());
+            assertEquals(40.25, decoded.getSensorData(SupportedSensors.SOIL_MOISTURE), 0.001);
+        }
+
+        Acknowledgement acknowledgement = (Acknowledgement) Packet.fromPayload(
+            new Acknowledgement(41, 0b101).encode(WireFormat.COMPACT).getPayload());
+
+        assertFalse(acknowledgement.isSequenced());
+        assertEquals(41, acknowledgement.getCumulative());
+        assertEquals(0b101, acknowledgement.getSelective());
+    }
+
+    /**
+     * Test: Check that correlated packets keep their correlation id, alongside a sequence number.
+     */
+    @Test
+    public void correlatedPacketsSurviveRoundTrip() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(1042);
+        request.setCorrelationId(88);
+
+        RequestSensors decoded = (RequestSensors) Packet.fromPayload(request.encode(WireFormat.COMPACT).getPayload());
+        assertTrue(decoded.isCorrelated());
+        assertFalse(decoded.isSequenced());
+        assertEquals(88, decoded.getCorrelationId());
+        assertEquals(1042, decoded.getPlantId());
+
+        request.setSequence(5);
+        decoded = (RequestSensors) this.roundTrip(request);
+        assertEquals(5, decoded.getSequence());
+        assertEquals(88, decoded.getCorrelationId());
+        assertEquals(1042, decoded.getPlantId());
+    }
+
+    /**
+     * Test: Check that a compact packet cut short fails to decode.
+     */
+    @Test(expected = CorruptPacketException.class)
+    public void truncatedCompactPacketFailsToDecode() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(7);
+        request.compile(WireFormat.COMPACT);
+
+        Packet.fromPayload(ByteBuffer.wrap(request.getDatagram().getData(), 0, request.getDatagram().getLength() - 1));
+    }
+
+    /**
+     * Test: Check that the wire format is negotiated from the protocol versions in the registration packets.
+     */
+    @Test
+    public void wireFormatIsNegotiated() throws CorruptPacketException {
+        assertEquals(WireFormat.FIXED, WireFormat.negotiate(0));
+        assertEquals(WireFormat.COMPACT, WireFormat.negotiate(Packet.PROTOCOL_VERSION));
+        assertEquals(WireFormat.COMPACT, WireFormat.negotiate(Packet.PROTOCOL_VERSION + 1));
+
+        LeafRegistration registration = new LeafRegistration();
+        registration.setIdentity(Identity.PLANT_ENDPOINT);
+        registration.setProtocolVersion(Packet.PROTOCOL_VERSION);
+        assertEquals(Packet.PROTOCOL_VERSION, ((LeafRegistration) this.roundTrip(registration)).getProtocolVersion());
+
+        RegistrationResponse response = new RegistrationResponse();
+        response.setStatus(true);
+        response.setRegistrationDetails("OK");
+        response.setProtocolVersion(WireFormat.COMPACT.getProtocolVersion());
+        assertEquals(WireFormat.COMPACT.getProtocolVersion(), ((RegistrationResponse) this.roundTrip(response)).getProtocolVersion());
+    }
+
+    /**
+     * Test: Check that packets protected by CRC32C decode back in both wire formats and detect corruption.
+     */
+    @Test
+    public void crc32cPacketsSurviveRoundTrip() throws CorruptPacketException {
+        RequestSensors request = new RequestSensors();
+        request.setPlantId(1042);
+
+        for (WireFormat format : WireFormat.values()) {
+            EncodedPacket encoded = request.encode(format, PacketChecksum.CRC32C);
+            assertEquals(1042, ((RequestSensors) Packet.fromPayload(encoded.getPayload())).getPlantId());
+        }
+
+        request.compile(WireFormat.COMPACT, PacketChecksum.CRC32C);
+        byte[] payload = request.getDatagram().getData().clone();
+        payload[5] ^= 0x01;
+
+        try {
+            Packet.fromPayload(ByteBuffer.wrap(payload, 0, request.getDatagram().getLength()));
+            fail("Corrupted CRC32C packet was decoded");
+        } catch (CRCVerificationException ex) {
+            // Expected: the flipped bit is caught.
+        }
+    }
+
+    /**
+     * Test: Check that the checksum is negotiated from the registration packets.
+     */
+    @Test
+    public void checksumIsNegotiated() throws CorruptPacketException {
+        assertEquals(PacketChecksum.CRC32, PacketChecksum.negotiate(0));
+        assertEquals(PacketChecksum.CRC32C, PacketChecksum.negotiate(PacketChecksum.getSupported()));
+
+        LeafRegistration registration = new LeafRegistration();
+        registration.setIdentity(Identity.PLANT_ENDPOINT);
+        registration.setSupportedChecksums(PacketChecksum.getSupported());
+        assertEquals(PacketChecksum.getSupported(), ((LeafRegistration) this.roundTrip(registration)).getSupportedChecksums());
+
+        RegistrationResponse response = new RegistrationResponse();
+        response.setStatus(true);
+        response.setRegistrationDetails("OK");
+        assertEquals(PacketChecksum.CRC32, ((RegistrationResponse) this.roundTrip(response)).getChecksum());
+
+        response.setChecksum(PacketChecksum.CRC32C);
+        assertEquals(PacketChecksum.CRC32C, ((RegistrationResponse) this.roundTrip(response)).getChecksum());
+    }
+}
@@ -0,0 +1,61 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import network.core.RttEstimator;
+
+/**
+ * The following class hosts several unit tests to verify that the timeouts
+ * derived from measured round trips follow the network, and back off when
+ * responses are lost.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class RttEstimatorUnittest {
+
+    /**
+     * Test: Check that a stable round trip brings the timeout down from its initial value
+     * to just above the round trip itself.
+     */
+    @Test
+    public void stableRoundTripsShrinkTheTimeout() {
+        RttEstimator rtt = new RttEstimator(1000, 1, 8000);
+        assertEquals(1000, rtt.getTimeoutMs());
+
+        for (int i = 0; i < 50; i++) {
+            rtt.sample(2000000);
+        }
+
+        // The deviation decays towards nothing, leaving the clock granularity on top.
+        assertEquals(2000000, rtt.getSmoothedRttNanos());
+        assertEquals(3, rtt.getTimeoutMs());
+    }
+
+    /**
+     * Test: Check that the timeout doubles on every timeout up to the maximum, that timers
+     * started before a backoff do not back off again, and that a sample ends the backoff.
+     */
+    @Test
+    public void timeoutsBackOffUntilSampled() {
+        RttEstimator rtt = new RttEstimator(100, 20, 1000);
+
+        rtt.onTimeout(rtt.getTimeoutNanos());
+        assertEquals(200, rtt.getTimeoutMs());
+
+        // A packet sent alongside the first one times out too, but was sent with the old timeout.
+        rtt.onTimeout(100000000);
+        assertEquals(200, rtt.getTimeoutMs());
+
+        for (int i = 0; i < 10; i++) {
+            rtt.onTimeout(rtt.getTimeoutNanos());
+        }
+
+        assertEquals(1000, rtt.getTimeoutMs());
+
+        // The first sample also assumes a deviation of half the round trip, yet stays above the minimum.
+        rtt.sample(4000000);
+        assertEquals(20, rtt.getTimeoutMs());
+    }
+}
@@ -103,6 +103,34 @@ public class SensorsDataUnittest {
         assertEquals(SupportedSensors.SUPPORTED_SENSORS, data.getSize());
     }
 
+    /**
+     * Test: Check that the addSensorData() method rejects sensor ids below the first
+     * supported sensor, as zero marks the padding of the payload.
+     */
+    @Test
+    public void unableToAddSensorIdsBelowOne() {
+        SensorsData data = new SensorsData();
+        data.clear();
+
+        assertEquals(false, data.addSensorData((byte)0, 5.0));
+        assertEquals(false, data.addSensorData((byte)-3, 5.0));
+        assertEquals(0, data.getSize());
+        assertEquals(-1.0, data.getSensorData((byte)0), 0.001);
+    }
+
+    /**
+     * Test: Check that a cleared sensor no longer reports its old value.
+     */
+    @Test
+    public void clearedSensorValuesAreNotRetrievable() {
+        SensorsData data = new SensorsData();
+        data.addSensorData(SupportedSensors.SOIL_MOISTURE, 6.0);
+
+        data.clear();
+
+        assertEquals(-1.0, data.getSensorData(SupportedSensors.SOIL_MOISTURE), 0.001);
+    }
+
     /**
      * Test: check that attempting to retrieve an unstored sensor value will
      * result in a -1.0 value return.
@@ -0,0 +1,125 @@
+package network.unittests;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import network.core.EncodedPacket;
+import network.core.ReceiveWindow;
+import network.core.RttEstimator;
+import network.core.SendWindow;
+import network.core.packets.Acknowledgement;
+import network.core.packets.sensors.RequestSensors;
+
+/**
+ * The following class hosts several unit tests to verify that the send and
+ * receive windows agree on which sequenced packets have been delivered.
+ *
+ * @author Ahmed Sakr
+ * @since October 18, 2026
+ */
+public class SlidingWindowUnittest {
+
+    /*
+     * Reserve the next sequence of the window and record a packet as sent with it.
+     */
+    private EncodedPacket send(SendWindow window) throws InterruptedException {
+        int sequence = window.reserve();
+
+        RequestSensors request = new RequestSensors();
+        request.setSequence(sequence);
+
+        EncodedPacket encoded = request.encode();
+        window.sent(sequence, encoded);
+
+        return encoded;
+    }
+
+    /**
+     * Test: Check that packets received out of order are acknowledged selectively until
+     * the missing packet arrives, and that retransmissions are recognized.
+     */
+    @Test
+    public void receiveWindowTracksOutOfOrderPackets() {
+        ReceiveWindow window = new ReceiveWindow();
+
+        window.record(0);
+        window.record(2);
+        window.record(4);
+
+        Acknowledgement acknowledgement = window.createAcknowledgement();
+        assertEquals(0, acknowledgement.getCumulative());
+        assertEquals(0b101, acknowledgement.getSelective());
+
+        assertFalse(window.isNew(0));
+        assertFalse(window.isNew(2));
+        assertTrue(window.isNew(1));
+
+        // The missing packet closes the gap up to the next missing one.
+        window.record(1);
+        assertEquals(2, window.getCumulative());
+        assertEquals(0b1, window.createAcknowledgement().getSelective());
+
+        // Packets too far ahead of the window are not tracked.
+        assertFalse(window.isNew(2 + ReceiveWindow.RANGE + 1));
+    }
+
+    /**
+     * Test: Check that the send window only slides past packets once everything before
+     * them has been acknowledged.
+     */
+    @Test
+    public void sendWindowSlidesOnAcknowledgement() throws InterruptedException {
+        SendWindow window = new SendWindow(4, new RttEstimator(1000, 1000, 1000));
+        for (int i = 0; i < 4; i++) {
+            this.send(window);
+        }
+
+        // Packets 1 and 3 arrived, but 0 and 2 did not.
+        ReceiveWindow receiver = new ReceiveWindow();
+        receiver.record(1);
+        receiver.record(3);
+
+        Acknowledgement acknowledgement = receiver.createAcknowledgement();
+        assertEquals(2, window.onAcknowledgement(acknowledgement.getCumulative(), acknowledgement.getSelective()));
+        assertEquals(4, window.getOutstanding());
+
+        receiver.record(0);
+        receiver.record(2);
+
+        acknowledgement = receiver.createAcknowledgement();
+        assertEquals(2, window.onAcknowledgement(acknowledgement.getCumulative(), acknowledgement.getSelective()));
+        assertEquals(0, window.getOutstanding());
+
+        // A stale acknowledgement acknowledges nothing more.
+        assertEquals(0, window.onAcknowledgement(acknowledgement.getCumulative(), acknowledgement.getSelective()));
+    }
+
+    /**
+     * Test: Check that only the packets that were not acknowledged are retransmitted.
+     */
+    @Test(timeout = 5000)
+    public void unacknowledgedPacketsAreRetransmitted() throws InterruptedException {
+        SendWindow window = new SendWindow(4, new RttEstimator(10, 10, 10));
+        EncodedPacket first = this.send(window);
+        this.send(window);
+        EncodedPacket third = this.send(window);
+
+        // Only packet 1 arrived.
+        window.onAcknowledgement(-1, 0b1);
+
+        // The timers were started moments apart, and may expire moments apart too.
+        List<EncodedPacket> due = new ArrayList<>(window.awaitRetransmissions());
+        while (due.size() < 2) {
+            due.addAll(window.awaitRetransmissions());
+        }
+
+        assertEquals(2, due.size());
+        assertTrue(due.contains(first));
+        assertTrue(due.contains(third));
+    }
+}